@@ -0,0 +1,32 @@
+package com.example.ishopping.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 共享线程池
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${app.order.bulk-delete.parallelism:4}")
+    private int bulkDeleteParallelism;
+
+    /**
+     * 批量删除订单：所有请求共用，同时执行的删除块不超过 parallelism 个，多出的排队
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService orderBulkDeleteExecutor() {
+        AtomicInteger sequence = new AtomicInteger();
+        return Executors.newFixedThreadPool(bulkDeleteParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "order-bulk-delete-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.ishopping.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 号段主键校准：订单和订单项的主键由 id_generator 表分配（pooled-lo），表和行由 Hibernate 自动创建时从 1 开始，
+ * 数据库里已有订单时会分配到已被占用的ID。启动时（建表之后、接收请求之前）把 next_val 抬到现有最大ID（含归档表）之后，
+ * 只增不减，多个实例同时启动也不会回退。
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class IdGeneratorInitializer {
+
+    private static final String RAISE_SQL =
+            "UPDATE id_generator SET next_val = GREATEST(COALESCE(next_val, 0), ?) WHERE gen_name = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO id_generator (gen_name, next_val) VALUES (?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        seed("orders", "orders", "orders_archive");
+        seed("order_items", "order_items", "order_items_archive");
+    }
+
+    /**
+     * 把生成器的 next_val 至少设为给定各表最大ID + 1，返回校准后的值
+     */
+    public long seed(String generator, String... tables) {
+        long next = 1;
+        for (String table : tables) {
+            Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            next = Math.max(next, max + 1);
+        }
+        if (jdbcTemplate.update(RAISE_SQL, next, generator) == 0) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, generator, next);
+            } catch (DuplicateKeyException e) {
+                // 其他实例刚插入了这一行
+                jdbcTemplate.update(RAISE_SQL, next, generator);
+            }
+        }
+        Long value = jdbcTemplate.queryForObject("SELECT next_val FROM id_generator WHERE gen_name = ?", Long.class, generator);
+        System.out.println("主键号段 " + generator + " 从 " + value + " 开始分配");
+        return value;
+    }
+}
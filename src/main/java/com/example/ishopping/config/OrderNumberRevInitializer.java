@@ -0,0 +1,60 @@
+package com.example.ishopping.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 倒序订单号回填：order_number_rev 列由 ddl-auto 加到已有的订单表上时全部为 NULL，这些订单按尾号搜索不到。
+ * 启动时（建表之后、接收请求之前）分批补齐热表和归档表中为 NULL 的行，已有值的行不动，重复启动或多实例同时执行都无害。
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class OrderNumberRevInitializer {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 每批回填的订单数
+    @Value("${app.order.number-rev.backfill-batch-size:1000}")
+    private int batchSize;
+
+    @PostConstruct
+    public void init() {
+        for (String table : new String[]{"orders", "orders_archive"}) {
+            long filled = backfill(table);
+            if (filled > 0) {
+                System.out.println("倒序订单号回填 " + table + "：" + filled + " 条");
+            }
+        }
+    }
+
+    /**
+     * 补齐给定表中 order_number_rev 为 NULL 的行，返回回填的行数
+     */
+    public long backfill(String table) {
+        String select = "SELECT id, order_number FROM " + table + " WHERE order_number_rev IS NULL LIMIT ?";
+        String update = "UPDATE " + table + " SET order_number_rev = ? WHERE id = ? AND order_number_rev IS NULL";
+        long filled = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(select, batchSize);
+            if (rows.isEmpty()) {
+                return filled;
+            }
+            List<Object[]> args = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                String number = (String) row.get("order_number");
+                args.add(new Object[]{new StringBuilder(number).reverse().toString(), row.get("id")});
+            }
+            jdbcTemplate.batchUpdate(update, args);
+            filled += rows.size();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.ishopping.config;
+
+import com.example.ishopping.service.RevenueRollupService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+/**
+ * 营收汇总回填：revenue_rollups 由 ddl-auto 建在已有订单的数据库上时为空，历史营收曲线从零开始。
+ * 启动时（主键号段校准之后、接收请求之前）汇总表为空则按已有订单回填一次，之后由订单事件增量维护。
+ */
+@Component
+@DependsOn({"entityManagerFactory", "idGeneratorInitializer"})
+public class RevenueRollupInitializer {
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @PostConstruct
+    public void init() {
+        long orders = revenueRollupService.backfill();
+        if (orders > 0) {
+            System.out.println("营收汇总已按 " + orders + " 个已有订单回填");
+        }
+    }
+}
@@ -1,28 +1,42 @@
 package com.example.ishopping.controller;
 
-import com.example.ishopping.dto.UserDTO;
-import com.example.ishopping.dto.OrderItemResponse;
+import com.example.ishopping.dto.BulkDeleteReport;
+import com.example.ishopping.dto.OrderIntakeStatus;
 import com.example.ishopping.dto.OrderResponse;
+import com.example.ishopping.dto.RevenuePoint;
 import com.example.ishopping.dto.CreateOrderRequest;
 import com.example.ishopping.entity.Order;
-import com.example.ishopping.entity.OrderItem;
 import com.example.ishopping.entity.OrderStatus;
+import com.example.ishopping.entity.OrderStatusEvent;
+import com.example.ishopping.entity.RollupGranularity;
 import com.example.ishopping.entity.User;
 import com.example.ishopping.entity.UserRole;
 import com.example.ishopping.repository.OrderRepository;
-import com.example.ishopping.repository.UserRepository;
+import com.example.ishopping.service.OrderAssembler;
+import com.example.ishopping.service.OrderBulkDeleteService;
+import com.example.ishopping.service.OrderExportService;
+import com.example.ishopping.service.OrderIntakeService;
+import com.example.ishopping.service.OrderQueryService;
 import com.example.ishopping.service.OrderService;
+import com.example.ishopping.service.OrderTimelineService;
+import com.example.ishopping.service.RevenueRollupService;
+import com.example.ishopping.service.SellerOrderFeedService;
 import com.example.ishopping.service.UserService;
 import com.example.ishopping.util.UserContext;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -35,7 +49,28 @@ public class OrderController {
     private OrderRepository orderRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private OrderAssembler orderAssembler;
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @Autowired
+    private OrderQueryService orderQueryService;
+
+    @Autowired
+    private OrderBulkDeleteService orderBulkDeleteService;
+
+    @Autowired
+    private OrderTimelineService orderTimelineService;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private SellerOrderFeedService sellerOrderFeedService;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
 
     /**
      * 创建新订单 -> 返回 DTO
@@ -43,30 +78,68 @@ public class OrderController {
     @PostMapping
     public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody CreateOrderRequest request) {
         Order order = orderService.createOrder(request);
-        return ResponseEntity.ok(toDto(order));
+        return ResponseEntity.ok(orderAssembler.toDto(order));
+    }
+
+    /**
+     * 异步下单（需开启 app.order.intake.enabled）：校验后入队，立即返回订单号和 202
+     */
+    @PostMapping("/intake")
+    public ResponseEntity<?> submitOrder(@Valid @RequestBody CreateOrderRequest request) {
+        OrderIntakeStatus status = orderIntakeService.submit(request);
+        if (status == null) {
+            return ResponseEntity.status(503).body("下单人数过多，请稍后重试");
+        }
+        return ResponseEntity.accepted().body(status);
+    }
+
+    /**
+     * 查询异步下单结果：QUEUED（排队中）/ CREATED（已创建）/ REJECTED（已拒绝）
+     */
+    @GetMapping("/intake/{orderNumber}")
+    public ResponseEntity<OrderIntakeStatus> getIntakeStatus(@PathVariable String orderNumber) {
+        return ResponseEntity.ok(orderIntakeService.getStatus(orderNumber));
     }
 
     /**
      * 获取当前用户的订单列表（返回 DTO 列表）
      * 顾客：自己的订单 | 商家：自己店铺的订单 | 管理员：所有订单
+     * 传入 cursor 参数（第一页传空字符串）时使用游标分页，返回 { items, nextCursor }
+     * history=true 时返回已归档的历史订单（各列表接口相同）
      */
     @GetMapping
-    public ResponseEntity<List<OrderResponse>> getOrders(
+    public ResponseEntity<?> getOrders(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-
-        List<Order> orders = orderService.getOrdersByCurrentUser(page, size);
-        List<OrderResponse> resp = orders.stream().map(this::toDto).collect(Collectors.toList());
-        return ResponseEntity.ok(resp);
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean history) {
+        if (history) {
+            return cursor != null
+                    ? ResponseEntity.ok(orderQueryService.getArchivedOrders(cursor, size))
+                    : ResponseEntity.ok(orderQueryService.getArchivedOrders(page, size));
+        }
+        if (cursor != null) {
+            return ResponseEntity.ok(orderQueryService.getOrdersByCurrentUser(cursor, size));
+        }
+        return ResponseEntity.ok(orderQueryService.getOrdersByCurrentUser(page, size));
     }
 
     /**
-     * 根据ID获取订单详情（返回 DTO，包含 items）
+     * 根据ID获取订单详情（返回 DTO，包含 items），history=true 时已归档的订单也可查到
      */
     @GetMapping("/{id}")
-    public ResponseEntity<OrderResponse> getOrder(@PathVariable Long id) {
-        Order order = orderService.getOrderById(id);
-        return ResponseEntity.ok(toDto(order));
+    public ResponseEntity<OrderResponse> getOrder(@PathVariable Long id,
+                                                  @RequestParam(defaultValue = "false") boolean history) {
+        Order order = orderService.getOrderById(id, history);
+        return ResponseEntity.ok(orderAssembler.toDto(order));
+    }
+
+    /**
+     * 订单状态时间线（创建、每次状态变化的时间和操作人）
+     */
+    @GetMapping("/{id}/timeline")
+    public ResponseEntity<List<OrderStatusEvent>> getOrderTimeline(@PathVariable Long id) {
+        return ResponseEntity.ok(orderTimelineService.getTimeline(id));
     }
 
     /**
@@ -91,7 +164,7 @@ public class OrderController {
             return ResponseEntity.status(400).build();
         }
 
-        return ResponseEntity.ok(toDto(order));
+        return ResponseEntity.ok(orderAssembler.toDto(order));
     }
 
     /**
@@ -99,11 +172,29 @@ public class OrderController {
      */
     @GetMapping("/seller/my-orders")
     @PreAuthorize("hasRole('SELLER')")
-    public ResponseEntity<List<OrderResponse>> getSellerOrders(
+    public ResponseEntity<?> getSellerOrders(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        List<Order> orders = orderService.getOrdersBySeller(page, size);
-        return ResponseEntity.ok(orders.stream().map(this::toDto).collect(Collectors.toList()));
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean history) {
+        if (history) {
+            return cursor != null
+                    ? ResponseEntity.ok(orderQueryService.getArchivedOrders(cursor, size))
+                    : ResponseEntity.ok(orderQueryService.getArchivedOrders(page, size));
+        }
+        if (cursor != null) {
+            return ResponseEntity.ok(orderQueryService.getOrdersBySeller(cursor, size));
+        }
+        return ResponseEntity.ok(orderQueryService.getOrdersBySeller(page, size));
+    }
+
+    /**
+     * 商家订单实时推送（SSE）：新订单和状态变化，事件中附带店铺统计
+     */
+    @GetMapping(value = "/seller/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('SELLER')")
+    public SseEmitter streamSellerOrders() {
+        return sellerOrderFeedService.subscribe();
     }
 
     /**
@@ -111,11 +202,20 @@ public class OrderController {
      */
     @GetMapping("/customer/my-orders")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<List<OrderResponse>> getCustomerOrders(
+    public ResponseEntity<?> getCustomerOrders(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        List<Order> orders = orderService.getOrdersByCurrentUser(page, size);
-        return ResponseEntity.ok(orders.stream().map(this::toDto).collect(Collectors.toList()));
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean history) {
+        if (history) {
+            return cursor != null
+                    ? ResponseEntity.ok(orderQueryService.getArchivedOrders(cursor, size))
+                    : ResponseEntity.ok(orderQueryService.getArchivedOrders(page, size));
+        }
+        if (cursor != null) {
+            return ResponseEntity.ok(orderQueryService.getOrdersByCurrentUser(cursor, size));
+        }
+        return ResponseEntity.ok(orderQueryService.getOrdersByCurrentUser(page, size));
     }
 
     /**
@@ -123,11 +223,56 @@ public class OrderController {
      */
     @GetMapping("/admin/all-orders")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<OrderResponse>> getAllOrders(
+    public ResponseEntity<?> getAllOrders(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        List<Order> orders = orderService.getAllOrders(page, size);
-        return ResponseEntity.ok(orders.stream().map(this::toDto).collect(Collectors.toList()));
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean history) {
+        if (history) {
+            return cursor != null
+                    ? ResponseEntity.ok(orderQueryService.getArchivedOrders(cursor, size))
+                    : ResponseEntity.ok(orderQueryService.getArchivedOrders(page, size));
+        }
+        if (cursor != null) {
+            return ResponseEntity.ok(orderQueryService.getAllOrders(cursor, size));
+        }
+        return ResponseEntity.ok(orderQueryService.getAllOrders(page, size));
+    }
+
+    /**
+     * 导出订单（管理员和商家，商家只导出自己店铺的订单）
+     * format: csv | ndjson；from/to 按下单时间筛选（ISO 格式，含 from 不含 to）；gzip=true 时输出 .gz 文件；
+     * history=true 时包含已归档的历史订单
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SELLER')")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) Long sellerId,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(defaultValue = "false") boolean history) {
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("不支持的导出格式: " + format);
+        }
+        StreamingResponseBody body = orderExportService.exportOrders(exportFormat, from, to, status, sellerId, gzip, history);
+
+        String fileName = "orders." + (exportFormat == OrderExportService.Format.CSV ? "csv" : "ndjson");
+        String contentType = exportFormat == OrderExportService.Format.CSV
+                ? "text/csv; charset=UTF-8" : "application/x-ndjson; charset=UTF-8";
+        if (gzip) {
+            fileName += ".gz";
+            contentType = "application/gzip";
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .header(HttpHeaders.CONTENT_TYPE, contentType)
+                .body(body);
     }
 
     /**
@@ -138,8 +283,7 @@ public class OrderController {
             @PathVariable OrderStatus status,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
-        List<Order> orders = orderService.getOrdersByStatus(status, page, size);
-        return ResponseEntity.ok(orders.stream().map(this::toDto).collect(Collectors.toList()));
+        return ResponseEntity.ok(orderQueryService.getOrdersByStatus(status, page, size));
     }
 
     /**
@@ -150,7 +294,7 @@ public class OrderController {
             @PathVariable Long id,
             @RequestParam OrderStatus status) {
         Order order = orderService.updateOrderStatus(id, status);
-        return ResponseEntity.ok(toDto(order));
+        return ResponseEntity.ok(orderAssembler.toDto(order));
     }
 
     /**
@@ -159,7 +303,7 @@ public class OrderController {
     @PutMapping("/{id}/cancel")
     public ResponseEntity<OrderResponse> cancelOrder(@PathVariable Long id) {
         Order order = orderService.cancelOrder(id);
-        return ResponseEntity.ok(toDto(order));
+        return ResponseEntity.ok(orderAssembler.toDto(order));
     }
 
     /**
@@ -169,7 +313,7 @@ public class OrderController {
     @PreAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<OrderResponse> confirmOrder(@PathVariable Long id) {
         Order order = orderService.confirmOrder(id);
-        return ResponseEntity.ok(toDto(order));
+        return ResponseEntity.ok(orderAssembler.toDto(order));
     }
 
     /**
@@ -181,8 +325,7 @@ public class OrderController {
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
-        List<Order> orders = orderService.searchOrders(keyword, page, size);
-        return ResponseEntity.ok(orders.stream().map(this::toDto).collect(Collectors.toList()));
+        return ResponseEntity.ok(orderQueryService.searchOrders(keyword, page, size));
     }
 
     /**
@@ -195,6 +338,27 @@ public class OrderController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * 营收时间序列（管理员和商家，商家只看自己店铺）
+     * granularity: hour | day；from/to 默认最近 24 小时（hour）或 30 天（day）；管理员不传 sellerId 时为全平台
+     */
+    @GetMapping("/stats/timeseries")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SELLER')")
+    public ResponseEntity<List<RevenuePoint>> getRevenueTimeseries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) Long sellerId,
+            @RequestParam(required = false) String category) {
+        RollupGranularity rollupGranularity;
+        try {
+            rollupGranularity = RollupGranularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("不支持的统计粒度: " + granularity);
+        }
+        return ResponseEntity.ok(revenueRollupService.getTimeseries(from, to, rollupGranularity, sellerId, category));
+    }
+
     /**
      * 删除订单（管理员和订单所属用户）
      */
@@ -205,80 +369,16 @@ public class OrderController {
     }
 
     /**
-     * 批量删除订单（仅管理员）
+     * 批量删除订单（仅管理员），返回逐个订单的删除结果
      */
     @DeleteMapping("/batch")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> batchDeleteOrders(@RequestBody List<Long> orderIds) {
-        orderService.batchDeleteOrders(orderIds);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<BulkDeleteReport> batchDeleteOrders(@RequestBody List<Long> orderIds) {
+        return ResponseEntity.ok(orderBulkDeleteService.deleteOrders(orderIds));
     }
 
     // ---------- 辅助方法 ----------
 
-    private OrderResponse toDto(Order o) {
-        if (o == null) return null;
-        OrderResponse r = new OrderResponse();
-        r.setId(o.getId());
-        r.setOrderNumber(o.getOrderNumber());
-        r.setUserId(o.getUserId());
-        r.setSellerId(o.getSellerId());
-        r.setTotalAmount(o.getTotalAmount());
-        r.setDiscountAmount(o.getDiscountAmount());
-        r.setShippingFee(o.getShippingFee());
-        r.setActualAmount(o.getActualAmount());
-        r.setStatus(o.getStatus() != null ? o.getStatus().name() : null);
-        r.setShippingAddress(o.getShippingAddress());
-        r.setReceiverName(o.getReceiverName());
-        r.setReceiverPhone(o.getReceiverPhone());
-        r.setPaymentMethod(o.getPaymentMethod());
-        r.setCreateTime(o.getCreateTime());
-        r.setUpdateTime(o.getUpdateTime());
-
-        List<OrderItemResponse> items = (o.getOrderItems() == null) ? List.of() :
-                o.getOrderItems().stream().map(this::toItemDto).collect(Collectors.toList());
-        r.setItems(items);
-
-        // 正确查用户并赋值
-        UserDTO userDto = null;
-        if (o.getUserId() != null) {
-            User userEntity = userRepository.findById(o.getUserId()).orElse(null);
-            if (userEntity != null) {
-                userDto = new UserDTO();
-                userDto.setId(userEntity.getId());
-                userDto.setUsername(userEntity.getUsername());
-                userDto.setEmail(userEntity.getEmail());
-                userDto.setPhone(userEntity.getPhone());
-                // 可加其它字段
-            }
-        }
-        r.setUser(userDto);
-
-        return r;
-    }
-
-    private OrderItemResponse toItemDto(OrderItem it) {
-        if (it == null) return null;
-        String productName = null;
-        String productImageUrl = null;
-        try {
-            if (it.getProduct() != null) {
-                productName = it.getProduct().getName();
-                productImageUrl = it.getProduct().getImageUrl(); // 假设有这个字段
-            }
-        } catch (Exception ignore) { productName = null; }
-
-        OrderItemResponse ir = new OrderItemResponse(
-                it.getId(),
-                it.getProductId(),
-                productName,
-                it.getQuantity(),
-                it.getPrice()
-        );
-        ir.setProductImageUrl(productImageUrl);
-        return ir;
-    }
-
     /**
      * 获取当前登录用户（供Controller使用）
      */
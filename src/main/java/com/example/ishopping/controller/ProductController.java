@@ -1,7 +1,15 @@
 package com.example.ishopping.controller;
 
+import com.example.ishopping.dto.CategoryCount;
+import com.example.ishopping.dto.ProductFacetRequest;
+import com.example.ishopping.dto.ProductFacetResult;
+import com.example.ishopping.dto.ProductRank;
+import com.example.ishopping.dto.ProductSuggestion;
+import com.example.ishopping.dto.ProductSummary;
 import com.example.ishopping.entity.Product;
+import com.example.ishopping.service.ProductLeaderboardService;
 import com.example.ishopping.service.ProductService;
+import com.example.ishopping.service.ProductSuggestIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -17,13 +25,27 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductLeaderboardService productLeaderboardService;
+
+    @Autowired
+    private ProductSuggestIndex productSuggestIndex;
+
+    /**
+     * 在售商品列表（列表项不含描述，详情见 GET /{id}）；传入 cursor 参数（第一页传空字符串）时使用游标分页，返回 { items, nextCursor }
+     */
     @GetMapping
-    public ResponseEntity<List<Product>> getProducts(
+    public ResponseEntity<?> getProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(required = false) String category,
-            @RequestParam(required = false) String keyword) {
-        List<Product> products;
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return ResponseEntity.ok(productService.getAvailableProducts(category, keyword, cursor, size));
+        }
+
+        List<ProductSummary> products;
 
         if (category != null && !category.isEmpty()) {
             products = productService.getProductsByCategory(category, page, size);
@@ -36,6 +58,43 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    /**
+     * 分面筛选：category、sellerId、minPrice/maxPrice、inStock、status、keyword 可任意组合，
+     * 返回 { total, ids, items, facets }，facets 为各分面每个取值的商品数
+     */
+    @GetMapping("/browse")
+    public ResponseEntity<ProductFacetResult> browseProducts(ProductFacetRequest request) {
+        return ResponseEntity.ok(productService.browseProducts(request));
+    }
+
+    /**
+     * 搜索框输入联想：名称或分类以 q 开头的热门词（内存前缀树，不查询数据库）
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestion>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productSuggestIndex.suggest(q, limit));
+    }
+
+    /**
+     * 销量排行（内存排行榜，不查询数据库）
+     * window: day（近 24 小时）| week | month | all；category 为空时为全部分类
+     */
+    @GetMapping("/top")
+    public ResponseEntity<List<ProductRank>> getTopProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "week") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        ProductLeaderboardService.Window leaderboardWindow;
+        try {
+            leaderboardWindow = ProductLeaderboardService.Window.valueOf(window.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("不支持的时间窗口: " + window);
+        }
+        return ResponseEntity.ok(productLeaderboardService.getTopProducts(category, leaderboardWindow, limit));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProduct(@PathVariable Long id) {
         Product product = productService.getProductById(id);
@@ -65,25 +124,32 @@ public class ProductController {
 
     @GetMapping("/seller/my-products")
     @PreAuthorize("hasRole('SELLER')")
-    public ResponseEntity<List<Product>> getMyProducts(
+    public ResponseEntity<?> getMyProducts(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        List<Product> products = productService.getProductsByCurrentSeller(page, size);
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return ResponseEntity.ok(productService.getProductsByCurrentSeller(cursor, size));
+        }
+        List<ProductSummary> products = productService.getProductsByCurrentSeller(page, size);
         return ResponseEntity.ok(products);
     }
 
+    /**
+     * 分类列表：[{ name, onSale, inStock }]，按在售商品数从多到少
+     */
     @GetMapping("/categories")
-    public ResponseEntity<List<String>> getCategories() {
-        List<String> categories = productService.getAllCategories();
+    public ResponseEntity<List<CategoryCount>> getCategories() {
+        List<CategoryCount> categories = productService.getAllCategories();
         return ResponseEntity.ok(categories);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(
+    public ResponseEntity<List<ProductSummary>> searchProducts(
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
-        List<Product> products = productService.searchProducts(keyword, page, size);
+        List<ProductSummary> products = productService.searchProducts(keyword, page, size);
         return ResponseEntity.ok(products);
     }
 
@@ -1,9 +1,14 @@
 package com.example.ishopping.controller;
 
+import com.example.ishopping.dto.CartCheckoutRequest;
+import com.example.ishopping.dto.OrderResponse;
 import com.example.ishopping.dto.ShoppingCartRequest;
+import com.example.ishopping.entity.Order;
 import com.example.ishopping.entity.ShoppingCart;
+import com.example.ishopping.service.OrderAssembler;
 import com.example.ishopping.service.ShoppingCartService;
 import com.example.ishopping.util.UserContext;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +24,9 @@ public class ShoppingCartController {
     @Autowired
     private ShoppingCartService shoppingCartService;
 
+    @Autowired
+    private OrderAssembler orderAssembler;
+
     @GetMapping
     public ResponseEntity<?> getCart() {
         try {
@@ -119,4 +127,23 @@ public class ShoppingCartController {
             return ResponseEntity.badRequest().body("清空购物车失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 购物车结算：按商家拆分为多个订单，一次请求、一个事务完成
+     */
+    @PostMapping("/checkout")
+    public ResponseEntity<?> checkout(@Valid @RequestBody CartCheckoutRequest request) {
+        try {
+            Long userId = UserContext.getCurrentUserId();
+            if (userId == null) {
+                return ResponseEntity.status(401).body("用户未登录");
+            }
+
+            List<Order> orders = shoppingCartService.checkout(request, userId);
+            List<OrderResponse> response = orderAssembler.toDtos(orders);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("购物车结算失败: " + e.getMessage());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.example.ishopping.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量删除结果：逐个订单ID给出删除成功或失败原因
+ */
+public class BulkDeleteReport {
+    private int requested;
+    private List<Long> deleted = new ArrayList<>();
+    private List<Failure> failed = new ArrayList<>();
+
+    public BulkDeleteReport() {}
+
+    public BulkDeleteReport(int requested) {
+        this.requested = requested;
+    }
+
+    public void addDeleted(List<Long> orderIds) {
+        deleted.addAll(orderIds);
+    }
+
+    public void addFailure(Long orderId, String reason) {
+        failed.add(new Failure(orderId, reason));
+    }
+
+    public void merge(BulkDeleteReport other) {
+        deleted.addAll(other.deleted);
+        failed.addAll(other.failed);
+    }
+
+    public int getRequested() { return requested; }
+    public void setRequested(int requested) { this.requested = requested; }
+
+    public List<Long> getDeleted() { return deleted; }
+    public void setDeleted(List<Long> deleted) { this.deleted = deleted; }
+
+    public List<Failure> getFailed() { return failed; }
+    public void setFailed(List<Failure> failed) { this.failed = failed; }
+
+    public static class Failure {
+        private Long orderId;
+        private String reason;
+
+        public Failure() {}
+
+        public Failure(Long orderId, String reason) {
+            this.orderId = orderId;
+            this.reason = reason;
+        }
+
+        public Long getOrderId() { return orderId; }
+        public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+        public String getReason() { return reason; }
+        public void setReason(String reason) { this.reason = reason; }
+    }
+}
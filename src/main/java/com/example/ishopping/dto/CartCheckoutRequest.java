@@ -0,0 +1,42 @@
+package com.example.ishopping.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class CartCheckoutRequest {
+
+    @NotBlank(message = "收货地址不能为空")
+    @Size(max = 200, message = "收货地址不能超过200个字符")
+    private String shippingAddress;
+
+    @NotBlank(message = "收货人姓名不能为空")
+    @Size(max = 50, message = "收货人姓名不能超过50个字符")
+    private String receiverName;
+
+    @NotBlank(message = "收货人电话不能为空")
+    @Size(max = 20, message = "收货人电话不能超过20个字符")
+    private String receiverPhone;
+
+    @NotBlank(message = "支付方式不能为空")
+    private String paymentMethod;
+
+    // 要结算的商品ID，为空表示结算整个购物车
+    private List<Long> productIds;
+
+    // Getter 和 Setter 方法
+    public String getShippingAddress() { return shippingAddress; }
+    public void setShippingAddress(String shippingAddress) { this.shippingAddress = shippingAddress; }
+
+    public String getReceiverName() { return receiverName; }
+    public void setReceiverName(String receiverName) { this.receiverName = receiverName; }
+
+    public String getReceiverPhone() { return receiverPhone; }
+    public void setReceiverPhone(String receiverPhone) { this.receiverPhone = receiverPhone; }
+
+    public String getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
+
+    public List<Long> getProductIds() { return productIds; }
+    public void setProductIds(List<Long> productIds) { this.productIds = productIds; }
+}
@@ -0,0 +1,27 @@
+package com.example.ishopping.dto;
+
+/**
+ * 分类及其商品数：onSale 为在售商品数，inStock 为其中有库存的商品数
+ */
+public class CategoryCount {
+    private String name;
+    private long onSale;
+    private long inStock;
+
+    public CategoryCount() {}
+
+    public CategoryCount(String name, long onSale, long inStock) {
+        this.name = name;
+        this.onSale = onSale;
+        this.inStock = inStock;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public long getOnSale() { return onSale; }
+    public void setOnSale(long onSale) { this.onSale = onSale; }
+
+    public long getInStock() { return inStock; }
+    public void setInStock(long inStock) { this.inStock = inStock; }
+}
@@ -0,0 +1,38 @@
+package com.example.ishopping.dto;
+
+import com.example.ishopping.util.PageCursor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果：nextCursor 为 null 表示没有下一页
+ */
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    public CursorPage() {}
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * 由多取一条（size + 1）的查询结果构造：多出的那条只用于判断是否还有下一页
+     */
+    public static <T> CursorPage<T> of(List<T> fetched, int size, Function<T, PageCursor> positionOf) {
+        if (fetched.size() <= size) {
+            return new CursorPage<>(fetched, null);
+        }
+        List<T> items = fetched.subList(0, size);
+        return new CursorPage<>(items, positionOf.apply(items.get(size - 1)).encode());
+    }
+
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,29 @@
+package com.example.ishopping.dto;
+
+public class OrderIntakeStatus {
+    private String orderNumber;
+    private String status; // QUEUED / CREATED / REJECTED
+    private Long orderId;
+    private String message;
+
+    public OrderIntakeStatus() {}
+
+    public OrderIntakeStatus(String orderNumber, String status, Long orderId, String message) {
+        this.orderNumber = orderNumber;
+        this.status = status;
+        this.orderId = orderId;
+        this.message = message;
+    }
+
+    public String getOrderNumber() { return orderNumber; }
+    public void setOrderNumber(String orderNumber) { this.orderNumber = orderNumber; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
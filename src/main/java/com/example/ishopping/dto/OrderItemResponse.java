@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 
 public class OrderItemResponse {
     private Long id;
+    private Long orderId;
     private Long productId;
     private String productName;
     private Integer quantity;
@@ -26,9 +27,20 @@ public class OrderItemResponse {
         this.subtotal = price == null ? BigDecimal.ZERO : price.multiply(BigDecimal.valueOf(quantity));
     }
 
+    // 订单列表投影查询使用（订单项关联商品名称和图片）
+    public OrderItemResponse(Long id, Long orderId, Long productId, String productName, String productImageUrl,
+                             Integer quantity, BigDecimal price) {
+        this(id, productId, productName, quantity, price);
+        this.orderId = orderId;
+        this.productImageUrl = productImageUrl;
+    }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
     public Long getProductId() { return productId; }
     public void setProductId(Long productId) { this.productId = productId; }
 
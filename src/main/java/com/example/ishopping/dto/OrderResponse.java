@@ -1,5 +1,7 @@
 package com.example.ishopping.dto;
 
+import com.example.ishopping.entity.OrderStatus;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -28,6 +30,28 @@ public class OrderResponse {
 
     public OrderResponse() {}
 
+    // 订单列表投影查询使用（不加载订单实体）
+    public OrderResponse(Long id, String orderNumber, Long userId, Long sellerId, BigDecimal totalAmount,
+                         BigDecimal discountAmount, BigDecimal shippingFee, BigDecimal actualAmount,
+                         OrderStatus status, String shippingAddress, String receiverName, String receiverPhone,
+                         String paymentMethod, LocalDateTime createTime, LocalDateTime updateTime) {
+        this.id = id;
+        this.orderNumber = orderNumber;
+        this.userId = userId;
+        this.sellerId = sellerId;
+        this.totalAmount = totalAmount;
+        this.discountAmount = discountAmount;
+        this.shippingFee = shippingFee;
+        this.actualAmount = actualAmount;
+        this.status = status != null ? status.name() : null;
+        this.shippingAddress = shippingAddress;
+        this.receiverName = receiverName;
+        this.receiverPhone = receiverPhone;
+        this.paymentMethod = paymentMethod;
+        this.createTime = createTime;
+        this.updateTime = updateTime;
+    }
+
     // getters / setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -0,0 +1,56 @@
+package com.example.ishopping.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品分面筛选结果：一页商品、满足条件的总数，以及各分面（category/seller/price/status/inStock）下每个取值的商品数。
+ * 某个分面的计数不受该分面自身条件限制（选中一个分类后其他分类的数量仍然可见）。
+ */
+public class ProductFacetResult {
+    private long total;
+    private List<Long> ids;
+    private List<ProductSummary> items;
+    private Map<String, List<FacetCount>> facets;
+
+    public ProductFacetResult() {}
+
+    public ProductFacetResult(long total, List<Long> ids, Map<String, List<FacetCount>> facets) {
+        this.total = total;
+        this.ids = ids;
+        this.facets = facets;
+    }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+
+    public List<ProductSummary> getItems() { return items; }
+    public void setItems(List<ProductSummary> items) { this.items = items; }
+
+    public Map<String, List<FacetCount>> getFacets() { return facets; }
+    public void setFacets(Map<String, List<FacetCount>> facets) { this.facets = facets; }
+
+    /**
+     * 分面中的一个取值及其商品数
+     */
+    public static class FacetCount {
+        private String value;
+        private long count;
+
+        public FacetCount() {}
+
+        public FacetCount(String value, long count) {
+            this.value = value;
+            this.count = count;
+        }
+
+        public String getValue() { return value; }
+        public void setValue(String value) { this.value = value; }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+    }
+}
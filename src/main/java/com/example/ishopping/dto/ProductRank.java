@@ -0,0 +1,27 @@
+package com.example.ishopping.dto;
+
+/**
+ * 销量排行榜中的一个商品：sales 为估计销量，真实销量在 [sales - error, sales] 之间
+ */
+public class ProductRank {
+    private Long productId;
+    private long sales;
+    private long error;
+
+    public ProductRank() {}
+
+    public ProductRank(Long productId, long sales, long error) {
+        this.productId = productId;
+        this.sales = sales;
+        this.error = error;
+    }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public long getSales() { return sales; }
+    public void setSales(long sales) { this.sales = sales; }
+
+    public long getError() { return error; }
+    public void setError(long error) { this.error = error; }
+}
@@ -0,0 +1,27 @@
+package com.example.ishopping.dto;
+
+/**
+ * 输入联想的一项：type 为 PRODUCT（商品名称）或 CATEGORY（分类），score 为热度（销量 + 商品数）
+ */
+public class ProductSuggestion {
+    private String text;
+    private String type;
+    private long score;
+
+    public ProductSuggestion() {}
+
+    public ProductSuggestion(String text, String type, long score) {
+        this.text = text;
+        this.type = type;
+        this.score = score;
+    }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public long getScore() { return score; }
+    public void setScore(long score) { this.score = score; }
+}
@@ -0,0 +1,57 @@
+package com.example.ishopping.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 商品列表项（构造器投影）：不含 TEXT 类型的描述，列表和搜索接口使用；完整商品只在 GET /api/products/{id} 返回。
+ * createTime 用于游标分页定位。
+ */
+public class ProductSummary {
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private Integer stock;
+    private String category;
+    private String imageUrl;
+    private Long sellerId;
+    private LocalDateTime createTime;
+
+    public ProductSummary() {}
+
+    public ProductSummary(Long id, String name, BigDecimal price, Integer stock, String category,
+                          String imageUrl, Long sellerId, LocalDateTime createTime) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stock = stock;
+        this.category = category;
+        this.imageUrl = imageUrl;
+        this.sellerId = sellerId;
+        this.createTime = createTime;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+
+    public Integer getStock() { return stock; }
+    public void setStock(Integer stock) { this.stock = stock; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getImageUrl() { return imageUrl; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+
+    public Long getSellerId() { return sellerId; }
+    public void setSellerId(Long sellerId) { this.sellerId = sellerId; }
+
+    public LocalDateTime getCreateTime() { return createTime; }
+    public void setCreateTime(LocalDateTime createTime) { this.createTime = createTime; }
+}
@@ -0,0 +1,36 @@
+package com.example.ishopping.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 营收时间序列中的一个点（一个小时或一天）
+ */
+public class RevenuePoint {
+    private LocalDateTime bucketStart;
+    private long orderCount;
+    private BigDecimal totalAmount;
+    private BigDecimal actualAmount;
+
+    public RevenuePoint() {}
+
+    // 汇总查询使用（多个商家的同一时间桶合并为一个点）
+    public RevenuePoint(LocalDateTime bucketStart, Long orderCount, BigDecimal totalAmount, BigDecimal actualAmount) {
+        this.bucketStart = bucketStart;
+        this.orderCount = orderCount == null ? 0 : orderCount;
+        this.totalAmount = totalAmount == null ? BigDecimal.ZERO : totalAmount;
+        this.actualAmount = actualAmount == null ? BigDecimal.ZERO : actualAmount;
+    }
+
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public void setBucketStart(LocalDateTime bucketStart) { this.bucketStart = bucketStart; }
+
+    public long getOrderCount() { return orderCount; }
+    public void setOrderCount(long orderCount) { this.orderCount = orderCount; }
+
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+
+    public BigDecimal getActualAmount() { return actualAmount; }
+    public void setActualAmount(BigDecimal actualAmount) { this.actualAmount = actualAmount; }
+}
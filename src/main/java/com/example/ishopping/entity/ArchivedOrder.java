@@ -0,0 +1,104 @@
+package com.example.ishopping.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 归档订单：已完成/已取消且超过保留期的订单从 orders 整行搬到 orders_archive，保留原订单ID。
+ * 只由归档任务批量写入，业务代码只读。
+ */
+@Entity
+// 索引声明在实体上，由 ddl-auto 建立（database_init.sql 不会被执行）；历史订单列表与热表一样按 (create_time, id) 游标分页
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_orders_archive_time", columnList = "create_time, id"),
+        @Index(name = "idx_orders_archive_user_time", columnList = "user_id, create_time, id"),
+        @Index(name = "idx_orders_archive_seller_time", columnList = "seller_id, create_time, id")
+})
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    @Column(name = "order_number", unique = true, nullable = false)
+    private String orderNumber;
+
+    @Column(name = "order_number_rev")
+    private String orderNumberRev;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "seller_id", nullable = false)
+    private Long sellerId;
+
+    @Column(name = "total_amount", nullable = false)
+    private BigDecimal totalAmount;
+
+    @Column(name = "discount_amount")
+    private BigDecimal discountAmount;
+
+    @Column(name = "shipping_fee")
+    private BigDecimal shippingFee;
+
+    @Column(name = "actual_amount", nullable = false)
+    private BigDecimal actualAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    @Column(name = "shipping_address")
+    private String shippingAddress;
+
+    @Column(name = "receiver_name")
+    private String receiverName;
+
+    @Column(name = "receiver_phone")
+    private String receiverPhone;
+
+    @Column(name = "payment_method")
+    private String paymentMethod;
+
+    @Column(name = "payment_time")
+    private LocalDateTime paymentTime;
+
+    @Column(name = "delivery_time")
+    private LocalDateTime deliveryTime;
+
+    @Column(name = "receive_time")
+    private LocalDateTime receiveTime;
+
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;
+
+    @Column(name = "update_time", nullable = false)
+    private LocalDateTime updateTime;
+
+    @Column(name = "archive_time", nullable = false)
+    private LocalDateTime archiveTime;
+
+    public ArchivedOrder() {}
+
+    // Getter 方法
+    public Long getId() { return id; }
+    public String getOrderNumber() { return orderNumber; }
+    public String getOrderNumberRev() { return orderNumberRev; }
+    public Long getUserId() { return userId; }
+    public Long getSellerId() { return sellerId; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public BigDecimal getDiscountAmount() { return discountAmount; }
+    public BigDecimal getShippingFee() { return shippingFee; }
+    public BigDecimal getActualAmount() { return actualAmount; }
+    public OrderStatus getStatus() { return status; }
+    public String getShippingAddress() { return shippingAddress; }
+    public String getReceiverName() { return receiverName; }
+    public String getReceiverPhone() { return receiverPhone; }
+    public String getPaymentMethod() { return paymentMethod; }
+    public LocalDateTime getPaymentTime() { return paymentTime; }
+    public LocalDateTime getDeliveryTime() { return deliveryTime; }
+    public LocalDateTime getReceiveTime() { return receiveTime; }
+    public LocalDateTime getCreateTime() { return createTime; }
+    public LocalDateTime getUpdateTime() { return updateTime; }
+    public LocalDateTime getArchiveTime() { return archiveTime; }
+}
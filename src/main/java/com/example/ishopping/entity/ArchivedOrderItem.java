@@ -0,0 +1,42 @@
+package com.example.ishopping.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 归档订单项：随所属订单一起搬到 order_items_archive，保留原订单项ID
+ */
+@Entity
+// 历史订单读取订单项按 order_id 查找（索引由 ddl-auto 建立）
+@Table(name = "order_items_archive", indexes = @Index(name = "idx_order_items_archive_order", columnList = "order_id"))
+public class ArchivedOrderItem {
+
+    @Id
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal price;
+
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;
+
+    public ArchivedOrderItem() {}
+
+    // Getter 方法
+    public Long getId() { return id; }
+    public Long getOrderId() { return orderId; }
+    public Long getProductId() { return productId; }
+    public Integer getQuantity() { return quantity; }
+    public BigDecimal getPrice() { return price; }
+    public LocalDateTime getCreateTime() { return createTime; }
+}
@@ -1,21 +1,40 @@
 package com.example.ishopping.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+// 索引声明在实体上，由 ddl-auto 建立（database_init.sql 不会被执行）
+@Table(name = "orders", indexes = {
+        // 游标分页：按 (create_time, id) 定位，列表过滤列在前
+        @Index(name = "idx_orders_time", columnList = "create_time, id"),
+        @Index(name = "idx_orders_user_time", columnList = "user_id, create_time, id"),
+        @Index(name = "idx_orders_seller_time", columnList = "seller_id, create_time, id"),
+        // 订单号搜索：前缀走 order_number，尾号走倒序列 order_number_rev；商家搜索带 seller_id 前缀
+        @Index(name = "idx_orders_number_rev", columnList = "order_number_rev"),
+        @Index(name = "idx_orders_seller_number", columnList = "seller_id, order_number"),
+        @Index(name = "idx_orders_seller_number_rev", columnList = "seller_id, order_number_rev"),
+        // 归档任务按 (status, update_time) 挑选待归档订单
+        @Index(name = "idx_orders_status_update_time", columnList = "status, update_time")
+})
 public class Order {
 
+    // 号段分配主键（pooled-lo），IDENTITY 主键会让 Hibernate 无法批量插入
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_id_generator")
+    @TableGenerator(name = "order_id_generator", table = "id_generator", pkColumnName = "gen_name",
+            valueColumnName = "next_val", pkColumnValue = "orders", allocationSize = 50)
     private Long id;
 
     @Column(name = "order_number", unique = true, nullable = false)
     private String orderNumber;
 
+    @Column(name = "order_number_rev")  // 倒序订单号，按尾号搜索时走索引
+    private String orderNumberRev;
+
     @Column(name = "user_id", nullable = false)
     private Long userId;
 
@@ -50,6 +69,15 @@ public class Order {
     @Column(name = "payment_method")
     private String paymentMethod;
 
+    @Column(name = "payment_time")
+    private LocalDateTime paymentTime;
+
+    @Column(name = "delivery_time")
+    private LocalDateTime deliveryTime;
+
+    @Column(name = "receive_time")
+    private LocalDateTime receiveTime;
+
     @Column(name = "create_time", nullable = false)
     private LocalDateTime createTime;
 
@@ -57,6 +85,7 @@ public class Order {
     private LocalDateTime updateTime;
 
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 100)  // 一页订单的订单项一次查询加载
     private List<OrderItem> orderItems;
 
     // 构造函数
@@ -70,7 +99,12 @@ public class Order {
     public void setId(Long id) { this.id = id; }
 
     public String getOrderNumber() { return orderNumber; }
-    public void setOrderNumber(String orderNumber) { this.orderNumber = orderNumber; }
+    public void setOrderNumber(String orderNumber) {
+        this.orderNumber = orderNumber;
+        this.orderNumberRev = orderNumber != null ? new StringBuilder(orderNumber).reverse().toString() : null;
+    }
+
+    public String getOrderNumberRev() { return orderNumberRev; }
 
     public Long getUserId() { return userId; }
     public void setUserId(Long userId) { this.userId = userId; }
@@ -108,6 +142,15 @@ public class Order {
     public String getPaymentMethod() { return paymentMethod; }
     public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
 
+    public LocalDateTime getPaymentTime() { return paymentTime; }
+    public void setPaymentTime(LocalDateTime paymentTime) { this.paymentTime = paymentTime; }
+
+    public LocalDateTime getDeliveryTime() { return deliveryTime; }
+    public void setDeliveryTime(LocalDateTime deliveryTime) { this.deliveryTime = deliveryTime; }
+
+    public LocalDateTime getReceiveTime() { return receiveTime; }
+    public void setReceiveTime(LocalDateTime receiveTime) { this.receiveTime = receiveTime; }
+
     public LocalDateTime getCreateTime() { return createTime; }
     public void setCreateTime(LocalDateTime createTime) { this.createTime = createTime; }
 
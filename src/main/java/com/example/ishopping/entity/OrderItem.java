@@ -8,8 +8,11 @@ import java.time.LocalDateTime;
 @Table(name = "order_items")
 public class OrderItem {
 
+    // 号段分配主键（pooled-lo），IDENTITY 主键会让 Hibernate 无法批量插入
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_item_id_generator")
+    @TableGenerator(name = "order_item_id_generator", table = "id_generator", pkColumnName = "gen_name",
+            valueColumnName = "next_val", pkColumnValue = "order_items", allocationSize = 50)
     private Long id;
 
     @Column(name = "order_id", nullable = false)
@@ -1,5 +1,27 @@
 package com.example.ishopping.entity;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum OrderStatus {
-    PENDING_PAYMENT, PAID, SHIPPED, DELIVERED, COMPLETED, CANCELLED, PENDING, REFUNDED
+    PENDING_PAYMENT, PAID, SHIPPED, DELIVERED, COMPLETED, CANCELLED, PENDING, REFUNDED;
+
+    // 状态流转表：类加载时构建一次，未列出的状态不允许流转
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        TRANSITIONS.put(PENDING, EnumSet.of(PAID, CANCELLED));
+        TRANSITIONS.put(PAID, EnumSet.of(DELIVERED, CANCELLED));
+        TRANSITIONS.put(DELIVERED, EnumSet.of(COMPLETED));
+    }
+
+    /**
+     * 是否允许从当前状态流转到 next
+     */
+    public boolean canTransitionTo(OrderStatus next) {
+        Set<OrderStatus> allowed = TRANSITIONS.get(this);
+        return allowed != null && allowed.contains(next);
+    }
 }
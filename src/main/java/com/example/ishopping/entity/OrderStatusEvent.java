@@ -0,0 +1,58 @@
+package com.example.ishopping.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 订单状态时间线中的一条记录：订单创建、每次状态变化和删除各追加一行，不做修改
+ * oldStatus 为 null 表示创建，newStatus 为 null 表示删除
+ */
+@Entity
+// 按订单读取时间线走 (order_id, create_time, id) 索引（由 ddl-auto 建立）
+@Table(name = "order_status_events",
+        indexes = @Index(name = "idx_order_status_events_order", columnList = "order_id, create_time, id"))
+public class OrderStatusEvent {
+
+    // 号段分配主键（pooled-lo），一次刷写的多条记录可以批量插入
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_status_event_id_generator")
+    @TableGenerator(name = "order_status_event_id_generator", table = "id_generator", pkColumnName = "gen_name",
+            valueColumnName = "next_val", pkColumnValue = "order_status_events", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "old_status")
+    private OrderStatus oldStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "new_status")
+    private OrderStatus newStatus;
+
+    @Column(name = "operator_id")
+    private Long operatorId;
+
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime;
+
+    public OrderStatusEvent() {}
+
+    public OrderStatusEvent(Long orderId, OrderStatus oldStatus, OrderStatus newStatus, Long operatorId,
+                            LocalDateTime createTime) {
+        this.orderId = orderId;
+        this.oldStatus = oldStatus;
+        this.newStatus = newStatus;
+        this.operatorId = operatorId;
+        this.createTime = createTime;
+    }
+
+    // Getter 方法
+    public Long getId() { return id; }
+    public Long getOrderId() { return orderId; }
+    public OrderStatus getOldStatus() { return oldStatus; }
+    public OrderStatus getNewStatus() { return newStatus; }
+    public Long getOperatorId() { return operatorId; }
+    public LocalDateTime getCreateTime() { return createTime; }
+}
@@ -2,11 +2,18 @@ package com.example.ishopping.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+// 索引声明在实体上，由 ddl-auto 建立（database_init.sql 不会被执行）
+@Table(name = "products", indexes = {
+        // 游标分页：按 (create_time, id) 定位，列表过滤列在前
+        @Index(name = "idx_products_status_time", columnList = "status, create_time, id"),
+        @Index(name = "idx_products_category_time", columnList = "category, status, create_time, id"),
+        @Index(name = "idx_products_seller_time", columnList = "seller_id, create_time, id")
+})
 public class Product {
 
     @Id
@@ -48,6 +55,11 @@ public class Product {
     @Column(name = "seller_id", nullable = false)
     private Long sellerId;
 
+    // 累计销量：只由 ProductLeaderboardService 批量累加，实体保存时不写入，避免覆盖尚未读到的累加结果
+    @ColumnDefault("0")
+    @Column(insertable = false, updatable = false)
+    private Integer sales;
+
     @Column(name = "create_time", nullable = false)
     private LocalDateTime createTime;
 
@@ -107,6 +119,8 @@ public class Product {
     public Long getSellerId() { return sellerId; }
     public void setSellerId(Long sellerId) { this.sellerId = sellerId; }
 
+    public Integer getSales() { return sales; }
+
     public LocalDateTime getCreateTime() { return createTime; }
     public void setCreateTime(LocalDateTime createTime) { this.createTime = createTime; }
 
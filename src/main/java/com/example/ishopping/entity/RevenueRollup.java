@@ -0,0 +1,56 @@
+package com.example.ishopping.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 营收汇总：每个商家每小时/每天一行（category 为空串），另按商品分类各一行
+ * 按下单时间分桶，取消/退款的订单从所在时间桶中扣除；行只由 RevenueRollupService 以增量 upsert 维护
+ */
+@Entity
+@Table(name = "revenue_rollups", uniqueConstraints = @UniqueConstraint(name = "uk_revenue_rollups_bucket",
+        columnNames = {"seller_id", "granularity", "category", "bucket_start"}))
+public class RevenueRollup {
+
+    // 汇总总量不含分类的行使用的 category
+    public static final String ALL_CATEGORIES = "";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "seller_id", nullable = false)
+    private Long sellerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupGranularity granularity;
+
+    @Column(nullable = false, length = 50)
+    private String category;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(name = "total_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "actual_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal actualAmount;
+
+    public RevenueRollup() {}
+
+    // Getter 方法
+    public Long getId() { return id; }
+    public Long getSellerId() { return sellerId; }
+    public RollupGranularity getGranularity() { return granularity; }
+    public String getCategory() { return category; }
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public Long getOrderCount() { return orderCount; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public BigDecimal getActualAmount() { return actualAmount; }
+}
@@ -0,0 +1,33 @@
+package com.example.ishopping.entity;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+    HOUR("小时"),
+    DAY("天");
+
+    private final String description;
+
+    RollupGranularity(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 时间所在时间桶的起点
+     */
+    public LocalDateTime bucketStart(LocalDateTime time) {
+        return this == HOUR ? time.truncatedTo(ChronoUnit.HOURS) : time.truncatedTo(ChronoUnit.DAYS);
+    }
+
+    /**
+     * 下一个时间桶的起点
+     */
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return this == HOUR ? bucketStart.plusHours(1) : bucketStart.plusDays(1);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.ishopping.event;
+
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 订单变更事件：创建、状态流转和删除时由 OrderService 发布
+ * oldStatus 为 null 表示新建订单，newStatus 为 null 表示订单被删除；operatorId 为 null 表示系统操作（如超时取消）。
+ * 操作人由发布方显式传入（新建订单为下单顾客），不从当前线程读取：批量删除、异步下单等在工作线程上发布事件。
+ */
+public class OrderEvent {
+
+    private final Long orderId;
+    private final String orderNumber;
+    private final Long userId;
+    private final Long sellerId;
+    private final BigDecimal totalAmount;
+    private final BigDecimal actualAmount;
+    private final OrderStatus oldStatus;
+    private final OrderStatus newStatus;
+    private final LocalDateTime orderCreateTime;
+    private final Long operatorId;
+    private final LocalDateTime occurredAt = LocalDateTime.now();
+
+    private OrderEvent(Order order, OrderStatus oldStatus, OrderStatus newStatus, Long operatorId) {
+        this.orderId = order.getId();
+        this.orderNumber = order.getOrderNumber();
+        this.userId = order.getUserId();
+        this.sellerId = order.getSellerId();
+        this.totalAmount = order.getTotalAmount();
+        this.actualAmount = order.getActualAmount();
+        this.oldStatus = oldStatus;
+        this.newStatus = newStatus;
+        this.orderCreateTime = order.getCreateTime();
+        this.operatorId = operatorId;
+    }
+
+    public static OrderEvent created(Order order) {
+        return new OrderEvent(order, null, order.getStatus(), order.getUserId());
+    }
+
+    public static OrderEvent statusChanged(Order order, OrderStatus oldStatus, Long operatorId) {
+        return new OrderEvent(order, oldStatus, order.getStatus(), operatorId);
+    }
+
+    public static OrderEvent deleted(Order order, Long operatorId) {
+        return new OrderEvent(order, order.getStatus(), null, operatorId);
+    }
+
+    public boolean isCreated() { return oldStatus == null; }
+
+    public boolean isDeleted() { return newStatus == null; }
+
+    /**
+     * 事件对销量/营收汇总的影响：新建计入 +1，取消或退款扣除 -1，其他流转和删除为 0
+     */
+    public int getCountDelta() {
+        if (isDeleted()) {
+            return 0;
+        }
+        return (counted(newStatus) ? 1 : 0) - (isCreated() || !counted(oldStatus) ? 0 : 1);
+    }
+
+    private static boolean counted(OrderStatus status) {
+        return status != OrderStatus.CANCELLED && status != OrderStatus.REFUNDED;
+    }
+
+    public Long getOrderId() { return orderId; }
+
+    public String getOrderNumber() { return orderNumber; }
+
+    public Long getUserId() { return userId; }
+
+    public Long getSellerId() { return sellerId; }
+
+    public BigDecimal getTotalAmount() { return totalAmount; }
+
+    public BigDecimal getActualAmount() { return actualAmount; }
+
+    public OrderStatus getOldStatus() { return oldStatus; }
+
+    public OrderStatus getNewStatus() { return newStatus; }
+
+    public LocalDateTime getOrderCreateTime() { return orderCreateTime; }
+
+    public Long getOperatorId() { return operatorId; }
+
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+}
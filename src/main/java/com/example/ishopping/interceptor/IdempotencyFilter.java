@@ -0,0 +1,126 @@
+package com.example.ishopping.interceptor;
+
+import com.example.ishopping.service.IdempotencyService;
+import com.example.ishopping.service.IdempotencyService.StoredResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotency-Key 处理
+ * 对订单和购物车的写请求，携带相同幂等键的重试直接回放第一次的响应；
+ * 同一个键的并发重复请求等待正在执行的那一次完成，而不是并行执行。
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Value("${app.idempotency.wait-timeout-seconds:30}")
+    private long waitTimeoutSeconds;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if ("GET".equals(request.getMethod()) || request.getHeader(HEADER) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !(path.startsWith("/api/orders") || path.startsWith("/api/cart"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = buildKey(request);
+
+        while (true) {
+            StoredResponse stored = idempotencyService.findCached(key);
+            if (stored != null) {
+                replay(stored, response);
+                return;
+            }
+
+            CompletableFuture<StoredResponse> running = idempotencyService.begin(key);
+            if (running == null) {
+                break;
+            }
+
+            // 等待正在执行的同键请求；它的结果不可复用时（5xx）重新竞争执行权
+            try {
+                stored = running.get(waitTimeoutSeconds, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "请求处理中，请稍后重试");
+                return;
+            } catch (ExecutionException | TimeoutException e) {
+                response.sendError(HttpServletResponse.SC_CONFLICT, "相同幂等键的请求正在处理中");
+                return;
+            }
+            if (stored != null) {
+                replay(stored, response);
+                return;
+            }
+        }
+
+        // 获得执行权后再查缓存和持久化记录：可能刚有同键请求完成，或缓存已过期、应用已重启
+        StoredResponse stored = idempotencyService.findCached(key);
+        if (stored == null) {
+            stored = idempotencyService.findPersisted(key);
+        }
+        if (stored != null) {
+            idempotencyService.release(key, stored);
+            replay(stored, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        StoredResponse result = null;
+        try {
+            chain.doFilter(request, wrapper);
+            if (wrapper.getStatus() < 500) {
+                result = new StoredResponse(wrapper.getStatus(), wrapper.getContentType(),
+                        new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8),
+                        System.currentTimeMillis());
+            }
+        } finally {
+            idempotencyService.complete(key, result);
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private String buildKey(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        Object userId = session != null ? session.getAttribute("userId") : null;
+        return (userId != null ? userId : "anon") + ":" + request.getMethod() + ":"
+                + request.getRequestURI() + ":" + request.getHeader(HEADER);
+    }
+
+    private void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        byte[] body = stored.body() != null ? stored.body().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
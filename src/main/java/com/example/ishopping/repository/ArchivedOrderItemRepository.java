@@ -0,0 +1,31 @@
+package com.example.ishopping.repository;
+
+import com.example.ishopping.dto.OrderItemResponse;
+import com.example.ishopping.entity.ArchivedOrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedOrderItemRepository extends JpaRepository<ArchivedOrderItem, Long> {
+
+    List<ArchivedOrderItem> findByOrderId(Long orderId);
+
+    // 归档：一批订单的订单项整行复制到归档表
+    @Modifying
+    @Query("INSERT INTO ArchivedOrderItem (id, orderId, productId, quantity, price, createTime) " +
+            "SELECT i.id, i.orderId, i.productId, i.quantity, i.price, i.createTime " +
+            "FROM OrderItem i WHERE i.orderId IN :orderIds")
+    int copyFromOrderItems(@Param("orderIds") Collection<Long> orderIds);
+
+    // 历史订单列表投影：一页归档订单的订单项连同商品名称和图片一次查出
+    @Query("SELECT new com.example.ishopping.dto.OrderItemResponse(i.id, i.orderId, i.productId, p.name, p.imageUrl, " +
+            "i.quantity, i.price) FROM ArchivedOrderItem i LEFT JOIN Product p ON p.id = i.productId " +
+            "WHERE i.orderId IN :orderIds ORDER BY i.id")
+    List<OrderItemResponse> findResponsesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+}
@@ -0,0 +1,37 @@
+package com.example.ishopping.repository;
+
+import com.example.ishopping.entity.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    // 归档：一条 INSERT ... SELECT 把一批订单整行复制到归档表
+    @Modifying
+    @Query("INSERT INTO ArchivedOrder (id, orderNumber, orderNumberRev, userId, sellerId, totalAmount, " +
+            "discountAmount, shippingFee, actualAmount, status, shippingAddress, receiverName, receiverPhone, " +
+            "paymentMethod, paymentTime, deliveryTime, receiveTime, createTime, updateTime, archiveTime) " +
+            "SELECT o.id, o.orderNumber, o.orderNumberRev, o.userId, o.sellerId, o.totalAmount, " +
+            "o.discountAmount, o.shippingFee, o.actualAmount, o.status, o.shippingAddress, o.receiverName, " +
+            "o.receiverPhone, o.paymentMethod, o.paymentTime, o.deliveryTime, o.receiveTime, o.createTime, " +
+            "o.updateTime, :archiveTime " +
+            "FROM Order o WHERE o.id IN :ids")
+    int copyFromOrders(@Param("ids") Collection<Long> ids, @Param("archiveTime") LocalDateTime archiveTime);
+
+    // 统计引擎重建：归档订单同样计入 商家/顾客/状态 统计
+    @Query("SELECT o.sellerId, o.userId, o.status, COUNT(o), COALESCE(SUM(o.totalAmount), 0) FROM ArchivedOrder o " +
+            "GROUP BY o.sellerId, o.userId, o.status")
+    List<Object[]> aggregateBySellerUserAndStatus();
+
+    // 统计引擎漂移检查：归档订单各状态数
+    @Query("SELECT o.status, COUNT(o) FROM ArchivedOrder o GROUP BY o.status")
+    List<Object[]> countGroupByStatus();
+}
@@ -1,9 +1,14 @@
 package com.example.ishopping.repository;
 
+import com.example.ishopping.dto.OrderItemResponse;
 import com.example.ishopping.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,6 +17,32 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     // 根据订单ID查找订单项
     List<OrderItem> findByOrderId(Long orderId);
 
-    // 根据订单ID删除订单项
-    void deleteByOrderId(Long orderId);
-}
\ No newline at end of file
+    // 根据订单ID删除订单项（单条 DELETE，不逐条加载）
+    @Modifying
+    @Query("DELETE FROM OrderItem i WHERE i.orderId = :orderId")
+    void deleteByOrderId(@Param("orderId") Long orderId);
+
+    // 批量删除多个订单的订单项
+    @Modifying
+    @Query("DELETE FROM OrderItem i WHERE i.orderId IN :orderIds")
+    int deleteByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    // 按商品汇总一批订单的购买数量（批量取消时一次归还库存）
+    @Query("SELECT i.productId, SUM(i.quantity) FROM OrderItem i WHERE i.orderId IN :orderIds GROUP BY i.productId")
+    List<Object[]> sumQuantityByProductForOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    // 订单列表投影：一页订单的订单项连同商品名称和图片一次查出
+    @Query("SELECT new com.example.ishopping.dto.OrderItemResponse(i.id, i.orderId, i.productId, p.name, p.imageUrl, " +
+            "i.quantity, i.price) FROM OrderItem i LEFT JOIN i.product p WHERE i.orderId IN :orderIds ORDER BY i.id")
+    List<OrderItemResponse> findResponsesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    // 按商品分类汇总一批订单的订单项小计（营收汇总按分类分桶）
+    @Query("SELECT i.orderId, p.category, SUM(i.price * i.quantity) FROM OrderItem i LEFT JOIN i.product p " +
+            "WHERE i.orderId IN :orderIds GROUP BY i.orderId, p.category")
+    List<Object[]> sumSubtotalByCategoryForOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    // 一批订单按商品汇总购买数量并带出商品分类（销量排行榜增量更新）
+    @Query("SELECT i.orderId, i.productId, p.category, SUM(i.quantity) FROM OrderItem i LEFT JOIN i.product p " +
+            "WHERE i.orderId IN :orderIds GROUP BY i.orderId, i.productId, p.category")
+    List<Object[]> sumQuantityByProductAndCategoryForOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+}
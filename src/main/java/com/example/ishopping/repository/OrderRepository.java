@@ -2,16 +2,22 @@ package com.example.ishopping.repository;
 
 import com.example.ishopping.entity.Order;
 import com.example.ishopping.entity.OrderStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -25,12 +31,6 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     // 查找所有订单（按时间倒序）
     Page<Order> findAllByOrderByCreateTimeDesc(Pageable pageable);
 
-    // 根据订单号搜索
-    Page<Order> findByOrderNumberContainingIgnoreCase(String orderNumber, Pageable pageable);
-
-    // 根据商家ID和订单号搜索
-    Page<Order> findBySellerIdAndOrderNumberContainingIgnoreCase(Long sellerId, String orderNumber, Pageable pageable);
-
     // 根据状态查找订单
     Page<Order> findByStatusOrderByCreateTimeDesc(OrderStatus status, Pageable pageable);
 
@@ -61,4 +61,49 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     Long countByUserIdAndStatus(Long userId, OrderStatus status);
     // 在 OrderRepository.java 末尾添加这个方法
     Optional<Order> findByOrderNumber(String orderNumber);
+
+    // 改状态：锁定并加载订单，锁住后再校验原状态，与超时取消等并发修改串行
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+
+    // 批量删除：锁定并加载一批订单，用于校验是否可删除
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids")
+    List<Order> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // 批量删除订单（订单项需先删除）
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // 未支付超时取消：启动时一次查出全部待支付订单的ID和下单时间，重建到期时间轮
+    @Query("SELECT o.id, o.createTime FROM Order o WHERE o.status = :status")
+    Stream<Object[]> streamIdAndCreateTimeByStatus(@Param("status") OrderStatus status);
+
+    // 未支付超时取消：锁定一批仍待支付的订单
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids AND o.status = :status")
+    List<Order> findAllByIdAndStatusForUpdate(@Param("ids") Collection<Long> ids, @Param("status") OrderStatus status);
+
+    // 未支付超时取消：一条 UPDATE 取消整批订单（只改仍为待支付的）
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :newStatus, o.updateTime = :updateTime " +
+            "WHERE o.id IN :ids AND o.status = :oldStatus")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("oldStatus") OrderStatus oldStatus,
+                           @Param("newStatus") OrderStatus newStatus, @Param("updateTime") LocalDateTime updateTime);
+
+    // 归档：取一批已结束且最后更新早于截止时间的订单ID
+    @Query("SELECT o.id FROM Order o WHERE o.status IN :statuses AND o.updateTime < :before ORDER BY o.id")
+    List<Long> findArchivableIds(@Param("statuses") Collection<OrderStatus> statuses,
+                                 @Param("before") LocalDateTime before, Pageable pageable);
+
+    // 统计引擎重建：一次分组查询得到每个 商家/顾客/状态 的订单数和金额
+    @Query("SELECT o.sellerId, o.userId, o.status, COUNT(o), COALESCE(SUM(o.totalAmount), 0) FROM Order o " +
+            "GROUP BY o.sellerId, o.userId, o.status")
+    List<Object[]> aggregateBySellerUserAndStatus();
+
+    // 统计引擎漂移检查：全局各状态订单数
+    @Query("SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status")
+    List<Object[]> countGroupByStatus();
 }
\ No newline at end of file
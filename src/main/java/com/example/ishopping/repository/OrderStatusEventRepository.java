@@ -0,0 +1,14 @@
+package com.example.ishopping.repository;
+
+import com.example.ishopping.entity.OrderStatusEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderStatusEventRepository extends JpaRepository<OrderStatusEvent, Long> {
+
+    // 一个订单的状态时间线（按发生顺序）
+    List<OrderStatusEvent> findByOrderIdOrderByCreateTimeAscIdAsc(Long orderId);
+}
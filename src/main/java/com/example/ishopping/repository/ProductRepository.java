@@ -1,37 +1,56 @@
 package com.example.ishopping.repository;
 
+import com.example.ishopping.dto.ProductSummary;
 import com.example.ishopping.entity.Product;
 import com.example.ishopping.entity.ProductStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
-    // 根据状态查询商品（带分页）
-    Page<Product> findByStatusOrderByCreateTimeDesc(ProductStatus status, Pageable pageable);
+    // 列表投影：不读取 description 列，不生成实体
+    String SELECT_SUMMARY = "SELECT new com.example.ishopping.dto.ProductSummary(" +
+            "p.id, p.name, p.price, p.stock, p.category, p.imageUrl, p.sellerId, p.createTime) FROM Product p ";
+
+    // 根据状态查询商品（带分页，不执行 COUNT）
+    @Query(SELECT_SUMMARY + "WHERE p.status = :status ORDER BY p.createTime DESC")
+    List<ProductSummary> findSummariesByStatus(@Param("status") ProductStatus status, Pageable pageable);
+
+    // 按ID批量读取列表项（顺序不保证）
+    @Query(SELECT_SUMMARY + "WHERE p.id IN :ids")
+    List<ProductSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
 
     // 根据商家ID查询商品
     List<Product> findBySellerId(Long sellerId);
 
     // 根据商家ID查询商品（带分页）
-    Page<Product> findBySellerIdOrderByCreateTimeDesc(Long sellerId, Pageable pageable);
+    @Query(SELECT_SUMMARY + "WHERE p.sellerId = :sellerId ORDER BY p.createTime DESC")
+    List<ProductSummary> findSummariesBySellerId(@Param("sellerId") Long sellerId, Pageable pageable);
 
     // 根据分类和状态查询商品（带分页）
-    Page<Product> findByCategoryAndStatusOrderByCreateTimeDesc(String category, ProductStatus status, Pageable pageable);
+    @Query(SELECT_SUMMARY + "WHERE p.category = :category AND p.status = :status ORDER BY p.createTime DESC")
+    List<ProductSummary> findSummariesByCategoryAndStatus(@Param("category") String category,
+                                                          @Param("status") ProductStatus status,
+                                                          Pageable pageable);
 
-    // 搜索商品（根据名称或描述）
-    @Query("SELECT p FROM Product p WHERE (p.name LIKE %:keyword% OR p.description LIKE %:keyword%) AND p.status = :status ORDER BY p.createTime DESC")
-    Page<Product> findByNameContainingOrDescriptionContainingAndStatus(
-            @Param("keyword") String keyword,
-            @Param("status") ProductStatus status,
-            Pageable pageable);
+    // 搜索商品（根据名称或描述；描述只参与匹配，不返回）
+    @Query(SELECT_SUMMARY + "WHERE (p.name LIKE %:keyword% OR p.description LIKE %:keyword%) AND p.status = :status ORDER BY p.createTime DESC")
+    List<ProductSummary> findSummariesByKeywordAndStatus(@Param("keyword") String keyword,
+                                                         @Param("status") ProductStatus status,
+                                                         Pageable pageable);
 
     // 根据分类查询商品
     List<Product> findByCategory(String category);
@@ -41,4 +60,72 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     // 根据多个状态查询商品
     Page<Product> findByStatusInOrderByCreateTimeDesc(List<ProductStatus> statuses, Pageable pageable);
-}
\ No newline at end of file
+
+    // 游标分页：从 (cursorTime, cursorId) 之后按 create_time DESC, id DESC 取 limit 条，不执行 COUNT
+    @Query(SELECT_SUMMARY + "WHERE p.status = :status " +
+            "AND (p.createTime < :cursorTime OR (p.createTime = :cursorTime AND p.id < :cursorId)) " +
+            "ORDER BY p.createTime DESC, p.id DESC")
+    List<ProductSummary> findSliceByStatus(@Param("status") ProductStatus status,
+                                    @Param("cursorTime") LocalDateTime cursorTime,
+                                    @Param("cursorId") Long cursorId,
+                                    Pageable limit);
+
+    @Query(SELECT_SUMMARY + "WHERE p.category = :category AND p.status = :status " +
+            "AND (p.createTime < :cursorTime OR (p.createTime = :cursorTime AND p.id < :cursorId)) " +
+            "ORDER BY p.createTime DESC, p.id DESC")
+    List<ProductSummary> findSliceByCategoryAndStatus(@Param("category") String category,
+                                               @Param("status") ProductStatus status,
+                                               @Param("cursorTime") LocalDateTime cursorTime,
+                                               @Param("cursorId") Long cursorId,
+                                               Pageable limit);
+
+    @Query(SELECT_SUMMARY + "WHERE (p.name LIKE %:keyword% OR p.description LIKE %:keyword%) AND p.status = :status " +
+            "AND (p.createTime < :cursorTime OR (p.createTime = :cursorTime AND p.id < :cursorId)) " +
+            "ORDER BY p.createTime DESC, p.id DESC")
+    List<ProductSummary> findSliceByKeywordAndStatus(@Param("keyword") String keyword,
+                                              @Param("status") ProductStatus status,
+                                              @Param("cursorTime") LocalDateTime cursorTime,
+                                              @Param("cursorId") Long cursorId,
+                                              Pageable limit);
+
+    @Query(SELECT_SUMMARY + "WHERE p.sellerId = :sellerId " +
+            "AND (p.createTime < :cursorTime OR (p.createTime = :cursorTime AND p.id < :cursorId)) " +
+            "ORDER BY p.createTime DESC, p.id DESC")
+    List<ProductSummary> findSliceBySellerId(@Param("sellerId") Long sellerId,
+                                      @Param("cursorTime") LocalDateTime cursorTime,
+                                      @Param("cursorId") Long cursorId,
+                                      Pageable limit);
+
+    // 遍历某状态的全部商品（构建搜索索引，需在事务内消费）
+    @Query("SELECT p FROM Product p WHERE p.status = :status")
+    Stream<Product> streamByStatus(@Param("status") ProductStatus status);
+
+    // 按分类和状态统计商品数及其中有库存的商品数（分类目录启动时使用）
+    @Query("SELECT p.category, p.status, COUNT(p), SUM(CASE WHEN p.stock > 0 THEN 1 ELSE 0 END) " +
+            "FROM Product p GROUP BY p.category, p.status")
+    List<Object[]> countByCategoryAndStatus();
+
+    // 库存增减后读取商品当前的分类、状态和库存（分类目录按扣减/归还后的库存判断售罄或补货，需在同一事务内）
+    @Query("SELECT p.id, p.category, p.status, p.stock FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findSlotsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // 分面索引在事务提交后按已提交的数据刷新商品
+    @Query("SELECT p.id, p.category, p.sellerId, p.status, p.price, p.stock FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findFacetsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // 修改商品：锁定后加载，与并发的库存增减串行
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+    // 遍历全部商品（构建分面索引，需在事务内消费）
+    @Query("SELECT p FROM Product p")
+    Stream<Product> streamAll();
+
+    // 名称或描述包含关键词的商品ID（不限状态，新品在前；分面筛选在索引不可用时使用）
+    @Query("SELECT p.id FROM Product p WHERE p.name LIKE %:keyword% OR p.description LIKE %:keyword% ORDER BY p.id DESC")
+    List<Long> findIdsByKeyword(@Param("keyword") String keyword);
+
+    // 某时间之后修改过的商品（索引从快照恢复后追平）
+    List<Product> findByUpdateTimeGreaterThanEqual(LocalDateTime time);
+}
@@ -0,0 +1,35 @@
+package com.example.ishopping.repository;
+
+import com.example.ishopping.dto.RevenuePoint;
+import com.example.ishopping.entity.RevenueRollup;
+import com.example.ishopping.entity.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevenueRollupRepository extends JpaRepository<RevenueRollup, Long> {
+
+    // 一个商家在时间范围内的时间桶（走唯一索引 seller_id, granularity, category, bucket_start）
+    @Query("SELECT new com.example.ishopping.dto.RevenuePoint(r.bucketStart, r.orderCount, r.totalAmount, r.actualAmount) " +
+            "FROM RevenueRollup r WHERE r.sellerId = :sellerId AND r.granularity = :granularity " +
+            "AND r.category = :category AND r.bucketStart >= :from AND r.bucketStart < :to ORDER BY r.bucketStart")
+    List<RevenuePoint> findSeries(@Param("sellerId") Long sellerId,
+                                  @Param("granularity") RollupGranularity granularity,
+                                  @Param("category") String category,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
+
+    // 全平台：同一时间桶的各商家合并
+    @Query("SELECT new com.example.ishopping.dto.RevenuePoint(r.bucketStart, SUM(r.orderCount), SUM(r.totalAmount), " +
+            "SUM(r.actualAmount)) FROM RevenueRollup r WHERE r.granularity = :granularity AND r.category = :category " +
+            "AND r.bucketStart >= :from AND r.bucketStart < :to GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<RevenuePoint> findGlobalSeries(@Param("granularity") RollupGranularity granularity,
+                                        @Param("category") String category,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to);
+}
@@ -2,6 +2,8 @@ package com.example.ishopping.repository;
 
 import com.example.ishopping.entity.ShoppingCart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -12,4 +14,8 @@ public interface ShoppingCartRepository extends JpaRepository<ShoppingCart, Long
     Optional<ShoppingCart> findByUserIdAndProductId(Long userId, Long productId);
     void deleteByUserIdAndProductId(Long userId, Long productId);
     void deleteByUserId(Long userId);
+
+    // 结算用：一次查询带出购物车项及商品
+    @Query("SELECT c FROM ShoppingCart c JOIN FETCH c.product WHERE c.user.id = :userId ORDER BY c.id")
+    List<ShoppingCart> findByUserIdWithProduct(@Param("userId") Long userId);
 }
\ No newline at end of file
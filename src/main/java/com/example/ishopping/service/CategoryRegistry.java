@@ -0,0 +1,120 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CategoryCount;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.ProductStatus;
+import com.example.ishopping.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * 商品分类目录：启动时用一次 GROUP BY category, status 查询统计各分类的在售和有货商品数，
+ * 之后由商品增改删（ProductService）和售罄/补货（InventoryService，按增减后的库存判断）在事务提交后增量维护。
+ * 对外读取的是不可变快照，每次变化后整体替换，读取不加锁也不查询数据库。
+ */
+@Service
+public class CategoryRegistry {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // 分类 -> {在售数, 在售且有货数}，只在持有锁时修改
+    private final Map<String, long[]> counts = new HashMap<>();
+
+    private volatile List<CategoryCount> snapshot = List.of();
+
+    /**
+     * 从数据库重新统计
+     */
+    @PostConstruct
+    public synchronized void rebuild() {
+        counts.clear();
+        for (Object[] row : productRepository.countByCategoryAndStatus()) {
+            if (row[0] == null || row[1] != ProductStatus.ON_SALE) {
+                continue;
+            }
+            long[] count = counts.computeIfAbsent((String) row[0], k -> new long[2]);
+            count[0] += ((Number) row[2]).longValue();
+            count[1] += row[3] == null ? 0 : ((Number) row[3]).longValue();
+        }
+        publish();
+    }
+
+    /**
+     * 在售商品数大于 0 的分类，按在售商品数从多到少（同数按名称）
+     */
+    public List<CategoryCount> getCategories() {
+        return snapshot;
+    }
+
+    /**
+     * 商品从 before 变为 after（新增时 before 为 null）
+     */
+    public synchronized void moved(Slot before, Slot after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        boolean changed = apply(before, -1);
+        changed |= apply(after, 1);
+        if (changed) {
+            publish();
+        }
+    }
+
+    /**
+     * 当前线程有事务时在提交后调用 moved（回滚的修改不计入），否则立即调用
+     */
+    public void movedAfterCommit(Slot before, Slot after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    moved(before, after);
+                }
+            });
+        } else {
+            moved(before, after);
+        }
+    }
+
+    private boolean apply(Slot slot, int delta) {
+        if (slot == null || slot.status() != ProductStatus.ON_SALE || slot.category() == null) {
+            return false;
+        }
+        long[] count = counts.computeIfAbsent(slot.category(), k -> new long[2]);
+        count[0] += delta;
+        if (slot.inStock()) {
+            count[1] += delta;
+        }
+        if (count[0] <= 0) {
+            counts.remove(slot.category());
+        }
+        return true;
+    }
+
+    private void publish() {
+        List<CategoryCount> categories = new ArrayList<>(counts.size());
+        counts.forEach((name, count) -> categories.add(new CategoryCount(name, count[0], count[1])));
+        categories.sort(Comparator.comparingLong(CategoryCount::getOnSale).reversed()
+                .thenComparing(CategoryCount::getName));
+        snapshot = Collections.unmodifiableList(categories);
+    }
+
+    /**
+     * 一个商品在目录中的位置：分类、状态、是否有货
+     */
+    public record Slot(String category, ProductStatus status, boolean inStock) {
+        public static Slot of(Product product) {
+            return new Slot(product.getCategory(), product.getStatus(),
+                    product.getStock() != null && product.getStock() > 0);
+        }
+    }
+}
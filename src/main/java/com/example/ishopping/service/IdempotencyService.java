@@ -0,0 +1,130 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.entity.IdempotencyRecord;
+import com.example.ishopping.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 幂等请求结果存储
+ * 已完成的响应先放入有界、按访问顺序淘汰并带过期时间的内存缓存，同时持久化到 idempotency_records 表；
+ * 同一个幂等键的并发请求只有第一个真正执行，其余等待它的结果后直接回放。
+ */
+@Service
+public class IdempotencyService {
+
+    /**
+     * 已完成请求的响应
+     */
+    public record StoredResponse(int status, String contentType, String body, long storedAt) {
+    }
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Value("${app.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${app.idempotency.cache-ttl-minutes:10}")
+    private long cacheTtlMinutes;
+
+    @Value("${app.idempotency.retention-hours:24}")
+    private long retentionHours;
+
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, StoredResponse> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    /**
+     * 从内存缓存查找已完成的结果
+     */
+    public StoredResponse findCached(String key) {
+        synchronized (cache) {
+            StoredResponse cached = cache.get(key);
+            if (cached != null
+                    && System.currentTimeMillis() - cached.storedAt() >= TimeUnit.MINUTES.toMillis(cacheTtlMinutes)) {
+                cache.remove(key);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * 从持久化记录查找已完成的结果（缓存过期或应用重启后使用），命中后回填缓存
+     */
+    public StoredResponse findPersisted(String key) {
+        return idempotencyRecordRepository.findByIdempotencyKey(key)
+                .filter(r -> r.getCreateTime().isAfter(LocalDateTime.now().minusHours(retentionHours)))
+                .map(r -> {
+                    StoredResponse response = new StoredResponse(r.getStatusCode(), r.getContentType(), r.getBody(),
+                            System.currentTimeMillis());
+                    putCache(key, response);
+                    return response;
+                })
+                .orElse(null);
+    }
+
+    /**
+     * 登记正在执行的请求
+     * 返回 null 表示当前请求获得执行权；否则返回正在执行的同键请求的结果 future
+     */
+    public CompletableFuture<StoredResponse> begin(String key) {
+        return inFlight.putIfAbsent(key, new CompletableFuture<>());
+    }
+
+    /**
+     * 请求执行完成：保存结果并唤醒等待的重复请求（response 为 null 表示结果不可复用，等待者需自行重试）
+     */
+    public void complete(String key, StoredResponse response) {
+        if (response != null) {
+            putCache(key, response);
+            try {
+                idempotencyRecordRepository.save(
+                        new IdempotencyRecord(key, response.status(), response.contentType(), response.body()));
+            } catch (DataIntegrityViolationException e) {
+                // 其他实例已经写入了同一个幂等键
+            }
+        }
+        release(key, response);
+    }
+
+    /**
+     * 释放执行权并把结果交给等待者，不做持久化
+     */
+    public void release(String key, StoredResponse response) {
+        CompletableFuture<StoredResponse> future = inFlight.remove(key);
+        if (future != null) {
+            future.complete(response);
+        }
+    }
+
+    /**
+     * 定期清理过期的持久化记录
+     */
+    @Scheduled(fixedDelay = 3600000)
+    public void purgeExpiredRecords() {
+        idempotencyRecordRepository.deleteByCreateTimeBefore(LocalDateTime.now().minusHours(retentionHours));
+    }
+
+    private void putCache(String key, StoredResponse response) {
+        synchronized (cache) {
+            cache.put(key, response);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.entity.ProductStatus;
+import com.example.ishopping.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 库存服务：所有库存增减都走带条件的 UPDATE，不再先查后改，避免并发下单超卖。
+ * 一个订单的全部商品以一次 JDBC 批量语句提交，语句数不随订单项数量增长。
+ * 库存变化后失效商品缓存（事务提交后再失效一次），并在提交后更新商品分面索引的有货/无货状态。
+ * 售罄或补货按增减后的库存判断（本事务持有行锁，读到的就是提交时的库存），提交后同步分类目录的有货数。
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class InventoryService {
+
+    private static final String DEDUCT_SQL =
+            "UPDATE products SET stock = stock - ?, update_time = CURRENT_TIMESTAMP WHERE id = ? AND stock >= ?";
+
+    private static final String RESTORE_SQL =
+            "UPDATE products SET stock = stock + ?, update_time = CURRENT_TIMESTAMP WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRegistry categoryRegistry;
+
+    /**
+     * 扣减库存
+     * 每个商品一条 UPDATE ... WHERE stock >= ?，整体作为一个批次执行，返回库存不足的商品ID（为空表示全部扣减成功）。
+     * 必须在调用方事务内执行，有商品不足时由调用方抛出异常回滚已扣减的部分。
+     */
+    public List<Long> deductStock(Map<Long, Integer> quantities) {
+        // 按商品ID顺序更新，保证并发事务的加锁顺序一致，避免死锁
+        List<Long> productIds = new ArrayList<>(new TreeMap<>(quantities).keySet());
+        List<Object[]> args = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            Integer quantity = quantities.get(productId);
+            args.add(new Object[]{quantity, productId, quantity});
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(DEDUCT_SQL, args);
+        productCache.invalidateAfterCommit(productIds);
+
+        List<Long> shortages = new ArrayList<>();
+        Map<Long, Integer> deducted = new HashMap<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                shortages.add(productIds.get(i));
+            } else {
+                deducted.put(productIds.get(i), -quantities.get(productIds.get(i)));
+            }
+        }
+        productFacetIndex.refreshAfterCommit(deducted.keySet());
+        reportStockTransitions(deducted);
+        return shortages;
+    }
+
+    /**
+     * 全部扣减或全部不扣：有商品不足时把本次已扣减成功的商品立即归还，不依赖事务回滚，
+     * 便于同一事务内继续处理其他订单（异步下单批量落库使用）。
+     */
+    public List<Long> deductStockAllOrNothing(Map<Long, Integer> quantities) {
+        List<Long> shortages = deductStock(quantities);
+        if (!shortages.isEmpty()) {
+            Map<Long, Integer> deducted = new TreeMap<>(quantities);
+            shortages.forEach(deducted::remove);
+            restoreStock(deducted);
+        }
+        return shortages;
+    }
+
+    /**
+     * 归还库存（取消订单时调用）
+     */
+    public void restoreStock(Map<Long, Integer> quantities) {
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+            args.add(new Object[]{entry.getValue(), entry.getKey()});
+        }
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(RESTORE_SQL, args);
+            productCache.invalidateAfterCommit(quantities.keySet());
+            productFacetIndex.refreshAfterCommit(quantities.keySet());
+            reportStockTransitions(quantities);
+        }
+    }
+
+    /**
+     * 读取增减后的库存，有货与无货之间切换的商品在提交后同步到分类目录
+     */
+    private void reportStockTransitions(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        for (Object[] row : productRepository.findSlotsByIdIn(deltas.keySet())) {
+            int stock = row[3] == null ? 0 : (Integer) row[3];
+            boolean wasInStock = stock - deltas.get((Long) row[0]) > 0;
+            if (wasInStock != stock > 0) {
+                String category = (String) row[1];
+                ProductStatus status = (ProductStatus) row[2];
+                categoryRegistry.movedAfterCommit(new CategoryRegistry.Slot(category, status, wasInStock),
+                        new CategoryRegistry.Slot(category, status, stock > 0));
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.entity.ArchivedOrder;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.OrderItem;
+import com.example.ishopping.entity.OrderStatus;
+import com.example.ishopping.repository.ArchivedOrderItemRepository;
+import com.example.ishopping.repository.ArchivedOrderRepository;
+import com.example.ishopping.repository.OrderItemRepository;
+import com.example.ishopping.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 冷订单归档
+ * 已完成/已取消且超过保留天数的订单，定期按批搬到 orders_archive / order_items_archive：
+ * 每批一个事务，两条 INSERT ... SELECT 复制、两条 DELETE ... IN 删除，热表只保留进行中和近期的订单。
+ * 归档订单只读，按订单ID可回查（见 OrderService.getOrderById 的 history 参数）。
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Set<OrderStatus> ARCHIVABLE = EnumSet.of(OrderStatus.COMPLETED, OrderStatus.CANCELLED);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private ArchivedOrderItemRepository archivedOrderItemRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.order.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.order.archive.after-days:180}")
+    private int afterDays;
+
+    @Value("${app.order.archive.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 定时归档（默认每天凌晨低峰执行）
+     */
+    @Scheduled(cron = "${app.order.archive.cron:0 30 3 * * *}")
+    public void archiveColdOrders() {
+        if (!enabled) {
+            return;
+        }
+        archiveOrdersBefore(LocalDateTime.now().minusDays(afterDays));
+    }
+
+    /**
+     * 归档最后更新早于 before 的已结束订单，返回归档的订单数
+     */
+    public int archiveOrdersBefore(LocalDateTime before) {
+        int total = 0;
+        int archived;
+        do {
+            archived = transactionTemplate.execute(status -> archiveBatch(before));
+            total += archived;
+        } while (archived == batchSize);
+
+        if (total > 0) {
+            System.out.println("订单归档完成，归档订单数: " + total);
+        }
+        return total;
+    }
+
+    private int archiveBatch(LocalDateTime before) {
+        List<Long> ids = orderRepository.findArchivableIds(ARCHIVABLE, before, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedOrderRepository.copyFromOrders(ids, LocalDateTime.now());
+        archivedOrderItemRepository.copyFromOrderItems(ids);
+        orderItemRepository.deleteByOrderIdIn(ids);
+        orderRepository.deleteByIdIn(ids);
+        return ids.size();
+    }
+
+    /**
+     * 按ID读取归档订单，还原为（不受持久化上下文管理的）订单对象，便于沿用订单的权限检查和 DTO 组装
+     */
+    public Optional<Order> findArchivedOrder(Long id) {
+        return archivedOrderRepository.findById(id).map(this::toOrder);
+    }
+
+    private Order toOrder(ArchivedOrder archived) {
+        Order order = new Order();
+        order.setId(archived.getId());
+        order.setOrderNumber(archived.getOrderNumber());
+        order.setUserId(archived.getUserId());
+        order.setSellerId(archived.getSellerId());
+        order.setTotalAmount(archived.getTotalAmount());
+        order.setDiscountAmount(archived.getDiscountAmount());
+        order.setShippingFee(archived.getShippingFee());
+        order.setActualAmount(archived.getActualAmount());
+        order.setStatus(archived.getStatus());
+        order.setShippingAddress(archived.getShippingAddress());
+        order.setReceiverName(archived.getReceiverName());
+        order.setReceiverPhone(archived.getReceiverPhone());
+        order.setPaymentMethod(archived.getPaymentMethod());
+        order.setPaymentTime(archived.getPaymentTime());
+        order.setDeliveryTime(archived.getDeliveryTime());
+        order.setReceiveTime(archived.getReceiveTime());
+        order.setCreateTime(archived.getCreateTime());
+        order.setUpdateTime(archived.getUpdateTime());
+        order.setOrderItems(archivedOrderItemRepository.findByOrderId(archived.getId()).stream()
+                .map(archivedItem -> {
+                    OrderItem item = new OrderItem(archivedItem.getOrderId(), archivedItem.getProductId(),
+                            archivedItem.getQuantity(), archivedItem.getPrice());
+                    item.setId(archivedItem.getId());
+                    item.setCreateTime(archivedItem.getCreateTime());
+                    return item;
+                })
+                .collect(Collectors.toList()));
+        return order;
+    }
+}
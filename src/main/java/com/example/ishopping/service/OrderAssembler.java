@@ -0,0 +1,195 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.OrderItemResponse;
+import com.example.ishopping.dto.OrderResponse;
+import com.example.ishopping.dto.UserDTO;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.OrderItem;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.User;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 订单响应组装（订单控制器和购物车结算共用）
+ * 按页组装：一页订单涉及的下单用户和商品各用一次 findAllById 查出，下单用户摘要另有一个有界缓存。
+ */
+@Component
+public class OrderAssembler {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${app.order.buyer-cache-size:1000}")
+    private int buyerCacheSize;
+
+    @Value("${app.order.buyer-cache-ttl-seconds:60}")
+    private long buyerCacheTtlSeconds;
+
+    /**
+     * 下单用户摘要（订单响应只需要这几个字段）
+     */
+    private record BuyerSummary(Long id, String username, String email, String phone, long loadedAt) {
+    }
+
+    private final Map<Long, BuyerSummary> buyerCache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BuyerSummary> eldest) {
+            return size() > buyerCacheSize;
+        }
+    };
+
+    /**
+     * 单个订单转换为响应 DTO（含订单项和下单用户信息）
+     */
+    public OrderResponse toDto(Order o) {
+        if (o == null) return null;
+        return toDtos(Collections.singletonList(o)).get(0);
+    }
+
+    /**
+     * 一页订单转换为响应 DTO：下单用户和商品各批量查询一次
+     * 订单项需已在事务内初始化
+     */
+    public List<OrderResponse> toDtos(List<Order> orders) {
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> productIds = new HashSet<>();
+        for (Order o : orders) {
+            if (o.getUserId() != null) {
+                userIds.add(o.getUserId());
+            }
+            if (o.getOrderItems() != null) {
+                o.getOrderItems().forEach(it -> productIds.add(it.getProductId()));
+            }
+        }
+
+        Map<Long, BuyerSummary> buyers = loadBuyers(userIds);
+        Map<Long, Product> products = productIds.isEmpty() ? Map.of() :
+                productRepository.findAllById(productIds).stream()
+                        .collect(Collectors.toMap(Product::getId, p -> p));
+
+        List<OrderResponse> responses = new ArrayList<>(orders.size());
+        for (Order o : orders) {
+            responses.add(toDto(o, buyers.get(o.getUserId()), products));
+        }
+        return responses;
+    }
+
+    /**
+     * 为投影查询得到的订单响应补充下单用户信息（缓存未命中的用户一次批量查询）
+     */
+    public void attachBuyers(List<OrderResponse> responses) {
+        Set<Long> userIds = new HashSet<>();
+        for (OrderResponse r : responses) {
+            if (r.getUserId() != null) {
+                userIds.add(r.getUserId());
+            }
+        }
+        Map<Long, BuyerSummary> buyers = loadBuyers(userIds);
+        for (OrderResponse r : responses) {
+            r.setUser(toUserDto(buyers.get(r.getUserId())));
+        }
+    }
+
+    /**
+     * 用户信息变更或删除后移除缓存的下单用户摘要
+     */
+    public void evictBuyer(Long userId) {
+        synchronized (buyerCache) {
+            buyerCache.remove(userId);
+        }
+    }
+
+    private OrderResponse toDto(Order o, BuyerSummary buyer, Map<Long, Product> products) {
+        OrderResponse r = new OrderResponse();
+        r.setId(o.getId());
+        r.setOrderNumber(o.getOrderNumber());
+        r.setUserId(o.getUserId());
+        r.setSellerId(o.getSellerId());
+        r.setTotalAmount(o.getTotalAmount());
+        r.setDiscountAmount(o.getDiscountAmount());
+        r.setShippingFee(o.getShippingFee());
+        r.setActualAmount(o.getActualAmount());
+        r.setStatus(o.getStatus() != null ? o.getStatus().name() : null);
+        r.setShippingAddress(o.getShippingAddress());
+        r.setReceiverName(o.getReceiverName());
+        r.setReceiverPhone(o.getReceiverPhone());
+        r.setPaymentMethod(o.getPaymentMethod());
+        r.setCreateTime(o.getCreateTime());
+        r.setUpdateTime(o.getUpdateTime());
+
+        List<OrderItemResponse> items = (o.getOrderItems() == null) ? List.of() :
+                o.getOrderItems().stream()
+                        .map(it -> toItemDto(it, products.get(it.getProductId())))
+                        .collect(Collectors.toList());
+        r.setItems(items);
+
+        r.setUser(toUserDto(buyer));
+
+        return r;
+    }
+
+    private UserDTO toUserDto(BuyerSummary buyer) {
+        if (buyer == null) return null;
+        UserDTO userDto = new UserDTO();
+        userDto.setId(buyer.id());
+        userDto.setUsername(buyer.username());
+        userDto.setEmail(buyer.email());
+        userDto.setPhone(buyer.phone());
+        return userDto;
+    }
+
+    private OrderItemResponse toItemDto(OrderItem it, Product product) {
+        OrderItemResponse ir = new OrderItemResponse(
+                it.getId(),
+                it.getProductId(),
+                product != null ? product.getName() : null,
+                it.getQuantity(),
+                it.getPrice()
+        );
+        ir.setProductImageUrl(product != null ? product.getImageUrl() : null);
+        return ir;
+    }
+
+    /**
+     * 先查缓存，未命中（或已过期）的用户一次批量查询后放入缓存
+     */
+    private Map<Long, BuyerSummary> loadBuyers(Set<Long> userIds) {
+        Map<Long, BuyerSummary> buyers = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        long now = System.currentTimeMillis();
+        synchronized (buyerCache) {
+            for (Long userId : userIds) {
+                BuyerSummary cached = buyerCache.get(userId);
+                if (cached != null && now - cached.loadedAt() < TimeUnit.SECONDS.toMillis(buyerCacheTtlSeconds)) {
+                    buyers.put(userId, cached);
+                } else {
+                    missing.add(userId);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<User> users = userRepository.findAllById(missing);
+            synchronized (buyerCache) {
+                for (User user : users) {
+                    BuyerSummary summary = new BuyerSummary(user.getId(), user.getUsername(),
+                            user.getEmail(), user.getPhone(), now);
+                    buyerCache.put(user.getId(), summary);
+                    buyers.put(user.getId(), summary);
+                }
+            }
+        }
+        return buyers;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.BulkDeleteReport;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.OrderStatus;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.event.OrderEvent;
+import com.example.ishopping.repository.OrderItemRepository;
+import com.example.ishopping.repository.OrderRepository;
+import com.example.ishopping.util.UserContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 批量删除订单（管理员）
+ * 订单ID按块切分，每块在独立事务中：一次加锁查询校验可删除性，再用两条 DELETE ... IN 删除订单项和订单；
+ * 多个块在共享的有界线程池（orderBulkDeleteExecutor）上执行，并发请求合计也不超过池大小，结果逐个订单ID汇总。
+ */
+@Service
+public class OrderBulkDeleteService {
+
+    private static final Set<OrderStatus> DELETABLE = EnumSet.of(OrderStatus.CANCELLED, OrderStatus.COMPLETED);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    @Qualifier("orderBulkDeleteExecutor")
+    private ExecutorService executor;
+
+    @Value("${app.order.bulk-delete.chunk-size:500}")
+    private int chunkSize;
+
+    public BulkDeleteReport deleteOrders(List<Long> orderIds) {
+        if (UserContext.getCurrentUserId() == null) {
+            throw new RuntimeException("用户未登录");
+        }
+        if (UserContext.getCurrentUserRole() != UserRole.ADMIN) {
+            throw new RuntimeException("只有管理员可以批量删除订单");
+        }
+        // 块在线程池上执行，那里没有当前用户，操作人在这里取出后传入
+        Long operatorId = UserContext.getCurrentUserId();
+
+        List<Long> ids = orderIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        BulkDeleteReport report = new BulkDeleteReport(ids.size());
+        if (ids.isEmpty()) {
+            return report;
+        }
+
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += chunkSize) {
+            chunks.add(ids.subList(i, Math.min(i + chunkSize, ids.size())));
+        }
+
+        List<Future<BulkDeleteReport>> futures = new ArrayList<>();
+        for (List<Long> chunk : chunks) {
+            futures.add(executor.submit(() -> deleteChunk(chunk, operatorId)));
+        }
+        for (int i = 0; i < chunks.size(); i++) {
+            try {
+                report.merge(futures.get(i).get());
+            } catch (ExecutionException e) {
+                // 整块回滚，块内每个订单都记为失败
+                String reason = "删除失败: " + e.getCause().getMessage();
+                chunks.get(i).forEach(id -> report.addFailure(id, reason));
+                System.err.println("批量删除订单块失败: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                // 未开始的块不再执行，已在执行的块各自提交或回滚
+                futures.forEach(future -> future.cancel(false));
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("批量删除被中断");
+            }
+        }
+
+        System.out.println("批量删除订单完成，请求: " + ids.size() + "，成功: " + report.getDeleted().size()
+                + "，失败: " + report.getFailed().size());
+        return report;
+    }
+
+    private BulkDeleteReport deleteChunk(List<Long> ids, Long operatorId) {
+        return transactionTemplate.execute(status -> {
+            BulkDeleteReport part = new BulkDeleteReport(ids.size());
+            Map<Long, Order> orders = orderRepository.findAllByIdForUpdate(ids).stream()
+                    .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+            List<Order> deletable = new ArrayList<>();
+            for (Long id : ids) {
+                Order order = orders.get(id);
+                if (order == null) {
+                    part.addFailure(id, "订单不存在");
+                } else if (!DELETABLE.contains(order.getStatus())) {
+                    part.addFailure(id, "只能删除已取消或已完成的订单");
+                } else {
+                    deletable.add(order);
+                }
+            }
+
+            if (!deletable.isEmpty()) {
+                List<Long> deletableIds = deletable.stream().map(Order::getId).collect(Collectors.toList());
+                orderItemRepository.deleteByOrderIdIn(deletableIds);
+                orderRepository.deleteByIdIn(deletableIds);
+                deletable.forEach(order -> eventPublisher.publishEvent(OrderEvent.deleted(order, operatorId)));
+                part.addDeleted(deletableIds);
+            }
+            return part;
+        });
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.OrderStatus;
+import com.example.ishopping.event.OrderEvent;
+import com.example.ishopping.repository.OrderItemRepository;
+import com.example.ishopping.repository.OrderRepository;
+import com.example.ishopping.util.TimingWheel;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 未支付订单超时自动取消
+ * 新订单提交后按 下单时间 + 支付期限 登记到分层时间轮（O(1)），后台线程每个 tick 推进一次，
+ * 到期的订单按批取消：一次加锁查询、一条 UPDATE 改为已取消、一次按商品汇总的库存归还，语句数与批大小无关。
+ * 已支付或已手动取消的订单不从时间轮中移除，到期时 UPDATE 只作用于仍为待支付的订单。
+ * 启动时用一次查询遍历全部待支付订单重建时间轮，已超时的在第一个 tick 取消。
+ */
+@Service
+public class OrderExpiryService {
+
+    // 取消失败（如数据库暂不可用）的订单稍后重试
+    private static final long RETRY_DELAY_MILLIS = 60_000;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.order.expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.order.payment-timeout-seconds:1800}")
+    private long paymentTimeoutSeconds;
+
+    @Value("${app.order.expiry.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${app.order.expiry.batch-size:500}")
+    private int batchSize;
+
+    // 4 层 64 槽：1 秒一格时覆盖约 194 天，更远的到期时间进入溢出槽
+    private TimingWheel wheel;
+
+    private ScheduledExecutorService ticker;
+
+    /**
+     * 新订单登记支付截止时间（事务提交后，回滚的订单不登记）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        if (event.isCreated() && event.getNewStatus() == OrderStatus.PENDING) {
+            register(event.getOrderId(), event.getOrderCreateTime());
+        }
+    }
+
+    /**
+     * 启动时一次查询重建时间轮，然后开始推进
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            if (wheel == null) {
+                wheel = new TimingWheel(tickMillis, 4, System.currentTimeMillis());
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = orderRepository.streamIdAndCreateTimeByStatus(OrderStatus.PENDING)) {
+                rows.forEach(row -> register((Long) row[0], (LocalDateTime) row[1]));
+            }
+        });
+        System.out.println("待支付订单超时时间轮已重建，登记订单数: " + getScheduledCount());
+
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * 当前时间轮中的登记数（包含已支付但尚未到期的订单）
+     */
+    public synchronized long getScheduledCount() {
+        return wheel == null ? 0 : wheel.size();
+    }
+
+    private void register(Long orderId, LocalDateTime createTime) {
+        long deadline = createTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                + paymentTimeoutSeconds * 1000;
+        synchronized (this) {
+            if (wheel != null) {
+                wheel.add(orderId, deadline);
+            }
+        }
+    }
+
+    private void tick() {
+        List<Long> expired = new ArrayList<>();
+        synchronized (this) {
+            wheel.advanceTo(System.currentTimeMillis(), expired::add);
+        }
+        for (int i = 0; i < expired.size(); i += batchSize) {
+            List<Long> batch = expired.subList(i, Math.min(i + batchSize, expired.size()));
+            try {
+                cancelExpiredOrders(batch);
+            } catch (RuntimeException e) {
+                System.err.println("超时订单取消失败，稍后重试: " + e.getMessage());
+                long retryAt = System.currentTimeMillis() + RETRY_DELAY_MILLIS;
+                synchronized (this) {
+                    batch.forEach(id -> wheel.add(id, retryAt));
+                }
+            }
+        }
+    }
+
+    /**
+     * 取消一批已到期的订单（仍为待支付的才取消），返回实际取消的订单数
+     */
+    public int cancelExpiredOrders(Collection<Long> orderIds) {
+        List<Order> cancelled = transactionTemplate.execute(status -> {
+            List<Order> orders = orderRepository.findAllByIdAndStatusForUpdate(orderIds, OrderStatus.PENDING);
+            if (orders.isEmpty()) {
+                return orders;
+            }
+            List<Long> ids = orders.stream().map(Order::getId).toList();
+            orderRepository.updateStatusByIdIn(ids, OrderStatus.PENDING, OrderStatus.CANCELLED, LocalDateTime.now());
+
+            Map<Long, Integer> quantities = new HashMap<>();
+            for (Object[] row : orderItemRepository.sumQuantityByProductForOrderIdIn(ids)) {
+                quantities.put((Long) row[0], ((Number) row[1]).intValue());
+            }
+            inventoryService.restoreStock(quantities);
+
+            // UPDATE 已清空持久化上下文，这里修改的是游离对象，只用于生成事件
+            orders.forEach(order -> {
+                order.setStatus(OrderStatus.CANCELLED);
+                eventPublisher.publishEvent(OrderEvent.statusChanged(order, OrderStatus.PENDING, null));
+            });
+            return orders;
+        });
+
+        if (!cancelled.isEmpty()) {
+            System.out.println("超时未支付订单已取消: " + cancelled.size());
+        }
+        return cancelled.size();
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.entity.OrderStatus;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.util.UserContext;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 订单导出（管理员和商家）
+ * 一条只读、只进的 JDBC 查询边读边写到响应流：不加载实体、不分页、不查下单用户，内存占用与导出行数无关。
+ * MySQL 下以 fetchSize = Integer.MIN_VALUE 逐行流式读取，其他数据库使用配置的 fetch size。
+ * history=true 时合并归档表（UNION ALL），包含已归档的历史订单。
+ * 每次导出的耗时和行数记录为 order.export（Timer）和 order.export.rows（Counter），按格式分标签。
+ */
+@Service
+public class OrderExportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final String[] COLUMNS = {
+            "id", "order_number", "user_id", "seller_id", "status", "total_amount", "discount_amount",
+            "shipping_fee", "actual_amount", "payment_method", "receiver_name", "receiver_phone",
+            "shipping_address", "create_time", "payment_time", "delivery_time", "receive_time"
+    };
+
+    // 各列的读取方式：L 整数，D 金额，T 时间，S 字符串
+    private static final String COLUMN_KINDS = "LSLLSDDDDSSSSTTTT";
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.order.export.fetch-size:1000}")
+    private int fetchSize;
+
+    // 与 Hibernate 写入时间字段时使用的时区一致
+    @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}")
+    private String jdbcTimeZone;
+
+    /**
+     * 按当前用户和筛选条件生成导出流：权限和范围在调用线程中确定，查询在写响应时执行
+     * 商家只能导出自己店铺的订单（忽略 sellerId 参数）；history=true 时包含已归档的订单
+     */
+    public StreamingResponseBody exportOrders(Format format, LocalDateTime from, LocalDateTime to,
+                                              OrderStatus status, Long sellerId, boolean gzip, boolean history) {
+        UserRole role = UserContext.getCurrentUserRole();
+        if (UserContext.getCurrentUserId() == null || role == null) {
+            throw new RuntimeException("用户未登录");
+        }
+        if (role == UserRole.SELLER) {
+            sellerId = UserContext.getCurrentUserId();
+        } else if (role != UserRole.ADMIN) {
+            throw new RuntimeException("无权导出订单");
+        }
+
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        List<Object> conditionArgs = new ArrayList<>();
+        if (from != null) {
+            where.append(" AND create_time >= ?");
+            conditionArgs.add(from);
+        }
+        if (to != null) {
+            where.append(" AND create_time < ?");
+            conditionArgs.add(to);
+        }
+        if (status != null) {
+            where.append(" AND status = ?");
+            conditionArgs.add(status.name());
+        }
+        if (sellerId != null) {
+            where.append(" AND seller_id = ?");
+            conditionArgs.add(sellerId);
+        }
+
+        String select = "SELECT " + String.join(", ", COLUMNS) + " FROM ";
+        StringBuilder sql = new StringBuilder(select).append("orders").append(where);
+        List<Object> args = new ArrayList<>(conditionArgs);
+        if (history) {
+            sql.append(" UNION ALL ").append(select).append("orders_archive").append(where);
+            args.addAll(conditionArgs);
+        }
+        sql.append(" ORDER BY id");
+
+        String query = sql.toString();
+        String formatTag = format.name().toLowerCase();
+        Timer timer = Timer.builder("order.export")
+                .description("订单导出耗时")
+                .tag("format", formatTag)
+                .register(meterRegistry);
+        return out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+            long start = System.nanoTime();
+            long rows = format == Format.CSV ? writeCsv(query, args, writer) : writeNdjson(query, args, writer);
+            writer.flush();
+            if (target instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
+            }
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meterRegistry.counter("order.export.rows", "format", formatTag).increment(rows);
+        };
+    }
+
+    private long writeCsv(String query, List<Object> args, Writer writer) throws IOException {
+        writer.write(String.join(",", COLUMNS));
+        writer.write('\n');
+        return stream(query, args, (rs, calendar) -> {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = read(rs, i + 1, calendar);
+                if (value != null) {
+                    writer.write(csvField(value.toString()));
+                }
+            }
+            writer.write('\n');
+        });
+    }
+
+    private long writeNdjson(String query, List<Object> args, Writer writer) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long rows = stream(query, args, (rs, calendar) -> {
+            json.writeStartObject();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                Object value = read(rs, i + 1, calendar);
+                json.writeFieldName(COLUMNS[i]);
+                if (value == null) {
+                    json.writeNull();
+                } else if (value instanceof Long number) {
+                    json.writeNumber(number);
+                } else if (value instanceof BigDecimal decimal) {
+                    json.writeNumber(decimal);
+                } else {
+                    json.writeString(value.toString());
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        });
+        json.flush();
+        return rows;
+    }
+
+    /**
+     * 执行只进只读查询，逐行回调，返回行数
+     */
+    private long stream(String query, List<Object> args, RowWriter rowWriter) throws IOException {
+        Calendar calendar = calendar();
+        long[] rows = {0};
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+                statement.setFetchSize(mysql ? Integer.MIN_VALUE : fetchSize);
+                for (int i = 0; i < args.size(); i++) {
+                    if (args.get(i) instanceof LocalDateTime time) {
+                        statement.setTimestamp(i + 1, Timestamp.valueOf(time), calendar);
+                    } else {
+                        statement.setObject(i + 1, args.get(i));
+                    }
+                }
+                return statement;
+            }, rs -> {
+                try {
+                    rowWriter.write(rs, calendar);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            // 客户端断开等写出错误，结束查询
+            throw e.getCause();
+        }
+        return rows[0];
+    }
+
+    private Object read(ResultSet rs, int column, Calendar calendar) throws SQLException {
+        switch (COLUMN_KINDS.charAt(column - 1)) {
+            case 'L': {
+                long value = rs.getLong(column);
+                return rs.wasNull() ? null : value;
+            }
+            case 'D':
+                return rs.getBigDecimal(column);
+            case 'T': {
+                Timestamp time = rs.getTimestamp(column, calendar);
+                return time == null ? null : TIME_FORMAT.format(time.toLocalDateTime());
+            }
+            default:
+                return rs.getString(column);
+        }
+    }
+
+    private Calendar calendar() {
+        return jdbcTimeZone.isEmpty() ? Calendar.getInstance() : Calendar.getInstance(TimeZone.getTimeZone(jdbcTimeZone));
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs, Calendar calendar) throws SQLException, IOException;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.dto.OrderIntakeStatus;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.OrderRepository;
+import com.example.ishopping.util.OrderNumberGenerator;
+import com.example.ishopping.util.UserContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 异步下单（app.order.intake.enabled=true 时开启）
+ * 请求校验后进入有界队列并立即返回订单号，虚拟线程工作者批量取出，合并商品查询和库存扣减后落库。
+ * 大促时下单请求不再长时间占用 Tomcat 线程和数据库连接。
+ */
+@Service
+public class OrderIntakeService {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.order.intake.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.order.intake.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.order.intake.workers:4}")
+    private int workerCount;
+
+    @Value("${app.order.intake.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.order.intake.status-retention-minutes:30}")
+    private long statusRetentionMinutes;
+
+    private BlockingQueue<OrderIntakeTicket> queue;
+    private final Map<String, OrderIntakeTicket> tickets = new ConcurrentHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private Timer waitTimer;
+    private DistributionSummary batchSizeSummary;
+    private Counter createdCounter;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("order.intake.queue.depth", queue, BlockingQueue::size)
+                .description("异步下单队列中等待处理的订单数")
+                .register(meterRegistry);
+        waitTimer = Timer.builder("order.intake.wait")
+                .description("订单从入队到开始处理的等待时间")
+                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("order.intake.batch.size")
+                .description("每批合并处理的订单数")
+                .register(meterRegistry);
+        createdCounter = meterRegistry.counter("order.intake.orders", "result", "created");
+        rejectedCounter = meterRegistry.counter("order.intake.orders", "result", "rejected");
+
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofVirtual().name("order-intake-" + i).start(this::drainLoop));
+        }
+        System.out.println("异步下单已开启，队列容量: " + queueCapacity + "，工作线程: " + workerCount);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        // 工作线程会处理完队列中剩余的订单再退出
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    /**
+     * 提交订单：分配订单号后入队，队列已满时返回 null
+     */
+    public OrderIntakeStatus submit(CreateOrderRequest request) {
+        if (!enabled) {
+            throw new RuntimeException("异步下单未开启");
+        }
+
+        Long userId = UserContext.getCurrentUserId();
+        if (userId == null) {
+            throw new RuntimeException("用户未登录");
+        }
+        if (UserContext.getCurrentUserRole() != UserRole.CUSTOMER) {
+            throw new RuntimeException("只有顾客可以创建订单");
+        }
+        for (CreateOrderRequest.OrderItemRequest item : request.getOrderItems()) {
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new RuntimeException("商品数量必须大于0: " + item.getProductId());
+            }
+        }
+
+        OrderIntakeTicket ticket = new OrderIntakeTicket(orderNumberGenerator.nextOrderNumber(), userId, request);
+        tickets.put(ticket.getOrderNumber(), ticket);
+        if (!queue.offer(ticket)) {
+            tickets.remove(ticket.getOrderNumber());
+            return null;
+        }
+        return ticket.toStatus();
+    }
+
+    /**
+     * 查询异步下单结果：队列/结果缓存中没有时回查数据库
+     */
+    public OrderIntakeStatus getStatus(String orderNumber) {
+        Long userId = UserContext.getCurrentUserId();
+        if (userId == null) {
+            throw new RuntimeException("用户未登录");
+        }
+        boolean admin = UserContext.getCurrentUserRole() == UserRole.ADMIN;
+
+        OrderIntakeTicket ticket = tickets.get(orderNumber);
+        if (ticket != null) {
+            if (!admin && !ticket.getUserId().equals(userId)) {
+                throw new RuntimeException("无权查看此订单");
+            }
+            return ticket.toStatus();
+        }
+
+        Optional<Order> order = orderRepository.findByOrderNumber(orderNumber);
+        if (order.isEmpty() || (!admin && !order.get().getUserId().equals(userId))) {
+            throw new RuntimeException("订单不存在");
+        }
+        return new OrderIntakeStatus(orderNumber, OrderIntakeTicket.State.CREATED.name(), order.get().getId(), null);
+    }
+
+    /**
+     * 定期清理已处理完成的结果（之后的查询回查数据库）
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictFinishedTickets() {
+        long expireBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(statusRetentionMinutes);
+        tickets.values().removeIf(t -> t.getState() != OrderIntakeTicket.State.QUEUED && t.getFinishedAt() < expireBefore);
+    }
+
+    private void drainLoop() {
+        List<OrderIntakeTicket> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderIntakeTicket first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<OrderIntakeTicket> batch) {
+        long now = System.nanoTime();
+        for (OrderIntakeTicket ticket : batch) {
+            waitTimer.record(now - ticket.getEnqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+        batchSizeSummary.record(batch.size());
+
+        try {
+            // 事务提交后才标记为已创建
+            Map<String, Long> created = orderService.createIntakeOrders(batch).stream()
+                    .collect(Collectors.toMap(Order::getOrderNumber, Order::getId));
+            for (OrderIntakeTicket ticket : batch) {
+                Long orderId = created.get(ticket.getOrderNumber());
+                if (orderId != null) {
+                    ticket.complete(orderId);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("异步下单批次处理失败: " + e.getMessage());
+            for (OrderIntakeTicket ticket : batch) {
+                if (ticket.getState() == OrderIntakeTicket.State.QUEUED) {
+                    ticket.reject("下单失败，请重试: " + e.getMessage());
+                }
+            }
+        }
+
+        for (OrderIntakeTicket ticket : batch) {
+            if (ticket.getState() == OrderIntakeTicket.State.CREATED) {
+                createdCounter.increment();
+            } else {
+                rejectedCounter.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.dto.OrderIntakeStatus;
+
+/**
+ * 异步下单队列中的一笔订单：入队时已分配订单号，由工作线程落库后更新处理结果
+ */
+public class OrderIntakeTicket {
+
+    public enum State { QUEUED, CREATED, REJECTED }
+
+    private final String orderNumber;
+    private final Long userId;
+    private final CreateOrderRequest request;
+    private final long enqueuedAt = System.nanoTime();
+
+    private volatile State state = State.QUEUED;
+    private volatile Long orderId;
+    private volatile String message;
+    private volatile long finishedAt;
+
+    public OrderIntakeTicket(String orderNumber, Long userId, CreateOrderRequest request) {
+        this.orderNumber = orderNumber;
+        this.userId = userId;
+        this.request = request;
+    }
+
+    public void complete(Long orderId) {
+        this.orderId = orderId;
+        this.state = State.CREATED;
+        this.finishedAt = System.currentTimeMillis();
+    }
+
+    public void reject(String message) {
+        this.message = message;
+        this.state = State.REJECTED;
+        this.finishedAt = System.currentTimeMillis();
+    }
+
+    public OrderIntakeStatus toStatus() {
+        return new OrderIntakeStatus(orderNumber, state.name(), orderId, message);
+    }
+
+    public String getOrderNumber() { return orderNumber; }
+
+    public Long getUserId() { return userId; }
+
+    public CreateOrderRequest getRequest() { return request; }
+
+    public long getEnqueuedAt() { return enqueuedAt; }
+
+    public State getState() { return state; }
+
+    public long getFinishedAt() { return finishedAt; }
+}
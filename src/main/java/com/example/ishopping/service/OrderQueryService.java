@@ -0,0 +1,253 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CursorPage;
+import com.example.ishopping.dto.OrderItemResponse;
+import com.example.ishopping.dto.OrderResponse;
+import com.example.ishopping.entity.OrderStatus;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ArchivedOrderItemRepository;
+import com.example.ishopping.repository.OrderItemRepository;
+import com.example.ishopping.util.PageCursor;
+import com.example.ishopping.util.UserContext;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 订单列表读取
+ * 直接投影为 OrderResponse / OrderItemResponse：每页一次订单查询、一次订单项（关联商品名称和图片）查询，
+ * 不加载订单、订单项和商品实体，也不经过持久化上下文；下单用户信息由 OrderAssembler 批量补充。
+ * 除页码分页外，提供按 (create_time, id) 定位的游标分页，深翻页不需要 OFFSET 扫描，也不执行 COUNT。
+ * 历史订单（已归档）走同样的投影，只是读取 orders_archive / order_items_archive。
+ */
+@Service
+@Transactional(readOnly = true)
+public class OrderQueryService {
+
+    private static final String SELECT_FIELDS = "SELECT new com.example.ishopping.dto.OrderResponse(" +
+            "o.id, o.orderNumber, o.userId, o.sellerId, o.totalAmount, o.discountAmount, o.shippingFee, " +
+            "o.actualAmount, o.status, o.shippingAddress, o.receiverName, o.receiverPhone, o.paymentMethod, " +
+            "o.createTime, o.updateTime)";
+
+    private static final String SELECT_RESPONSE = SELECT_FIELDS + " FROM Order o WHERE 1 = 1";
+
+    private static final String SELECT_ARCHIVED = SELECT_FIELDS + " FROM ArchivedOrder o WHERE 1 = 1";
+
+    private static final String ORDER_BY = " ORDER BY o.createTime DESC, o.id DESC";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ArchivedOrderItemRepository archivedOrderItemRepository;
+
+    @Autowired
+    private OrderAssembler orderAssembler;
+
+    /**
+     * 获取当前用户的订单列表
+     * 顾客：自己的订单 | 商家：自己店铺的订单 | 管理员：所有订单
+     */
+    public List<OrderResponse> getOrdersByCurrentUser(int page, int size) {
+        Map<String, Object> params = new HashMap<>();
+        String where = roleScope(params);
+        return findPage(false, where, params, page, size);
+    }
+
+    /**
+     * 获取当前用户的订单列表（游标分页）
+     */
+    public CursorPage<OrderResponse> getOrdersByCurrentUser(String cursor, int size) {
+        Map<String, Object> params = new HashMap<>();
+        String where = roleScope(params);
+        return findSlice(false, where, params, cursor, size);
+    }
+
+    /**
+     * 获取商家的订单列表
+     */
+    public List<OrderResponse> getOrdersBySeller(int page, int size) {
+        if (currentRole() != UserRole.SELLER) {
+            throw new RuntimeException("只有商家可以查看店铺订单");
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("sellerId", UserContext.getCurrentUserId());
+        return findPage(false, " AND o.sellerId = :sellerId", params, page, size);
+    }
+
+    /**
+     * 获取商家的订单列表（游标分页）
+     */
+    public CursorPage<OrderResponse> getOrdersBySeller(String cursor, int size) {
+        if (currentRole() != UserRole.SELLER) {
+            throw new RuntimeException("只有商家可以查看店铺订单");
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("sellerId", UserContext.getCurrentUserId());
+        return findSlice(false, " AND o.sellerId = :sellerId", params, cursor, size);
+    }
+
+    /**
+     * 获取所有订单（管理员）
+     */
+    public List<OrderResponse> getAllOrders(int page, int size) {
+        if (currentRole() != UserRole.ADMIN) {
+            throw new RuntimeException("只有管理员可以查看所有订单");
+        }
+        return findPage(false, "", new HashMap<>(), page, size);
+    }
+
+    /**
+     * 获取所有订单（管理员，游标分页）
+     */
+    public CursorPage<OrderResponse> getAllOrders(String cursor, int size) {
+        if (currentRole() != UserRole.ADMIN) {
+            throw new RuntimeException("只有管理员可以查看所有订单");
+        }
+        return findSlice(false, "", new HashMap<>(), cursor, size);
+    }
+
+    /**
+     * 根据状态筛选订单
+     */
+    public List<OrderResponse> getOrdersByStatus(OrderStatus status, int page, int size) {
+        Map<String, Object> params = new HashMap<>();
+        String where = roleScope(params) + " AND o.status = :status";
+        params.put("status", status);
+        return findPage(false, where, params, page, size);
+    }
+
+    /**
+     * 搜索订单（管理员和商家可用，商家只能看到自己店铺的搜索结果）
+     * 按订单号前缀或尾号匹配：前缀走 order_number 索引，尾号走倒序列 order_number_rev 索引，
+     * 商家范围条件在同一次查询中完成
+     */
+    public List<OrderResponse> searchOrders(String keyword, int page, int size) {
+        if (currentRole() == UserRole.CUSTOMER) {
+            throw new RuntimeException("无权搜索订单");
+        }
+        String normalized = keyword.trim().toUpperCase();
+        Map<String, Object> params = new HashMap<>();
+        String where = roleScope(params) +
+                " AND (o.orderNumber LIKE :prefix ESCAPE '!' OR o.orderNumberRev LIKE :suffix ESCAPE '!')";
+        params.put("prefix", escapeLike(normalized) + "%");
+        params.put("suffix", escapeLike(new StringBuilder(normalized).reverse().toString()) + "%");
+        return findPage(false, where, params, page, size);
+    }
+
+    /**
+     * 获取当前用户的历史（已归档）订单，范围与 getOrdersByCurrentUser 相同
+     */
+    public List<OrderResponse> getArchivedOrders(int page, int size) {
+        Map<String, Object> params = new HashMap<>();
+        String where = roleScope(params);
+        return findPage(true, where, params, page, size);
+    }
+
+    /**
+     * 获取当前用户的历史（已归档）订单（游标分页）
+     */
+    public CursorPage<OrderResponse> getArchivedOrders(String cursor, int size) {
+        Map<String, Object> params = new HashMap<>();
+        String where = roleScope(params);
+        return findSlice(true, where, params, cursor, size);
+    }
+
+    /**
+     * 按当前用户角色限定订单范围
+     */
+    private String roleScope(Map<String, Object> params) {
+        UserRole role = currentRole();
+        if (role == UserRole.ADMIN) {
+            return "";
+        }
+        if (role == UserRole.SELLER) {
+            params.put("sellerId", UserContext.getCurrentUserId());
+            return " AND o.sellerId = :sellerId";
+        }
+        params.put("userId", UserContext.getCurrentUserId());
+        return " AND o.userId = :userId";
+    }
+
+    private List<OrderResponse> findPage(boolean archived, String where, Map<String, Object> params, int page, int size) {
+        String select = archived ? SELECT_ARCHIVED : SELECT_RESPONSE;
+        TypedQuery<OrderResponse> query = entityManager.createQuery(select + where + ORDER_BY, OrderResponse.class);
+        params.forEach(query::setParameter);
+        List<OrderResponse> orders = query
+                .setFirstResult(page * size)
+                .setMaxResults(size)
+                .getResultList();
+        return complete(orders, archived);
+    }
+
+    /**
+     * 游标分页：从上一页最后一条之后开始，多取一条判断是否还有下一页
+     */
+    private CursorPage<OrderResponse> findSlice(boolean archived, String where, Map<String, Object> params,
+                                                String cursor, int size) {
+        String select = archived ? SELECT_ARCHIVED : SELECT_RESPONSE;
+        PageCursor position = PageCursor.decode(cursor);
+        if (position != null) {
+            where += " AND (o.createTime < :cursorTime OR (o.createTime = :cursorTime AND o.id < :cursorId))";
+            params.put("cursorTime", position.createTime());
+            params.put("cursorId", position.id());
+        }
+        TypedQuery<OrderResponse> query = entityManager.createQuery(select + where + ORDER_BY, OrderResponse.class);
+        params.forEach(query::setParameter);
+        CursorPage<OrderResponse> slice = CursorPage.of(query.setMaxResults(size + 1).getResultList(), size,
+                o -> new PageCursor(o.getCreateTime(), o.getId()));
+        complete(slice.getItems(), archived);
+        return slice;
+    }
+
+    /**
+     * 补充订单项和下单用户信息
+     */
+    private List<OrderResponse> complete(List<OrderResponse> orders, boolean archived) {
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        attachItems(orders, archived);
+        orderAssembler.attachBuyers(orders);
+        return orders;
+    }
+
+    /**
+     * 一次查询取出整页订单的订单项，按订单ID分组挂到各订单上
+     */
+    private void attachItems(List<OrderResponse> orders, boolean archived) {
+        List<Long> orderIds = orders.stream().map(OrderResponse::getId).collect(Collectors.toList());
+        List<OrderItemResponse> items = archived
+                ? archivedOrderItemRepository.findResponsesByOrderIdIn(orderIds)
+                : orderItemRepository.findResponsesByOrderIdIn(orderIds);
+        Map<Long, List<OrderItemResponse>> itemsByOrder = items.stream()
+                .collect(Collectors.groupingBy(OrderItemResponse::getOrderId));
+        for (OrderResponse order : orders) {
+            order.setItems(itemsByOrder.getOrDefault(order.getId(), List.of()));
+        }
+    }
+
+    /**
+     * 转义 LIKE 通配符，关键词只按字面匹配
+     */
+    private static String escapeLike(String keyword) {
+        return keyword.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private UserRole currentRole() {
+        UserRole role = UserContext.getCurrentUserRole();
+        if (UserContext.getCurrentUserId() == null || role == null) {
+            throw new RuntimeException("用户未登录");
+        }
+        return role;
+    }
+}
@@ -1,17 +1,18 @@
 package com.example.ishopping.service;
 
+import com.example.ishopping.dto.CartCheckoutRequest;
 import com.example.ishopping.dto.CreateOrderRequest;
 import com.example.ishopping.entity.*;
+import com.example.ishopping.event.OrderEvent;
 import com.example.ishopping.repository.OrderRepository;
 import com.example.ishopping.repository.UserRepository;
 import com.example.ishopping.repository.ProductRepository;
 import com.example.ishopping.repository.OrderItemRepository;
+import com.example.ishopping.util.OrderNumberGenerator;
 import com.example.ishopping.util.UserContext;
 import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,6 +37,21 @@ public class OrderService {
     @Autowired
     private OrderItemRepository orderItemRepository;
 
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @Autowired
+    private OrderStatsService orderStatsService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 创建订单
      */
@@ -47,203 +63,153 @@ public class OrderService {
             throw new RuntimeException("只有顾客可以创建订单");
         }
 
-        // 创建订单对象
-        Order order = new Order();
-        String orderNumber = generateOrderNumber();
-        order.setOrderNumber(generateOrderNumber());
-        order.setUserId(currentUser.getId());
-        order.setShippingAddress(request.getShippingAddress());
-        order.setReceiverName(request.getReceiverName());
-        order.setReceiverPhone(request.getReceiverPhone());
-        order.setPaymentMethod(request.getPaymentMethod());
-        order.setDiscountAmount(request.getDiscountAmount() != null ? request.getDiscountAmount() : BigDecimal.ZERO);
-        order.setShippingFee(request.getShippingFee() != null ? request.getShippingFee() : BigDecimal.ZERO);
-        order.setStatus(OrderStatus.PENDING);
-        order.setCreateTime(LocalDateTime.now());
-        order.setUpdateTime(LocalDateTime.now());
-
-        System.out.println("生成的订单号: " + orderNumber);
-        System.out.println("收货地址: " + request.getShippingAddress());
-        System.out.println("订单项数量: " + request.getOrderItems().size());
+        // 一次查询加载订单涉及的全部商品
+        Map<Long, Product> products = loadProducts(Collections.singletonList(request));
 
-        // 处理订单项
+        // 创建订单对象及订单项
         List<OrderItem> orderItems = new ArrayList<>();
-        BigDecimal totalAmount = BigDecimal.ZERO;
-        Long sellerId = null;
+        Order order = buildOrder(currentUser.getId(), request, products, orderItems);
 
-        for (CreateOrderRequest.OrderItemRequest itemRequest : request.getOrderItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new RuntimeException("商品不存在: " + itemRequest.getProductId()));
-
-            // 检查库存
-            if (product.getStock() < itemRequest.getQuantity()) {
-                throw new RuntimeException("商品库存不足: " + product.getName() + "，库存: " + product.getStock() + "，需求: " + itemRequest.getQuantity());
-            }
-
-            // 检查商品状态
-            if (product.getStatus() != ProductStatus.ON_SALE) {
-                throw new RuntimeException("商品已下架: " + product.getName());
-            }
+        System.out.println("生成的订单号: " + order.getOrderNumber());
+        System.out.println("收货地址: " + request.getShippingAddress());
+        System.out.println("订单项数量: " + request.getOrderItems().size());
 
-            // 设置商家ID（取第一个商品的商家）
-            if (sellerId == null) {
-                sellerId = product.getSellerId();
-            }
+        Map<Order, List<OrderItem>> drafts = new LinkedHashMap<>();
+        drafts.put(order, orderItems);
+        placeOrders(drafts, products);
 
-            // 验证所有商品是否属于同一个商家
-            if (!product.getSellerId().equals(sellerId)) {
-                throw new RuntimeException("订单中的所有商品必须属于同一个商家");
-            }
+        System.out.println("订单创建成功，ID: " + order.getId());
+        return order;
+    }
 
-            // 创建订单项
-            OrderItem orderItem = new OrderItem();
-            orderItem.setProductId(product.getId());
-            orderItem.setQuantity(itemRequest.getQuantity());
-            orderItem.setPrice(product.getPrice());
-            orderItem.setCreateTime(LocalDateTime.now());
-            orderItems.add(orderItem);
+    /**
+     * 购物车结算：按商家拆分为多个订单，在同一事务内完成扣库存和批量写入
+     * 由调用方负责在同一事务内删除已结算的购物车项
+     */
+    public List<Order> createOrdersFromCart(List<ShoppingCart> cartItems, CartCheckoutRequest request) {
+        User currentUser = getCurrentUser();
 
-            // 计算金额
-            BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
-            totalAmount = totalAmount.add(itemTotal);
+        if (currentUser.getRole() != UserRole.CUSTOMER) {
+            throw new RuntimeException("只有顾客可以创建订单");
         }
-
-        if (sellerId == null) {
-            throw new RuntimeException("订单必须包含至少一个商品");
+        if (cartItems.isEmpty()) {
+            throw new RuntimeException("购物车中没有可结算的商品");
         }
 
-        order.setSellerId(sellerId);
-        order.setTotalAmount(totalAmount);
-        order.setActualAmount(totalAmount
-                .subtract(order.getDiscountAmount())
-                .add(order.getShippingFee()));
-
-        // 保存订单
-        Order savedOrder = orderRepository.save(order);
-        System.out.println("订单创建成功，ID: " + savedOrder.getId());
-
-        // 保存订单项并更新库存
-        for (OrderItem item : orderItems) {
-            item.setOrderId(savedOrder.getId());
-            orderItemRepository.save(item);
-
-            // 减少库存
-            Product product = productRepository.findById(item.getProductId())
-                    .orElseThrow(() -> new RuntimeException("商品不存在: " + item.getProductId()));
-            product.setStock(product.getStock() - item.getQuantity());
-            productRepository.save(product);
+        // 按商家分组，保持购物车中的先后顺序
+        Map<Long, List<ShoppingCart>> itemsBySeller = cartItems.stream()
+                .collect(Collectors.groupingBy(c -> c.getProduct().getSellerId(), LinkedHashMap::new, Collectors.toList()));
+
+        Map<Long, Product> products = new HashMap<>();
+        Map<Order, List<OrderItem>> drafts = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<ShoppingCart>> entry : itemsBySeller.entrySet()) {
+            Order order = newOrder(currentUser.getId(), request.getShippingAddress(), request.getReceiverName(),
+                    request.getReceiverPhone(), request.getPaymentMethod());
+            order.setSellerId(entry.getKey());
+
+            List<OrderItem> orderItems = new ArrayList<>();
+            for (ShoppingCart cartItem : entry.getValue()) {
+                Product product = cartItem.getProduct();
+                products.put(product.getId(), product);
+                orderItems.add(newOrderItem(product, cartItem.getQuantity()));
+            }
+            applyAmounts(order, orderItems);
+            drafts.put(order, orderItems);
         }
 
-        // 设置订单项关联（已在事务内）
-        savedOrder.setOrderItems(orderItems);
-        return savedOrder;
+        return placeOrders(drafts, products);
     }
 
     /**
-     * 根据ID获取订单（权限控制）
+     * 异步下单批量落库（由下单队列的工作线程调用）
+     * 同一批次的订单合并为一次商品查询和一次库存扣减；合并扣减有商品不足时退回整批扣减，按入队顺序逐单扣减。
+     * 单个订单校验或库存不足只拒绝该订单（记录在 ticket 上），不影响同批其他订单。
      */
-    public Order getOrderById(Long id) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("订单不存在"));
-
-        // 权限检查
-        checkOrderPermission(order);
+    public List<Order> createIntakeOrders(List<OrderIntakeTicket> tickets) {
+        Map<Long, Product> products = loadProducts(tickets.stream()
+                .map(OrderIntakeTicket::getRequest)
+                .collect(Collectors.toList()));
+
+        Map<Order, List<OrderItem>> drafts = new LinkedHashMap<>();
+        Map<Order, OrderIntakeTicket> ticketsByOrder = new HashMap<>();
+        for (OrderIntakeTicket ticket : tickets) {
+            try {
+                List<OrderItem> orderItems = new ArrayList<>();
+                Order order = buildOrder(ticket.getUserId(), ticket.getRequest(), products, orderItems);
+                order.setOrderNumber(ticket.getOrderNumber());
+                drafts.put(order, orderItems);
+                ticketsByOrder.put(order, ticket);
+            } catch (RuntimeException e) {
+                ticket.reject(e.getMessage());
+            }
+        }
 
-        // 初始化关联，确保返回时可序列化
-        initializeOrders(Collections.singletonList(order));
+        List<OrderItem> allItems = new ArrayList<>();
+        drafts.values().forEach(allItems::addAll);
+        if (!inventoryService.deductStockAllOrNothing(sumQuantities(allItems)).isEmpty()) {
+            Iterator<Map.Entry<Order, List<OrderItem>>> it = drafts.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Order, List<OrderItem>> entry = it.next();
+                List<Long> shortages = inventoryService.deductStockAllOrNothing(sumQuantities(entry.getValue()));
+                if (!shortages.isEmpty()) {
+                    ticketsByOrder.get(entry.getKey()).reject(shortageMessage(shortages, products));
+                    it.remove();
+                }
+            }
+        }
 
-        return order;
+        return drafts.isEmpty() ? List.of() : saveOrders(drafts);
     }
 
     /**
-     * 获取当前用户的订单列表
+     * 根据ID获取订单（权限控制）
      */
-    public List<Order> getOrdersByCurrentUser(int page, int size) {
-        User currentUser = getCurrentUser();
-        Pageable pageable = PageRequest.of(page, size);
-
-        Page<Order> orderPage;
-        if (currentUser.getRole() == UserRole.ADMIN) {
-            // 管理员：查看所有订单
-            orderPage = orderRepository.findAllByOrderByCreateTimeDesc(pageable);
-        } else if (currentUser.getRole() == UserRole.SELLER) {
-            // 商家：查看自己店铺的订单
-            orderPage = orderRepository.findBySellerIdOrderByCreateTimeDesc(currentUser.getId(), pageable);
-        } else {
-            // 顾客：查看自己的订单
-            orderPage = orderRepository.findByUserIdOrderByCreateTimeDesc(currentUser.getId(), pageable);
-        }
-
-        List<Order> orders = orderPage.getContent();
-        initializeOrders(orders);
-        return orders;
+    public Order getOrderById(Long id) {
+        return getOrderById(id, false);
     }
 
     /**
-     * 获取商家的订单列表
+     * 根据ID获取订单（权限控制），history 为 true 时热表中没有的订单再到归档表中查找
      */
-    public List<Order> getOrdersBySeller(int page, int size) {
-        User currentUser = getCurrentUser();
-
-        if (currentUser.getRole() != UserRole.SELLER) {
-            throw new RuntimeException("只有商家可以查看店铺订单");
+    public Order getOrderById(Long id, boolean history) {
+        Optional<Order> found = orderRepository.findById(id);
+        if (found.isEmpty() && history) {
+            Order archived = orderArchiveService.findArchivedOrder(id)
+                    .orElseThrow(() -> new RuntimeException("订单不存在"));
+            checkOrderPermission(archived);
+            return archived;
         }
+        Order order = found.orElseThrow(() -> new RuntimeException("订单不存在"));
 
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Order> orderPage = orderRepository.findBySellerIdOrderByCreateTimeDesc(currentUser.getId(), pageable);
-        List<Order> orders = orderPage.getContent();
-        initializeOrders(orders);
-        return orders;
-    }
+        // 权限检查
+        checkOrderPermission(order);
 
-    /**
-     * 获取所有订单（管理员）
-     */
-    public List<Order> getAllOrders(int page, int size) {
-        User currentUser = getCurrentUser();
-        if (currentUser.getRole() != UserRole.ADMIN) {
-            throw new RuntimeException("只有管理员可以查看所有订单");
-        }
+        // 初始化关联，确保返回时可序列化
+        initializeOrders(Collections.singletonList(order));
 
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Order> orderPage = orderRepository.findAllByOrderByCreateTimeDesc(pageable);
-        List<Order> orders = orderPage.getContent();
-        initializeOrders(orders);
-        return orders;
+        return order;
     }
 
     /**
-     * 根据状态筛选订单
+     * 锁定并加载订单（权限控制），用于修改订单状态。
+     * 持有行锁后读到的是已提交的最新状态，与超时取消、其他请求的状态修改串行，状态校验不会基于过期数据。
      */
-    public List<Order> getOrdersByStatus(OrderStatus status, int page, int size) {
-        User currentUser = getCurrentUser();
-        Pageable pageable = PageRequest.of(page, size);
-
-        Page<Order> orderPage;
-        if (currentUser.getRole() == UserRole.ADMIN) {
-            orderPage = orderRepository.findByStatusOrderByCreateTimeDesc(status, pageable);
-        } else if (currentUser.getRole() == UserRole.SELLER) {
-            orderPage = orderRepository.findBySellerIdAndStatusOrderByCreateTimeDesc(
-                    currentUser.getId(), status, pageable);
-        } else {
-            orderPage = orderRepository.findByUserIdAndStatusOrderByCreateTimeDesc(
-                    currentUser.getId(), status, pageable);
-        }
-
-        List<Order> orders = orderPage.getContent();
-        initializeOrders(orders);
-        return orders;
+    private Order lockOrder(Long id) {
+        Order order = orderRepository.findByIdForUpdate(id).orElseThrow(() -> new RuntimeException("订单不存在"));
+        checkOrderPermission(order);
+        initializeOrders(Collections.singletonList(order));
+        return order;
     }
 
     /**
      * 更新订单状态
      */
     public Order updateOrderStatus(Long id, OrderStatus newStatus) {
-        Order order = getOrderById(id);
+        Order order = lockOrder(id);
         User currentUser = getCurrentUser();
 
         // 状态流转验证
-        validateStatusTransition(order.getStatus(), newStatus, currentUser.getRole());
+        validateStatusTransition(order.getStatus(), newStatus);
 
         // 状态更新权限检查
         if (currentUser.getRole() == UserRole.CUSTOMER) {
@@ -266,17 +232,19 @@ public class OrderService {
             }
         }
 
-        order.setStatus(newStatus);
-        order.setUpdateTime(LocalDateTime.now());
+        OrderStatus oldStatus = order.getStatus();
+        changeStatus(order, newStatus);
 
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderEvent.statusChanged(saved, oldStatus, currentUser.getId()));
+        return saved;
     }
 
     /**
      * 取消订单
      */
     public Order cancelOrder(Long id) {
-        Order order = getOrderById(id);
+        Order order = lockOrder(id);
         User currentUser = getCurrentUser();
 
         // 权限检查：顾客可以取消自己的订单，商家可以取消自己店铺的订单
@@ -292,20 +260,22 @@ public class OrderService {
             throw new RuntimeException("当前状态的订单不能取消");
         }
 
-        order.setStatus(OrderStatus.CANCELLED);
-        order.setUpdateTime(LocalDateTime.now());
+        OrderStatus oldStatus = order.getStatus();
+        changeStatus(order, OrderStatus.CANCELLED);
 
         // 恢复库存
         restoreStock(order);
 
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderEvent.statusChanged(saved, oldStatus, currentUser.getId()));
+        return saved;
     }
 
     /**
      * 确认收货
      */
     public Order confirmOrder(Long id) {
-        Order order = getOrderById(id);
+        Order order = lockOrder(id);
         User currentUser = getCurrentUser();
 
         // 权限检查：只有顾客可以确认收货
@@ -318,82 +288,36 @@ public class OrderService {
             throw new RuntimeException("只有已发货的订单可以确认收货");
         }
 
-        order.setStatus(OrderStatus.COMPLETED);
-        order.setUpdateTime(LocalDateTime.now());
+        changeStatus(order, OrderStatus.COMPLETED);
 
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderEvent.statusChanged(saved, OrderStatus.DELIVERED, currentUser.getId()));
+        return saved;
     }
 
     /**
-     * 搜索订单（管理员和商家可用）
-     */
-    public List<Order> searchOrders(String keyword, int page, int size) {
-        User currentUser = getCurrentUser();
-
-        if (currentUser.getRole() == UserRole.CUSTOMER) {
-            throw new RuntimeException("无权搜索订单");
-        }
-
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Order> orderPage = orderRepository.findByOrderNumberContainingIgnoreCase(keyword, pageable);
-
-        // 商家只能看到自己店铺的搜索结果
-        if (currentUser.getRole() == UserRole.SELLER) {
-            orderPage = orderRepository.findBySellerIdAndOrderNumberContainingIgnoreCase(
-                    currentUser.getId(), keyword, pageable);
-        }
-
-        List<Order> orders = orderPage.getContent();
-        initializeOrders(orders);
-        return orders;
-    }
-
-    /**
-     * 获取订单统计信息
+     * 获取订单统计信息（读取内存统计，不访问数据库）
      */
     public Map<String, Object> getOrderStats() {
         User currentUser = getCurrentUser();
-        Map<String, Object> stats = new HashMap<>();
 
         if (currentUser.getRole() == UserRole.ADMIN) {
             // 管理员统计
-            stats.put("totalOrders", orderRepository.count());
-            stats.put("totalAmount", orderRepository.sumTotalAmount());
-            stats.put("pendingOrders", orderRepository.countByStatus(OrderStatus.PENDING));
-            stats.put("paidOrders", orderRepository.countByStatus(OrderStatus.PAID));
-            stats.put("deliveredOrders", orderRepository.countByStatus(OrderStatus.DELIVERED));
-            stats.put("completedOrders", orderRepository.countByStatus(OrderStatus.COMPLETED));
-            stats.put("cancelledOrders", orderRepository.countByStatus(OrderStatus.CANCELLED));
+            return orderStatsService.getGlobalStats();
         } else if (currentUser.getRole() == UserRole.SELLER) {
             // 商家统计
-            Long sellerId = currentUser.getId();
-            stats.put("totalOrders", orderRepository.countBySellerId(sellerId));
-            stats.put("totalAmount", orderRepository.sumTotalAmountBySellerId(sellerId));
-            stats.put("pendingOrders", orderRepository.countBySellerIdAndStatus(sellerId, OrderStatus.PENDING));
-            stats.put("paidOrders", orderRepository.countBySellerIdAndStatus(sellerId, OrderStatus.PAID));
-            stats.put("deliveredOrders", orderRepository.countBySellerIdAndStatus(sellerId, OrderStatus.DELIVERED));
-            stats.put("completedOrders", orderRepository.countBySellerIdAndStatus(sellerId, OrderStatus.COMPLETED));
-            stats.put("cancelledOrders", orderRepository.countBySellerIdAndStatus(sellerId, OrderStatus.CANCELLED));
+            return orderStatsService.getSellerStats(currentUser.getId());
         } else {
             // 顾客统计
-            Long userId = currentUser.getId();
-            stats.put("totalOrders", orderRepository.countByUserId(userId));
-            stats.put("totalAmount", orderRepository.sumTotalAmountByUserId(userId));
-            stats.put("pendingOrders", orderRepository.countByUserIdAndStatus(userId, OrderStatus.PENDING));
-            stats.put("paidOrders", orderRepository.countByUserIdAndStatus(userId, OrderStatus.PAID));
-            stats.put("deliveredOrders", orderRepository.countByUserIdAndStatus(userId, OrderStatus.DELIVERED));
-            stats.put("completedOrders", orderRepository.countByUserIdAndStatus(userId, OrderStatus.COMPLETED));
-            stats.put("cancelledOrders", orderRepository.countByUserIdAndStatus(userId, OrderStatus.CANCELLED));
+            return orderStatsService.getUserStats(currentUser.getId());
         }
-
-        return stats;
     }
 
     /**
      * 删除订单
      */
     public void deleteOrder(Long id) {
-        Order order = getOrderById(id);
+        Order order = lockOrder(id);
         User currentUser = getCurrentUser();
 
         // 删除权限检查：只有管理员和订单所属用户可以删除
@@ -410,26 +334,7 @@ public class OrderService {
         orderItemRepository.deleteByOrderId(id);
         // 再删除订单
         orderRepository.deleteById(id);
-    }
-
-    /**
-     * 批量删除订单
-     */
-    public void batchDeleteOrders(List<Long> orderIds) {
-        User currentUser = getCurrentUser();
-
-        if (currentUser.getRole() != UserRole.ADMIN) {
-            throw new RuntimeException("只有管理员可以批量删除订单");
-        }
-
-        for (Long orderId : orderIds) {
-            try {
-                deleteOrder(orderId);
-            } catch (Exception e) {
-                // 记录错误但继续处理其他订单
-                System.err.println("删除订单失败: " + orderId + ", 错误: " + e.getMessage());
-            }
-        }
+        eventPublisher.publishEvent(OrderEvent.deleted(order, currentUser.getId()));
     }
 
     /**
@@ -465,35 +370,196 @@ public class OrderService {
     /**
      * 状态流转验证
      */
-    private void validateStatusTransition(OrderStatus currentStatus, OrderStatus newStatus, UserRole userRole) {
-        // 定义允许的状态转换
-        Map<OrderStatus, List<OrderStatus>> allowedTransitions = Map.of(
-                OrderStatus.PENDING, Arrays.asList(OrderStatus.PAID, OrderStatus.CANCELLED),
-                OrderStatus.PAID, Arrays.asList(OrderStatus.DELIVERED, OrderStatus.CANCELLED),
-                OrderStatus.DELIVERED, Arrays.asList(OrderStatus.COMPLETED),
-                OrderStatus.COMPLETED, List.of(),
-                OrderStatus.CANCELLED, List.of(),
-                OrderStatus.REFUNDED, List.of()
-        );
-
-        List<OrderStatus> allowed = allowedTransitions.get(currentStatus);
-        if (allowed == null || !allowed.contains(newStatus)) {
+    private void validateStatusTransition(OrderStatus currentStatus, OrderStatus newStatus) {
+        if (!currentStatus.canTransitionTo(newStatus)) {
             throw new RuntimeException("不允许从状态 " + currentStatus + " 转换到 " + newStatus);
         }
     }
 
+    /**
+     * 根据下单请求组装订单（尚未保存），订单项写入 orderItems
+     */
+    private Order buildOrder(Long userId, CreateOrderRequest request, Map<Long, Product> products,
+                             List<OrderItem> orderItems) {
+        Order order = newOrder(userId, request.getShippingAddress(), request.getReceiverName(),
+                request.getReceiverPhone(), request.getPaymentMethod());
+        order.setDiscountAmount(request.getDiscountAmount() != null ? request.getDiscountAmount() : BigDecimal.ZERO);
+        order.setShippingFee(request.getShippingFee() != null ? request.getShippingFee() : BigDecimal.ZERO);
+
+        // 处理订单项
+        Long sellerId = null;
+        for (CreateOrderRequest.OrderItemRequest itemRequest : request.getOrderItems()) {
+            Product product = products.get(itemRequest.getProductId());
+            if (product == null) {
+                throw new RuntimeException("商品不存在: " + itemRequest.getProductId());
+            }
+
+            // 设置商家ID（取第一个商品的商家）
+            if (sellerId == null) {
+                sellerId = product.getSellerId();
+            }
+
+            // 验证所有商品是否属于同一个商家
+            if (!product.getSellerId().equals(sellerId)) {
+                throw new RuntimeException("订单中的所有商品必须属于同一个商家");
+            }
+
+            orderItems.add(newOrderItem(product, itemRequest.getQuantity()));
+        }
+
+        if (sellerId == null) {
+            throw new RuntimeException("订单必须包含至少一个商品");
+        }
+
+        order.setSellerId(sellerId);
+        applyAmounts(order, orderItems);
+        return order;
+    }
+
+    /**
+     * 一次查询加载多个下单请求涉及的全部商品
+     */
+    private Map<Long, Product> loadProducts(List<CreateOrderRequest> requests) {
+        Set<Long> productIds = requests.stream()
+                .flatMap(r -> r.getOrderItems().stream())
+                .map(CreateOrderRequest.OrderItemRequest::getProductId)
+                .collect(Collectors.toSet());
+        return productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
+    }
+
+    /**
+     * 新建待支付订单（尚未保存）
+     */
+    private Order newOrder(Long userId, String shippingAddress, String receiverName,
+                           String receiverPhone, String paymentMethod) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumberGenerator.nextOrderNumber());
+        order.setUserId(userId);
+        order.setShippingAddress(shippingAddress);
+        order.setReceiverName(receiverName);
+        order.setReceiverPhone(receiverPhone);
+        order.setPaymentMethod(paymentMethod);
+        order.setStatus(OrderStatus.PENDING);
+        order.setCreateTime(LocalDateTime.now());
+        order.setUpdateTime(LocalDateTime.now());
+        return order;
+    }
+
+    /**
+     * 校验商品并创建订单项（尚未保存）
+     */
+    private OrderItem newOrderItem(Product product, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new RuntimeException("商品数量必须大于0: " + product.getName());
+        }
+
+        // 检查商品状态
+        if (product.getStatus() != ProductStatus.ON_SALE) {
+            throw new RuntimeException("商品已下架: " + product.getName());
+        }
+
+        OrderItem orderItem = new OrderItem();
+        orderItem.setProductId(product.getId());
+        orderItem.setQuantity(quantity);
+        orderItem.setPrice(product.getPrice());
+        orderItem.setCreateTime(LocalDateTime.now());
+        return orderItem;
+    }
+
+    /**
+     * 计算订单金额
+     */
+    private void applyAmounts(Order order, List<OrderItem> orderItems) {
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (OrderItem item : orderItems) {
+            totalAmount = totalAmount.add(item.getSubtotal());
+        }
+        order.setTotalAmount(totalAmount);
+        order.setActualAmount(totalAmount
+                .subtract(order.getDiscountAmount())
+                .add(order.getShippingFee()));
+    }
+
+    /**
+     * 扣减库存并批量保存订单及订单项
+     * 所有订单的库存扣减合并为一个批次，订单和订单项各一次批量插入
+     */
+    private List<Order> placeOrders(Map<Order, List<OrderItem>> drafts, Map<Long, Product> products) {
+        List<OrderItem> allItems = new ArrayList<>();
+        drafts.values().forEach(allItems::addAll);
+
+        // 扣减库存（条件更新，库存不足的商品一次性全部报告，异常会回滚已扣减的部分）
+        List<Long> shortages = inventoryService.deductStock(sumQuantities(allItems));
+        if (!shortages.isEmpty()) {
+            throw new RuntimeException(shortageMessage(shortages, products));
+        }
+
+        return saveOrders(drafts);
+    }
+
+    /**
+     * 批量保存订单及订单项（库存已扣减）
+     */
+    private List<Order> saveOrders(Map<Order, List<OrderItem>> drafts) {
+        // 保存订单
+        List<Order> orders = orderRepository.saveAll(drafts.keySet());
+
+        // 保存订单项（号段主键 + JDBC 批量插入，一个批次写入全部订单项）
+        List<OrderItem> allItems = new ArrayList<>();
+        for (Map.Entry<Order, List<OrderItem>> entry : drafts.entrySet()) {
+            for (OrderItem item : entry.getValue()) {
+                item.setOrderId(entry.getKey().getId());
+                allItems.add(item);
+            }
+        }
+        orderItemRepository.saveAll(allItems);
+
+        // 设置订单项关联（已在事务内）
+        drafts.forEach(Order::setOrderItems);
+        orders.forEach(order -> eventPublisher.publishEvent(OrderEvent.created(order)));
+        return orders;
+    }
+
+    private String shortageMessage(List<Long> shortages, Map<Long, Product> products) {
+        String names = shortages.stream()
+                .map(id -> products.get(id).getName())
+                .collect(Collectors.joining("、"));
+        return "商品库存不足: " + names;
+    }
+
+    /**
+     * 修改订单状态，同时记录支付/发货/收货时间
+     */
+    private void changeStatus(Order order, OrderStatus newStatus) {
+        LocalDateTime now = LocalDateTime.now();
+        order.setStatus(newStatus);
+        order.setUpdateTime(now);
+        switch (newStatus) {
+            case PAID -> order.setPaymentTime(now);
+            case DELIVERED -> order.setDeliveryTime(now);
+            case COMPLETED -> order.setReceiveTime(now);
+            default -> { }
+        }
+    }
+
     /**
      * 恢复库存（取消订单时调用）
      */
     private void restoreStock(Order order) {
         List<OrderItem> orderItems = orderItemRepository.findByOrderId(order.getId());
+        inventoryService.restoreStock(sumQuantities(orderItems));
+    }
 
+    /**
+     * 按商品汇总订单项数量（同一商品出现多次时合并为一次库存操作）
+     */
+    private Map<Long, Integer> sumQuantities(List<OrderItem> orderItems) {
+        Map<Long, Integer> quantities = new HashMap<>();
         for (OrderItem item : orderItems) {
-            Product product = productRepository.findById(item.getProductId())
-                    .orElseThrow(() -> new RuntimeException("商品不存在: " + item.getProductId()));
-            product.setStock(product.getStock() + item.getQuantity());
-            productRepository.save(product);
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
         }
+        return quantities;
     }
 
     /**
@@ -518,28 +584,15 @@ public class OrderService {
     }
 
     /**
-     * 生成订单号
-     */
-    private String generateOrderNumber() {
-        return "ORD" + System.currentTimeMillis() + (int)(Math.random() * 1000);
-    }
-
-    /**
-     * 在事务内强制初始化 orderItems 及其常用关联（防止 LazyInitializationException）
+     * 在事务内强制初始化 orderItems（防止 LazyInitializationException）
+     * orderItems 按批抓取，一页订单的订单项一次查出；商品信息由 OrderAssembler 按页批量查询
      */
     private void initializeOrders(List<Order> orders) {
         if (orders == null || orders.isEmpty()) return;
         try {
             for (Order o : orders) {
-                if (o == null) continue;
-                if (o.getOrderItems() != null) {
+                if (o != null && o.getOrderItems() != null) {
                     Hibernate.initialize(o.getOrderItems());
-                    o.getOrderItems().forEach(it -> {
-                        try {
-                            if (it.getProduct() != null) Hibernate.initialize(it.getProduct());
-                        } catch (Exception ignored) {
-                        }
-                    });
                 }
             }
         } catch (Exception ex) {
@@ -547,4 +600,4 @@ public class OrderService {
             System.err.println("初始化订单关联失败: " + ex.getMessage());
         }
     }
-}
\ No newline at end of file
+}
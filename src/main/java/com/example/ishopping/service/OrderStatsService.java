@@ -0,0 +1,345 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.entity.OrderStatus;
+import com.example.ishopping.event.OrderEvent;
+import com.example.ishopping.repository.ArchivedOrderRepository;
+import com.example.ishopping.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 订单统计引擎
+ * 在内存中按 全局/商家/顾客 维护各状态订单数和订单总额（以分计），订单事件提交后增量更新，
+ * 读取不访问数据库。启动时以及定期检查发现与数据库不一致时，用一次分组查询重建。
+ * 计数器比提交晚一步（提交后才由监听器更新），因此核对和重建都要等到没有进行中的订单事务时再查询，
+ * 查询结果和计数器才对应同一时刻；重建期间收到的事件同时记下，换上新计数器前重放，不会丢失。
+ */
+@Service
+public class OrderStatsService {
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 等待订单事务结束的最多尝试次数和每次间隔
+    @Value("${app.order.stats.quiet-attempts:5}")
+    private int quietAttempts;
+
+    @Value("${app.order.stats.quiet-retry-ms:200}")
+    private long quietRetryMs;
+
+    private volatile Snapshot snapshot = new Snapshot();
+
+    // 事件计入计数器时持读锁；核对和替换计数器时持写锁，期间计数器不变
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 已发布的订单事件数（事务内发布时即计数）和已结束（提交后计入或回滚）的事件数，两者相等时没有进行中的订单事务
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong settled = new AtomicLong();
+
+    // 重建期间收到的事件，换上新计数器前重放；不在重建时为 null
+    private volatile Queue<OrderEvent> replay;
+
+    // 热表和归档表的两次查询在同一个可重复读事务内执行，不受并发归档搬移的影响
+    private TransactionTemplate consistentRead;
+
+    @PostConstruct
+    public void init() {
+        consistentRead = new TransactionTemplate(transactionManager);
+        consistentRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        consistentRead.setReadOnly(true);
+    }
+
+    /**
+     * 订单事件发布（尚未提交）
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onOrderPublished(OrderEvent event) {
+        published.incrementAndGet();
+    }
+
+    /**
+     * 订单事件在事务提交后计入统计（回滚的变更不会计入），先于其他监听器执行，推送中附带的统计已包含本次变更
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onOrderEvent(OrderEvent event) {
+        lock.readLock().lock();
+        try {
+            apply(snapshot, event);
+            Queue<OrderEvent> buffer = replay;
+            if (buffer != null) {
+                buffer.add(event);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 订单事务结束（提交时在 onOrderEvent 之后执行，回滚时也会执行）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 2)
+    public void onOrderSettled(OrderEvent event) {
+        settled.incrementAndGet();
+    }
+
+    public Map<String, Object> getGlobalStats() {
+        return snapshot.global.toStats();
+    }
+
+    public Map<String, Object> getSellerStats(Long sellerId) {
+        return snapshot.bySeller.getOrDefault(sellerId, Counters.EMPTY).toStats();
+    }
+
+    public Map<String, Object> getUserStats(Long userId) {
+        return snapshot.byUser.getOrDefault(userId, Counters.EMPTY).toStats();
+    }
+
+    /**
+     * 从数据库重建全部计数器（热表和归档表各一次 GROUP BY 查询），完成后整体替换
+     * 归档只搬移已结束的订单，统计口径不因归档变化。
+     * 查询期间提交的事件先计入旧计数器并记下，替换前在新计数器上重放。查询开始时仍有订单事务未结束的话，
+     * 无法判断这些事务是否已包含在查询结果里，稍后重试；始终等不到时按重放结果替换，可能有少量偏差，由下次核对修正。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        for (int attempt = 1; ; attempt++) {
+            long mark;
+            boolean idle;
+            lock.writeLock().lock();
+            try {
+                replay = new ConcurrentLinkedQueue<>();
+                mark = published.get();
+                idle = settled.get() == mark;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            List<Object[]> rows = read(() -> {
+                List<Object[]> all = new ArrayList<>(orderRepository.aggregateBySellerUserAndStatus());
+                all.addAll(archivedOrderRepository.aggregateBySellerUserAndStatus());
+                return all;
+            });
+
+            lock.writeLock().lock();
+            try {
+                boolean exact = idle && published.get() == mark;
+                if (exact || attempt >= quietAttempts) {
+                    Snapshot rebuilt = new Snapshot();
+                    for (Object[] row : rows) {
+                        rebuilt.add((Long) row[0], (Long) row[1], (OrderStatus) row[2],
+                                (Long) row[3], toCents((BigDecimal) row[4]));
+                    }
+                    replay.forEach(event -> apply(rebuilt, event));
+                    snapshot = rebuilt;
+                    System.out.println("订单统计已重建，订单总数: " + rebuilt.global.orders.sum()
+                            + (exact ? "" : "（重建期间一直有订单事务进行，可能有少量偏差）"));
+                    return;
+                }
+            } finally {
+                replay = null;
+                lock.writeLock().unlock();
+            }
+            if (!pause()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 定期用一次按状态分组的计数核对全局计数器，不一致时重建。
+     * 只在查询前后都没有进行中的订单事务时比较，否则稍后重试，始终繁忙时跳过本轮。
+     */
+    @Scheduled(initialDelayString = "${app.order.stats.drift-check-ms:300000}",
+            fixedDelayString = "${app.order.stats.drift-check-ms:300000}")
+    public void checkDrift() {
+        for (int attempt = 1; attempt <= quietAttempts; attempt++) {
+            long mark = published.get();
+            if (settled.get() == mark) {
+                List<Object[]> rows = read(() -> {
+                    List<Object[]> all = new ArrayList<>(orderRepository.countGroupByStatus());
+                    all.addAll(archivedOrderRepository.countGroupByStatus());
+                    return all;
+                });
+                OrderStatus drifted = null;
+                lock.writeLock().lock();
+                try {
+                    if (published.get() == mark) {
+                        drifted = drifted(rows);
+                        if (drifted == null) {
+                            return;
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                if (drifted != null) {
+                    System.out.println("订单统计与数据库不一致（" + drifted + "），重建统计");
+                    rebuild();
+                    return;
+                }
+            }
+            if (attempt < quietAttempts && !pause()) {
+                return;
+            }
+        }
+        System.out.println("订单事务持续进行，跳过本轮统计核对");
+    }
+
+    /**
+     * 与数据库各状态订单数不一致的第一个状态，一致时返回 null
+     */
+    private OrderStatus drifted(List<Object[]> rows) {
+        Map<OrderStatus, Long> actual = new EnumMap<>(OrderStatus.class);
+        for (Object[] row : rows) {
+            actual.merge((OrderStatus) row[0], (Long) row[1], Long::sum);
+        }
+        Counters global = snapshot.global;
+        for (OrderStatus status : STATUSES) {
+            if (global.byStatus[status.ordinal()].sum() != actual.getOrDefault(status, 0L)) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    private List<Object[]> read(Supplier<List<Object[]>> query) {
+        return consistentRead.execute(status -> query.get());
+    }
+
+    /**
+     * 等待进行中的订单事务结束，被中断时返回 false
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(quietRetryMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void apply(Snapshot target, OrderEvent event) {
+        long cents = toCents(event.getTotalAmount());
+        if (event.isCreated()) {
+            target.add(event.getSellerId(), event.getUserId(), event.getNewStatus(), 1, cents);
+        } else if (event.isDeleted()) {
+            target.add(event.getSellerId(), event.getUserId(), event.getOldStatus(), -1, -cents);
+        } else {
+            target.move(event.getSellerId(), event.getUserId(), event.getOldStatus(), event.getNewStatus());
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * 一个维度（全局/某商家/某顾客）的计数器
+     */
+    private static final class Counters {
+
+        static final Counters EMPTY = new Counters();
+
+        final LongAdder[] byStatus = new LongAdder[STATUSES.length];
+        final LongAdder orders = new LongAdder();
+        final LongAdder amountCents = new LongAdder();
+
+        Counters() {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new LongAdder();
+            }
+        }
+
+        void add(OrderStatus status, long count, long cents) {
+            byStatus[status.ordinal()].add(count);
+            orders.add(count);
+            amountCents.add(cents);
+        }
+
+        void move(OrderStatus from, OrderStatus to) {
+            byStatus[from.ordinal()].decrement();
+            byStatus[to.ordinal()].increment();
+        }
+
+        Map<String, Object> toStats() {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("totalOrders", orders.sum());
+            stats.put("totalAmount", BigDecimal.valueOf(amountCents.sum(), 2));
+            stats.put("pendingOrders", byStatus[OrderStatus.PENDING.ordinal()].sum());
+            stats.put("paidOrders", byStatus[OrderStatus.PAID.ordinal()].sum());
+            stats.put("deliveredOrders", byStatus[OrderStatus.DELIVERED.ordinal()].sum());
+            stats.put("completedOrders", byStatus[OrderStatus.COMPLETED.ordinal()].sum());
+            stats.put("cancelledOrders", byStatus[OrderStatus.CANCELLED.ordinal()].sum());
+            return stats;
+        }
+    }
+
+    /**
+     * 全部维度的计数器，重建时整体替换
+     */
+    private static final class Snapshot {
+
+        final Counters global = new Counters();
+        final Map<Long, Counters> bySeller = new ConcurrentHashMap<>();
+        final Map<Long, Counters> byUser = new ConcurrentHashMap<>();
+
+        void add(Long sellerId, Long userId, OrderStatus status, long count, long cents) {
+            global.add(status, count, cents);
+            if (sellerId != null) {
+                bySeller.computeIfAbsent(sellerId, k -> new Counters()).add(status, count, cents);
+            }
+            if (userId != null) {
+                byUser.computeIfAbsent(userId, k -> new Counters()).add(status, count, cents);
+            }
+        }
+
+        void move(Long sellerId, Long userId, OrderStatus from, OrderStatus to) {
+            global.move(from, to);
+            if (sellerId != null) {
+                bySeller.computeIfAbsent(sellerId, k -> new Counters()).move(from, to);
+            }
+            if (userId != null) {
+                byUser.computeIfAbsent(userId, k -> new Counters()).move(from, to);
+            }
+        }
+    }
+}
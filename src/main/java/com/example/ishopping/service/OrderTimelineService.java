@@ -0,0 +1,77 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.entity.OrderStatusEvent;
+import com.example.ishopping.event.OrderEvent;
+import com.example.ishopping.repository.OrderStatusEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 订单状态时间线
+ * 订单事件提交后只进入内存队列，不在下单/改状态的事务里写库；后台定期把队列中的记录按批写入
+ * order_status_events（号段主键 + JDBC 批量插入），查询时间线前先刷写，保证能读到自己刚做的变更。
+ */
+@Service
+public class OrderTimelineService {
+
+    @Autowired
+    private OrderStatusEventRepository orderStatusEventRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.order.timeline.batch-size:500}")
+    private int batchSize;
+
+    private final Queue<OrderStatusEvent> pending = new ConcurrentLinkedQueue<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        pending.add(new OrderStatusEvent(event.getOrderId(), event.getOldStatus(), event.getNewStatus(),
+                event.getOperatorId(), event.getOccurredAt()));
+    }
+
+    /**
+     * 获取订单状态时间线（权限同订单详情，已归档的订单也可查）
+     */
+    public List<OrderStatusEvent> getTimeline(Long orderId) {
+        orderService.getOrderById(orderId, true);
+        flush();
+        return orderStatusEventRepository.findByOrderIdOrderByCreateTimeAscIdAsc(orderId);
+    }
+
+    /**
+     * 把队列中的记录按批写入数据库，写入失败的放回队列等待下次刷写
+     */
+    @Scheduled(fixedDelayString = "${app.order.timeline.flush-ms:1000}")
+    @PreDestroy
+    public synchronized void flush() {
+        while (!pending.isEmpty()) {
+            List<OrderStatusEvent> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            OrderStatusEvent next;
+            while (batch.size() < batchSize && (next = pending.poll()) != null) {
+                batch.add(next);
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> orderStatusEventRepository.saveAll(batch));
+            } catch (RuntimeException e) {
+                System.err.println("订单状态时间线写入失败，稍后重试: " + e.getMessage());
+                pending.addAll(batch);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品详情读穿缓存（按商品ID）
+ * 有界 LRU + 过期时间；同一商品同时未命中时只有一个线程查库，其余线程等待同一次加载结果，热门商品不会击穿到数据库。
+ * 商品修改和库存变化后同步失效；在事务中的修改在提交后再失效一次，避免提交前被并发读回旧值。
+ * 加载期间被失效的结果不写入缓存。命中率、缓存条数和加载耗时通过 Micrometer 暴露。
+ * 缓存的商品对象在多个请求间共享，只能读取，修改商品必须从数据库重新加载。
+ */
+@Service
+public class ProductCache {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.product.cache.size:10000}")
+    private int maxSize;
+
+    @Value("${app.product.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Map<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    // 正在加载的商品：同一商品的并发未命中共享一次加载
+    private final Map<Long, CompletableFuture<Optional<Product>>> loading = new ConcurrentHashMap<>();
+
+    private Counter hitCounter;
+    private Counter missCounter;
+    private Timer loadTimer;
+
+    @PostConstruct
+    public void registerMetrics() {
+        hitCounter = meterRegistry.counter("product.cache.requests", "result", "hit");
+        missCounter = meterRegistry.counter("product.cache.requests", "result", "miss");
+        loadTimer = Timer.builder("product.cache.load")
+                .description("缓存未命中时从数据库加载商品的耗时")
+                .register(meterRegistry);
+        Gauge.builder("product.cache.size", this, ProductCache::size)
+                .description("缓存中的商品数")
+                .register(meterRegistry);
+        Gauge.builder("product.cache.hit.ratio", this, ProductCache::hitRatio)
+                .description("商品缓存命中率")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 读取商品：命中直接返回，未命中时查库并写入缓存
+     */
+    public Optional<Product> get(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                if (now - entry.loadedAt < TimeUnit.SECONDS.toMillis(ttlSeconds)) {
+                    hitCounter.increment();
+                    return Optional.of(entry.product);
+                }
+                entries.remove(id);
+            }
+        }
+        missCounter.increment();
+
+        CompletableFuture<Optional<Product>> mine = new CompletableFuture<>();
+        CompletableFuture<Optional<Product>> existing = loading.putIfAbsent(id, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        Optional<Product> loaded;
+        try {
+            loaded = loadTimer.record(() -> productRepository.findById(id));
+        } catch (RuntimeException e) {
+            loading.remove(id, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (entries) {
+            // 加载期间被失效（loading 中的登记已被移除）时不写入缓存
+            if (loading.remove(id, mine) && loaded.isPresent()) {
+                entries.put(id, new Entry(loaded.get(), now));
+            }
+        }
+        mine.complete(loaded);
+        return loaded;
+    }
+
+    /**
+     * 立即失效
+     */
+    public void invalidate(Long id) {
+        if (id == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.remove(id);
+            loading.remove(id);
+        }
+    }
+
+    /**
+     * 立即失效，当前线程有事务时在提交后再失效一次（提交前并发读到的仍是旧数据）
+     */
+    public void invalidateAfterCommit(Collection<Long> ids) {
+        List<Long> copy = List.copyOf(ids);
+        copy.forEach(this::invalidate);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    copy.forEach(ProductCache.this::invalidate);
+                }
+            });
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public double hitRatio() {
+        double hits = hitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private record Entry(Product product, long loadedAt) {}
+}
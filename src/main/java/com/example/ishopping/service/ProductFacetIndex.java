@@ -0,0 +1,460 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.ProductFacetRequest;
+import com.example.ishopping.dto.ProductFacetResult;
+import com.example.ishopping.dto.ProductFacetResult.FacetCount;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.ProductStatus;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.util.CompressedBitmap;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 商品分面索引（全部状态的商品）
+ * 按分类、商家、状态、价格区间和是否有货各维护一组商品ID压缩位图，任意筛选条件组合由位图求交得到，
+ * 同时用交集计数给出每个分面取值下的商品数，不查询数据库。
+ * 商品增改删和库存增减后，由 ProductService、InventoryService 登记在事务提交后按数据库中已提交的值刷新对应商品。
+ * 启动时从数据库全量构建，构建完成前查询返回 null。
+ */
+@Service
+public class ProductFacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String SELLER = "seller";
+    public static final String PRICE = "price";
+    public static final String STATUS = "status";
+    public static final String IN_STOCK = "inStock";
+    private static final String KEYWORD = "keyword";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // 价格区间分界（元），如 50,100 表示 [0,50)、[50,100)、[100,+∞) 三个区间
+    @Value("${app.product.facet.price-bounds:50,100,200,500,1000,2000,5000}")
+    private String priceBoundsProperty;
+
+    // 分类、商家分面最多返回的取值个数（按商品数从多到少）
+    @Value("${app.product.facet.max-values:20}")
+    private int maxValues;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object refreshLock = new Object();
+
+    private BigDecimal[] priceBounds;
+    private CompressedBitmap[] byPrice;
+    private final Map<String, CompressedBitmap> byCategory = new HashMap<>();
+    private final Map<Long, CompressedBitmap> bySeller = new HashMap<>();
+    private final Map<ProductStatus, CompressedBitmap> byStatus = new EnumMap<>(ProductStatus.class);
+    private CompressedBitmap inStock = new CompressedBitmap();
+    private CompressedBitmap outOfStock = new CompressedBitmap();
+    private CompressedBitmap all = new CompressedBitmap();
+    // 每个商品当前所在的位置，修改时先从旧位置移除
+    private final Map<Integer, Doc> docs = new HashMap<>();
+
+    private volatile boolean ready;
+    // 构建期间被修改过的商品，构建结束后重新从数据库加载
+    private Set<Long> touchedWhileBuilding;
+
+    @PostConstruct
+    public void init() {
+        priceBounds = Arrays.stream(priceBoundsProperty.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(BigDecimal::new)
+                .sorted()
+                .toArray(BigDecimal[]::new);
+        byPrice = new CompressedBitmap[priceBounds.length + 1];
+        for (int i = 0; i < byPrice.length; i++) {
+            byPrice[i] = new CompressedBitmap();
+        }
+    }
+
+    /**
+     * 启动时构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long start = System.currentTimeMillis();
+        rebuild();
+        System.out.println("商品分面索引已构建: " + getDocumentCount() + " 个商品，耗时 "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * 从数据库全量构建
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            clear();
+            touchedWhileBuilding = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Product> products = productRepository.streamAll()) {
+                products.forEach(product -> {
+                    lock.writeLock().lock();
+                    try {
+                        if (!touchedWhileBuilding.contains(product.getId())) {
+                            put(product);
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                });
+            }
+        });
+        Set<Long> touched;
+        lock.writeLock().lock();
+        try {
+            touched = touchedWhileBuilding;
+            touchedWhileBuilding = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!touched.isEmpty()) {
+            refresh(touched);
+        }
+        ready = true;
+    }
+
+    /**
+     * 商品增改删或库存增减后刷新这些商品；当前线程有事务时在提交后执行（回滚的修改不生效），否则立即执行。
+     * 刷新时重新读取已提交的整行，而不是在索引里累加库存增量：各事务的提交后回调先后不定，
+     * 先执行的回调可能已读到后提交的扣减，再叠加增量就会重复计入。
+     */
+    public void refreshAfterCommit(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(productIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh(ids);
+                }
+            });
+        } else {
+            refresh(ids);
+        }
+    }
+
+    /**
+     * 从数据库读取商品的当前值写入索引；读取与写入整体串行，后读到的值不会被先读到的覆盖
+     */
+    void refresh(Collection<Long> productIds) {
+        synchronized (refreshLock) {
+            List<Object[]> rows = productRepository.findFacetsByIdIn(productIds);
+            lock.writeLock().lock();
+            try {
+                for (Object[] row : rows) {
+                    Long id = (Long) row[0];
+                    if (touchedWhileBuilding != null) {
+                        touchedWhileBuilding.add(id);
+                    }
+                    put(id, (String) row[1], (Long) row[2], (ProductStatus) row[3], (BigDecimal) row[4], (Integer) row[5]);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * 按条件筛选：返回满足条件的总数、第 offset 条起的 limit 个商品ID和各分面计数；索引未就绪时返回 null。
+     * ranked 不为空时只保留其中的商品并按其顺序分页（关键词搜索结果），否则按商品ID倒序（新品在前）。
+     */
+    public ProductFacetResult query(ProductFacetRequest request, List<Long> ranked, int offset, int limit) {
+        if (!ready) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Map<String, CompressedBitmap> filters = new LinkedHashMap<>();
+            if (ranked != null) {
+                CompressedBitmap hits = new CompressedBitmap();
+                ranked.forEach(id -> hits.add(docId(id)));
+                filters.put(KEYWORD, hits);
+            }
+            if (request.getCategory() != null && !request.getCategory().isEmpty()) {
+                filters.put(CATEGORY, orEmpty(byCategory.get(request.getCategory())));
+            }
+            if (request.getSellerId() != null) {
+                filters.put(SELLER, orEmpty(bySeller.get(request.getSellerId())));
+            }
+            if (request.getStatus() != null) {
+                filters.put(STATUS, orEmpty(byStatus.get(request.getStatus())));
+            }
+            if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+                filters.put(PRICE, priceRange(request.getMinPrice(), request.getMaxPrice()));
+            }
+            if (request.getInStock() != null) {
+                filters.put(IN_STOCK, request.getInStock() ? inStock : outOfStock);
+            }
+
+            CompressedBitmap matched = intersect(filters, null);
+            List<Long> ids = new ArrayList<>(Math.max(0, Math.min(limit, 100)));
+            if (ranked != null) {
+                int skipped = 0;
+                for (Long id : ranked) {
+                    if (ids.size() >= limit) {
+                        break;
+                    }
+                    if (matched.contains(docId(id)) && skipped++ >= offset) {
+                        ids.add(id);
+                    }
+                }
+            } else {
+                int[] skipped = {0};
+                matched.forEachDescending(id -> {
+                    if (ids.size() >= limit) {
+                        return false;
+                    }
+                    if (skipped[0]++ >= offset) {
+                        ids.add((long) id);
+                    }
+                    return true;
+                });
+            }
+
+            Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+            facets.put(CATEGORY, topCounts(intersect(filters, CATEGORY), byCategory, Function.identity()));
+            facets.put(SELLER, topCounts(intersect(filters, SELLER), bySeller, String::valueOf));
+            facets.put(PRICE, priceCounts(intersect(filters, PRICE)));
+            facets.put(STATUS, statusCounts(intersect(filters, STATUS)));
+            CompressedBitmap stockBase = intersect(filters, IN_STOCK);
+            List<FacetCount> stockCounts = new ArrayList<>(2);
+            addIfPositive(stockCounts, "true", stockBase.andCardinality(inStock));
+            addIfPositive(stockCounts, "false", stockBase.andCardinality(outOfStock));
+            facets.put(IN_STOCK, stockCounts);
+
+            return new ProductFacetResult(matched.cardinality(), ids, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 价格区间的标签，如 "50-100"、"5000+"
+     */
+    public String priceLabel(int bucket) {
+        String low = bucket == 0 ? "0" : priceBounds[bucket - 1].stripTrailingZeros().toPlainString();
+        if (bucket == priceBounds.length) {
+            return low + "+";
+        }
+        return low + "-" + priceBounds[bucket].stripTrailingZeros().toPlainString();
+    }
+
+    private void clear() {
+        byCategory.clear();
+        bySeller.clear();
+        byStatus.clear();
+        for (int i = 0; i < byPrice.length; i++) {
+            byPrice[i] = new CompressedBitmap();
+        }
+        inStock = new CompressedBitmap();
+        outOfStock = new CompressedBitmap();
+        all = new CompressedBitmap();
+        docs.clear();
+        ready = false;
+    }
+
+    private void put(Product product) {
+        put(product.getId(), product.getCategory(), product.getSellerId(), product.getStatus(),
+                product.getPrice(), product.getStock());
+    }
+
+    private void put(Long productId, String category, Long sellerId, ProductStatus status,
+                     BigDecimal price, Integer stock) {
+        int id = docId(productId);
+        Doc old = docs.remove(id);
+        if (old != null) {
+            removeFrom(byCategory, old.category, id);
+            removeFrom(bySeller, old.sellerId, id);
+            removeFrom(byStatus, old.status, id);
+            byPrice[old.priceBucket].remove(id);
+            stockBitmap(old.stock).remove(id);
+        }
+        BigDecimal docPrice = price != null ? price : BigDecimal.ZERO;
+        Doc doc = new Doc(category != null ? category : "", sellerId, status,
+                docPrice, priceBucket(docPrice), stock != null ? stock : 0);
+        docs.put(id, doc);
+        byCategory.computeIfAbsent(doc.category, k -> new CompressedBitmap()).add(id);
+        if (doc.sellerId != null) {
+            bySeller.computeIfAbsent(doc.sellerId, k -> new CompressedBitmap()).add(id);
+        }
+        if (doc.status != null) {
+            byStatus.computeIfAbsent(doc.status, k -> new CompressedBitmap()).add(id);
+        }
+        byPrice[doc.priceBucket].add(id);
+        stockBitmap(doc.stock).add(id);
+        all.add(id);
+    }
+
+    private static <K> void removeFrom(Map<K, CompressedBitmap> bitmaps, K key, int id) {
+        if (key == null) {
+            return;
+        }
+        CompressedBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private CompressedBitmap stockBitmap(int stock) {
+        return stock > 0 ? inStock : outOfStock;
+    }
+
+    private int priceBucket(BigDecimal price) {
+        int bucket = 0;
+        while (bucket < priceBounds.length && price.compareTo(priceBounds[bucket]) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * 价格在 [min, max] 内的商品：完全落在范围内的区间直接取并集，跨边界的区间逐个比较价格
+     */
+    private CompressedBitmap priceRange(BigDecimal min, BigDecimal max) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (int bucket = 0; bucket < byPrice.length; bucket++) {
+            BigDecimal low = bucket == 0 ? null : priceBounds[bucket - 1];
+            BigDecimal high = bucket == priceBounds.length ? null : priceBounds[bucket];
+            boolean belowMin = min != null && high != null && high.compareTo(min) <= 0;
+            boolean aboveMax = max != null && low != null && low.compareTo(max) > 0;
+            if (belowMin || aboveMax || byPrice[bucket].isEmpty()) {
+                continue;
+            }
+            boolean coversLow = min == null || (low != null && low.compareTo(min) >= 0) || (low == null && min.signum() <= 0);
+            boolean coversHigh = max == null || (high != null && high.compareTo(max) <= 0);
+            if (coversLow && coversHigh) {
+                result = result.or(byPrice[bucket]);
+                continue;
+            }
+            CompressedBitmap partial = new CompressedBitmap();
+            byPrice[bucket].forEachDescending(id -> {
+                BigDecimal price = docs.get(id).price;
+                if ((min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) <= 0)) {
+                    partial.add(id);
+                }
+                return true;
+            });
+            result = result.or(partial);
+        }
+        return result;
+    }
+
+    /**
+     * 除 except 以外所有条件的交集（分面计数不受自身条件限制）；从小的位图开始求交
+     */
+    private CompressedBitmap intersect(Map<String, CompressedBitmap> filters, String except) {
+        List<CompressedBitmap> bitmaps = new ArrayList<>(filters.size());
+        filters.forEach((name, bitmap) -> {
+            if (!name.equals(except)) {
+                bitmaps.add(bitmap);
+            }
+        });
+        if (bitmaps.isEmpty()) {
+            return all;
+        }
+        bitmaps.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+        CompressedBitmap result = bitmaps.get(0);
+        for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) {
+            result = result.and(bitmaps.get(i));
+        }
+        return result;
+    }
+
+    private <K> List<FacetCount> topCounts(CompressedBitmap base, Map<K, CompressedBitmap> bitmaps,
+                                           Function<K, String> label) {
+        List<FacetCount> counts = new ArrayList<>();
+        if (base.isEmpty()) {
+            return counts;
+        }
+        bitmaps.forEach((key, bitmap) -> addIfPositive(counts, label.apply(key), base.andCardinality(bitmap)));
+        counts.sort(Comparator.comparingLong(FacetCount::getCount).reversed().thenComparing(FacetCount::getValue));
+        return counts.size() > maxValues ? new ArrayList<>(counts.subList(0, maxValues)) : counts;
+    }
+
+    private List<FacetCount> priceCounts(CompressedBitmap base) {
+        List<FacetCount> counts = new ArrayList<>(byPrice.length);
+        for (int bucket = 0; bucket < byPrice.length; bucket++) {
+            addIfPositive(counts, priceLabel(bucket), base.andCardinality(byPrice[bucket]));
+        }
+        return counts;
+    }
+
+    private List<FacetCount> statusCounts(CompressedBitmap base) {
+        List<FacetCount> counts = new ArrayList<>(byStatus.size());
+        byStatus.forEach((status, bitmap) -> addIfPositive(counts, status.name(), base.andCardinality(bitmap)));
+        return counts;
+    }
+
+    private static void addIfPositive(List<FacetCount> counts, String value, int count) {
+        if (count > 0) {
+            counts.add(new FacetCount(value, count));
+        }
+    }
+
+    private static CompressedBitmap orEmpty(CompressedBitmap bitmap) {
+        return bitmap != null ? bitmap : new CompressedBitmap();
+    }
+
+    private static int docId(Long productId) {
+        return Math.toIntExact(productId);
+    }
+
+    private static final class Doc {
+        final String category;
+        final Long sellerId;
+        final ProductStatus status;
+        final BigDecimal price;
+        final int priceBucket;
+        final int stock;
+
+        Doc(String category, Long sellerId, ProductStatus status, BigDecimal price, int priceBucket, int stock) {
+            this.category = category;
+            this.sellerId = sellerId;
+            this.status = status;
+            this.price = price;
+            this.priceBucket = priceBucket;
+            this.stock = stock;
+        }
+    }
+}
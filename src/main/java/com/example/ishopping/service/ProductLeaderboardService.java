@@ -0,0 +1,381 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.ProductRank;
+import com.example.ishopping.event.OrderEvent;
+import com.example.ishopping.repository.OrderItemRepository;
+import com.example.ishopping.util.SpaceSavingSketch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 商品销量排行榜（按分类、按时间窗口）
+ * 每个 分类 × 窗口 是一组 Space-Saving 计数器：窗口切成若干时间片（近 24 小时按小时、近 7/30 天按天），
+ * 每片固定 capacity 个计数器，内存与订单量无关。下单/取消提交后只入队，后台定期一次查询这批订单的订单项，
+ * 按下单时间计入对应时间片；取消时从原时间片扣回。同一批的销量增量合并后以 JDBC 批量 UPDATE 写回 products.sales，
+ * 写回成功后同步给输入联想索引作为热度。
+ * 查询读取合并后缓存的排行，只有计数变化或时间片滚动后才重新合并。
+ * 排行定期快照到磁盘，重启时恢复；没有快照时“全部时间”窗口用 products.sales 初始化。
+ */
+@Service
+public class ProductLeaderboardService {
+
+    public enum Window {
+        DAY(24), WEEK(7), MONTH(30), ALL(1);
+
+        private final int slots;
+
+        Window(int slots) {
+            this.slots = slots;
+        }
+
+        // 时间片编号：DAY 按小时，WEEK/MONTH 按天，ALL 只有一片
+        long epochOf(LocalDateTime time) {
+            switch (this) {
+                case DAY:
+                    return time.toEpochSecond(ZoneOffset.UTC) / 3600;
+                case ALL:
+                    return 0;
+                default:
+                    return time.toLocalDate().toEpochDay();
+            }
+        }
+    }
+
+    // 全部分类的排行使用的分类键
+    private static final String ALL_CATEGORIES = "";
+
+    private static final int SNAPSHOT_MAGIC = 0x53534C42;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private static final String UPDATE_SALES_SQL = "UPDATE products SET sales = GREATEST(COALESCE(sales, 0) + ?, 0) WHERE id = ?";
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductSuggestIndex productSuggestIndex;
+
+    @Value("${app.product.leaderboard.capacity:200}")
+    private int capacity;
+
+    @Value("${app.product.leaderboard.max-results:100}")
+    private int maxResults;
+
+    @Value("${app.product.leaderboard.batch-size:500}")
+    private int batchSize;
+
+    // 为空时不做快照
+    @Value("${app.product.leaderboard.snapshot-file:}")
+    private String snapshotFile;
+
+    private final Map<String, EnumMap<Window, Board>> boards = new ConcurrentHashMap<>();
+
+    private final Queue<OrderEvent> pending = new ConcurrentLinkedQueue<>();
+
+    // 尚未写回 products.sales 的销量增量（只在 flush 中访问）
+    private final Map<Long, Long> pendingSales = new HashMap<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        if (event.getCountDelta() != 0 && event.getOrderCreateTime() != null) {
+            pending.add(event);
+        }
+    }
+
+    /**
+     * 销量排行（category 为空时为全部分类），不查询数据库
+     */
+    public List<ProductRank> getTopProducts(String category, Window window, int limit) {
+        if (limit <= 0) {
+            throw new RuntimeException("数量必须大于0");
+        }
+        String key = category == null || category.isBlank() ? ALL_CATEGORIES : category;
+        EnumMap<Window, Board> byWindow = boards.get(key);
+        if (byWindow == null) {
+            return List.of();
+        }
+        List<ProductRank> ranks = byWindow.get(window).top(window.epochOf(LocalDateTime.now()));
+        return ranks.size() <= limit ? ranks : ranks.subList(0, limit);
+    }
+
+    /**
+     * 处理队列中的订单事件：更新排行并把销量增量写回 products.sales
+     * 查询订单项失败的事件放回队列，写回失败的销量增量保留到下次
+     */
+    @Scheduled(fixedDelayString = "${app.product.leaderboard.flush-ms:1000}")
+    public synchronized void flush() {
+        while (!pending.isEmpty()) {
+            List<OrderEvent> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            OrderEvent next;
+            while (batch.size() < batchSize && (next = pending.poll()) != null) {
+                batch.add(next);
+            }
+            Map<Long, OrderEvent> events = new HashMap<>();
+            batch.forEach(event -> events.merge(event.getOrderId(), event, (a, b) -> a));
+            List<Object[]> rows;
+            try {
+                rows = orderItemRepository.sumQuantityByProductAndCategoryForOrderIdIn(events.keySet());
+            } catch (RuntimeException e) {
+                System.err.println("销量排行更新失败，稍后重试: " + e.getMessage());
+                pending.addAll(batch);
+                return;
+            }
+
+            Map<Long, List<Object[]>> itemsByOrder = new HashMap<>();
+            for (Object[] row : rows) {
+                itemsByOrder.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add(row);
+            }
+            for (OrderEvent event : batch) {
+                for (Object[] row : itemsByOrder.getOrDefault(event.getOrderId(), List.of())) {
+                    long productId = (Long) row[1];
+                    long quantity = ((Number) row[3]).longValue() * event.getCountDelta();
+                    record((String) row[2], productId, quantity, event.getOrderCreateTime());
+                    pendingSales.merge(productId, quantity, Long::sum);
+                }
+            }
+        }
+        writeSales();
+    }
+
+    /**
+     * 定期把排行快照到磁盘（先写临时文件再原子替换）
+     */
+    @Scheduled(fixedDelayString = "${app.product.leaderboard.snapshot-ms:60000}")
+    public void snapshot() {
+        if (snapshotFile.isBlank()) {
+            return;
+        }
+        Path target = Paths.get(snapshotFile);
+        try {
+            writeSnapshot(target);
+        } catch (IOException e) {
+            System.err.println("销量排行快照写入失败: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        snapshot();
+    }
+
+    /**
+     * 启动时从快照恢复；没有快照时用 products.sales 初始化“全部时间”排行
+     */
+    @PostConstruct
+    public void restore() {
+        if (!snapshotFile.isBlank() && Files.exists(Paths.get(snapshotFile))) {
+            try {
+                readSnapshot(Paths.get(snapshotFile));
+                System.out.println("销量排行已从快照恢复: " + snapshotFile);
+                return;
+            } catch (IOException e) {
+                System.err.println("销量排行快照读取失败，改用 products.sales 初始化: " + e.getMessage());
+                boards.clear();
+            }
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            jdbcTemplate.query("SELECT id, category, sales FROM products WHERE sales > 0",
+                    rs -> {
+                        record(rs.getString(2), rs.getLong(1), rs.getLong(3), now, Window.ALL);
+                    });
+        } catch (RuntimeException e) {
+            System.err.println("销量排行初始化失败: " + e.getMessage());
+        }
+    }
+
+    void writeSnapshot(Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            List<Map.Entry<String, EnumMap<Window, Board>>> entries = new ArrayList<>(boards.entrySet());
+            out.writeInt(entries.size());
+            for (Map.Entry<String, EnumMap<Window, Board>> entry : entries) {
+                out.writeUTF(entry.getKey());
+                for (Window window : Window.values()) {
+                    entry.getValue().get(window).writeTo(out);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    void readSnapshot(Path source) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("快照格式不匹配");
+            }
+            int categories = in.readInt();
+            for (int i = 0; i < categories; i++) {
+                EnumMap<Window, Board> byWindow = boardsOf(in.readUTF());
+                for (Window window : Window.values()) {
+                    byWindow.get(window).readFrom(in);
+                }
+            }
+        }
+    }
+
+    private void record(String category, long productId, long quantity, LocalDateTime orderTime) {
+        for (Window window : Window.values()) {
+            record(category, productId, quantity, orderTime, window);
+        }
+    }
+
+    // 同时计入商品所在分类和全部分类
+    private void record(String category, long productId, long quantity, LocalDateTime orderTime, Window window) {
+        long epoch = window.epochOf(orderTime);
+        long now = window.epochOf(LocalDateTime.now());
+        boardsOf(ALL_CATEGORIES).get(window).record(epoch, now, productId, quantity);
+        if (category != null && !category.isBlank()) {
+            boardsOf(category).get(window).record(epoch, now, productId, quantity);
+        }
+    }
+
+    private EnumMap<Window, Board> boardsOf(String category) {
+        return boards.computeIfAbsent(category, k -> {
+            EnumMap<Window, Board> byWindow = new EnumMap<>(Window.class);
+            for (Window window : Window.values()) {
+                byWindow.put(window, new Board(window.slots));
+            }
+            return byWindow;
+        });
+    }
+
+    private void writeSales() {
+        if (pendingSales.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(pendingSales.entrySet());
+        entries.removeIf(entry -> entry.getValue() == 0);
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SALES_SQL, entries, entries.size(), (statement, entry) -> {
+                statement.setLong(1, entry.getValue());
+                statement.setLong(2, entry.getKey());
+            });
+            productSuggestIndex.addSales(pendingSales);
+            pendingSales.clear();
+        } catch (RuntimeException e) {
+            System.err.println("商品销量写回失败，稍后重试: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 一个 分类 × 窗口 的排行：环形时间片，每片一个 Space-Saving 计数器组
+     */
+    private final class Board {
+
+        private final long[] epochs;
+        private final SpaceSavingSketch[] sketches;
+        // 合并后的排行缓存：计数变化时置空，时间片滚动后按新的 epoch 重新合并
+        private volatile Ranking cached;
+
+        Board(int slots) {
+            this.epochs = new long[slots];
+            this.sketches = new SpaceSavingSketch[slots];
+            Arrays.fill(epochs, Long.MIN_VALUE);
+            for (int i = 0; i < slots; i++) {
+                sketches[i] = new SpaceSavingSketch(capacity);
+            }
+        }
+
+        synchronized void record(long epoch, long now, long productId, long quantity) {
+            if (epoch <= now - epochs.length || epoch > now) {
+                // 已滑出窗口（或时钟回拨）的订单
+                return;
+            }
+            int slot = (int) Math.floorMod(epoch, (long) epochs.length);
+            if (quantity > 0) {
+                if (epochs[slot] != epoch) {
+                    if (epochs[slot] > epoch) {
+                        return;
+                    }
+                    sketches[slot].clear();
+                    epochs[slot] = epoch;
+                }
+                sketches[slot].add(productId, quantity);
+            } else if (epochs[slot] == epoch) {
+                sketches[slot].remove(productId, -quantity);
+            }
+            cached = null;
+        }
+
+        List<ProductRank> top(long now) {
+            Ranking ranking = cached;
+            if (ranking != null && ranking.epoch == now) {
+                return ranking.items;
+            }
+            synchronized (this) {
+                Map<Long, long[]> merged = new HashMap<>();
+                for (int i = 0; i < epochs.length; i++) {
+                    if (epochs[i] > now - epochs.length && epochs[i] <= now) {
+                        sketches[i].forEach((id, count, error) -> {
+                            long[] totals = merged.computeIfAbsent(id, k -> new long[2]);
+                            totals[0] += count;
+                            totals[1] += error;
+                        });
+                    }
+                }
+                List<ProductRank> items = new ArrayList<>(merged.size());
+                merged.forEach((id, totals) -> {
+                    if (totals[0] > 0) {
+                        items.add(new ProductRank(id, totals[0], totals[1]));
+                    }
+                });
+                items.sort(Comparator.comparingLong(ProductRank::getSales).reversed()
+                        .thenComparing(ProductRank::getProductId));
+                List<ProductRank> top = List.copyOf(items.size() <= maxResults ? items : items.subList(0, maxResults));
+                cached = new Ranking(now, top);
+                return top;
+            }
+        }
+
+        synchronized void writeTo(DataOutput out) throws IOException {
+            out.writeInt(epochs.length);
+            for (int i = 0; i < epochs.length; i++) {
+                out.writeLong(epochs[i]);
+                sketches[i].writeTo(out);
+            }
+        }
+
+        synchronized void readFrom(DataInput in) throws IOException {
+            int slots = in.readInt();
+            if (slots != epochs.length) {
+                throw new IOException("快照时间片数不匹配");
+            }
+            for (int i = 0; i < slots; i++) {
+                epochs[i] = in.readLong();
+                sketches[i].readFrom(in);
+            }
+            cached = null;
+        }
+    }
+
+    private record Ranking(long epoch, List<ProductRank> items) {}
+}
@@ -0,0 +1,417 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.ProductStatus;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.util.PostingList;
+import com.example.ishopping.util.TextTokenizer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 在售商品全文索引（名称、描述、分类）
+ * 中文按二元组、英文和数字按词切分，每个词一张压缩倒排表；查询要求所有查询词都命中，按 BM25 排序
+ * （名称中的词按 3 倍、分类按 2 倍词频计算）。商品增改删时由 ProductService 同步更新，只索引在售商品。
+ * 启动时优先从快照文件（内存映射读取）恢复并补上快照之后修改过的商品，没有快照时从数据库全量构建；
+ * 构建完成前以及查询只含单个汉字时返回 null，由调用方回退到数据库 LIKE 查询。
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int SNAPSHOT_MAGIC = 0x50534958;
+    private static final int SNAPSHOT_VERSION = 1;
+    // 快照恢复后按 update_time 追平时往前多取的时间，覆盖数据库与应用之间的时钟差
+    private static final long CATCH_UP_MARGIN_MINUTES = 5;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // 为空时不做快照
+    @Value("${app.product.search.index-file:}")
+    private String indexFile;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<PostingList> postings = new ArrayList<>();
+    private final Map<Integer, Doc> docs = new HashMap<>();
+    private long totalLength;
+
+    private volatile boolean ready;
+    // 修改计数：与上次快照时的计数相同则不必重写快照
+    private volatile long version;
+    private volatile long snapshotVersion = -1;
+    // 构建期间被修改过的商品，构建时不再用读到的旧数据覆盖
+    private Set<Integer> touchedWhileBuilding;
+
+    /**
+     * 启动时恢复或构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long start = System.currentTimeMillis();
+        if (!indexFile.isBlank() && Files.exists(Paths.get(indexFile))) {
+            try {
+                LocalDateTime snapshotTime = readSnapshot(Paths.get(indexFile));
+                productRepository.findByUpdateTimeGreaterThanEqual(snapshotTime.minusMinutes(CATCH_UP_MARGIN_MINUTES))
+                        .forEach(this::update);
+                ready = true;
+                System.out.println("商品搜索索引已从快照恢复: " + getDocumentCount() + " 个商品，耗时 "
+                        + (System.currentTimeMillis() - start) + " ms");
+                return;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("商品搜索索引快照读取失败，改为全量构建: " + e.getMessage());
+                clear();
+            }
+        }
+        rebuild();
+        System.out.println("商品搜索索引已构建: " + getDocumentCount() + " 个商品，耗时 "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * 从数据库全量构建
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            clear();
+            touchedWhileBuilding = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Product> products = productRepository.streamByStatus(ProductStatus.ON_SALE)) {
+                products.forEach(product -> {
+                    lock.writeLock().lock();
+                    try {
+                        if (!touchedWhileBuilding.contains(docId(product))) {
+                            put(product);
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                });
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            touchedWhileBuilding = null;
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+    }
+
+    /**
+     * 当前线程有事务时在提交后调用 update（回滚的修改不进入索引，也不会写进快照），否则立即调用
+     */
+    public void updateAfterCommit(Product product) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update(product);
+                }
+            });
+        } else {
+            update(product);
+        }
+    }
+
+    /**
+     * 商品新增或修改后更新索引（非在售商品从索引中移除）
+     */
+    public void update(Product product) {
+        lock.writeLock().lock();
+        try {
+            int doc = docId(product);
+            if (touchedWhileBuilding != null) {
+                touchedWhileBuilding.add(doc);
+            }
+            removeDoc(doc);
+            if (product.getStatus() == ProductStatus.ON_SALE) {
+                put(product);
+            }
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按相关度返回第 offset 条起的 limit 个商品ID；索引不可用或查询无法由索引回答时返回 null
+     */
+    public List<Long> search(String keyword, int offset, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(TextTokenizer.tokenize(keyword)));
+        if (!ready || queryTerms.isEmpty() || queryTerms.stream().anyMatch(TextTokenizer::isSingleCjk)) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = new ArrayList<>(queryTerms.size());
+            for (String term : queryTerms) {
+                Integer termId = termIds.get(term);
+                if (termId == null || postings.get(termId).size() == 0) {
+                    return List.of();
+                }
+                lists.add(postings.get(termId));
+            }
+            // 从最短的倒排表开始，候选集只会缩小
+            lists.sort(Comparator.comparingInt(PostingList::size));
+
+            int documentCount = docs.size();
+            double averageLength = documentCount == 0 ? 1 : (double) totalLength / documentCount;
+            Map<Integer, double[]> scores = new HashMap<>();
+            for (int i = 0; i < lists.size(); i++) {
+                PostingList list = lists.get(i);
+                double idf = Math.log(1 + (documentCount - list.size() + 0.5) / (list.size() + 0.5));
+                int required = i;
+                list.forEach((doc, freq) -> {
+                    double[] score = required == 0 ? scores.computeIfAbsent(doc, k -> new double[2]) : scores.get(doc);
+                    if (score == null || score[1] != required) {
+                        return;
+                    }
+                    double norm = K1 * (1 - B + B * docs.get(doc).length / averageLength);
+                    score[0] += idf * freq * (K1 + 1) / (freq + norm);
+                    score[1]++;
+                });
+            }
+
+            // 最小堆保留前 offset + limit 个
+            int wanted = offset + limit;
+            PriorityQueue<Map.Entry<Integer, double[]>> top = new PriorityQueue<>(Comparator
+                    .comparingDouble((Map.Entry<Integer, double[]> e) -> e.getValue()[0])
+                    .thenComparing(Map.Entry::getKey, Comparator.reverseOrder()));
+            for (Map.Entry<Integer, double[]> entry : scores.entrySet()) {
+                if (entry.getValue()[1] != lists.size()) {
+                    continue;
+                }
+                top.add(entry);
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+            List<Long> ranked = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                ranked.add(top.poll().getKey().longValue());
+            }
+            Collections.reverse(ranked);
+            return offset >= ranked.size() ? List.of() : ranked.subList(offset, ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 定期把有变化的索引写入快照文件（先写临时文件再原子替换）
+     */
+    @Scheduled(fixedDelayString = "${app.product.search.snapshot-ms:300000}")
+    @PreDestroy
+    public void snapshot() {
+        if (indexFile.isBlank() || !ready || version == snapshotVersion) {
+            return;
+        }
+        try {
+            writeSnapshot(Paths.get(indexFile));
+        } catch (IOException e) {
+            System.err.println("商品搜索索引快照写入失败: " + e.getMessage());
+        }
+    }
+
+    void writeSnapshot(Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        // 读锁下写出：查询可以并发，修改等待写完
+        long writtenVersion;
+        lock.readLock().lock();
+        writtenVersion = version;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            writeString(out, LocalDateTime.now().toString());
+            out.writeInt(terms.size());
+            for (int i = 0; i < terms.size(); i++) {
+                PostingList list = postings.get(i);
+                byte[] encoded = list.encoded();
+                writeString(out, terms.get(i));
+                out.writeInt(list.size());
+                out.writeInt(encoded.length);
+                out.write(encoded);
+            }
+            out.writeInt(docs.size());
+            for (Map.Entry<Integer, Doc> entry : docs.entrySet()) {
+                Doc doc = entry.getValue();
+                out.writeInt(entry.getKey());
+                out.writeInt(doc.length);
+                out.writeInt(doc.termIds.length);
+                for (int i = 0; i < doc.termIds.length; i++) {
+                    out.writeInt(doc.termIds[i]);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        snapshotVersion = writtenVersion;
+    }
+
+    /**
+     * 以内存映射方式读取快照，替换当前索引，返回快照时间
+     */
+    LocalDateTime readSnapshot(Path source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+                throw new IOException("快照格式不匹配");
+            }
+            LocalDateTime snapshotTime = LocalDateTime.parse(readString(buffer));
+            lock.writeLock().lock();
+            try {
+                clear();
+                int termCount = buffer.getInt();
+                for (int i = 0; i < termCount; i++) {
+                    String term = readString(buffer);
+                    int count = buffer.getInt();
+                    byte[] encoded = new byte[buffer.getInt()];
+                    buffer.get(encoded);
+                    termIds.put(term, i);
+                    terms.add(term);
+                    postings.add(PostingList.fromEncoded(encoded, count));
+                }
+                int docCount = buffer.getInt();
+                for (int i = 0; i < docCount; i++) {
+                    int doc = buffer.getInt();
+                    int length = buffer.getInt();
+                    int[] docTerms = new int[buffer.getInt()];
+                    for (int j = 0; j < docTerms.length; j++) {
+                        docTerms[j] = buffer.getInt();
+                    }
+                    docs.put(doc, new Doc(docTerms, length));
+                    totalLength += length;
+                }
+                snapshotVersion = version;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return snapshotTime;
+        }
+    }
+
+    private void clear() {
+        termIds.clear();
+        terms.clear();
+        postings.clear();
+        docs.clear();
+        totalLength = 0;
+    }
+
+    // 调用方持有写锁
+    private void put(Product product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        TextTokenizer.tokenize(product.getName()).forEach(t -> frequencies.merge(t, NAME_WEIGHT, Integer::sum));
+        TextTokenizer.tokenize(product.getCategory()).forEach(t -> frequencies.merge(t, CATEGORY_WEIGHT, Integer::sum));
+        TextTokenizer.tokenize(product.getDescription()).forEach(t -> frequencies.merge(t, 1, Integer::sum));
+
+        int doc = docId(product);
+        int[] docTerms = new int[frequencies.size()];
+        int length = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            int termId = termIds.computeIfAbsent(entry.getKey(), term -> {
+                terms.add(term);
+                postings.add(new PostingList());
+                return terms.size() - 1;
+            });
+            postings.get(termId).add(doc, entry.getValue());
+            docTerms[i++] = termId;
+            length += entry.getValue();
+        }
+        docs.put(doc, new Doc(docTerms, length));
+        totalLength += length;
+    }
+
+    // 调用方持有写锁
+    private void removeDoc(int doc) {
+        Doc existing = docs.remove(doc);
+        if (existing == null) {
+            return;
+        }
+        for (int termId : existing.termIds) {
+            postings.get(termId).remove(doc);
+        }
+        totalLength -= existing.length;
+    }
+
+    private static int docId(Product product) {
+        return Math.toIntExact(product.getId());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 正排信息：删除或修改商品时据此从倒排表中移除
+     */
+    private record Doc(int[] termIds, int length) {}
+}
@@ -1,21 +1,31 @@
 package com.example.ishopping.service;
 
+import com.example.ishopping.dto.CategoryCount;
+import com.example.ishopping.dto.CursorPage;
+import com.example.ishopping.dto.ProductFacetRequest;
+import com.example.ishopping.dto.ProductFacetResult;
+import com.example.ishopping.dto.ProductSummary;
 import com.example.ishopping.entity.Product;
 import com.example.ishopping.entity.ProductStatus;
 import com.example.ishopping.entity.User;
 import com.example.ishopping.entity.UserRole;
 import com.example.ishopping.repository.ProductRepository;
 import com.example.ishopping.repository.UserRepository;
+import com.example.ishopping.util.PageCursor;
 import com.example.ishopping.util.UserContext;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
@@ -26,20 +36,33 @@ public class ProductService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private ProductSuggestIndex productSuggestIndex;
+
+    @Autowired
+    private CategoryRegistry categoryRegistry;
+
     /**
      * 获取在售商品列表（带分页）
      */
-    public List<Product> getAvailableProducts(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Product> productPage = productRepository.findByStatusOrderByCreateTimeDesc(ProductStatus.ON_SALE, pageable);
-        return productPage.getContent();
+    public List<ProductSummary> getAvailableProducts(int page, int size) {
+        return productRepository.findSummariesByStatus(ProductStatus.ON_SALE, PageRequest.of(page, size));
     }
 
     /**
-     * 根据ID获取商品
+     * 根据ID获取商品（读缓存，返回的对象只读）
      */
     public Product getProductById(Long id) {
-        Optional<Product> product = productRepository.findById(id);
+        Optional<Product> product = productCache.get(id);
         return product.orElseThrow(() -> new RuntimeException("商品不存在"));
     }
 
@@ -64,20 +87,29 @@ public class ProductService {
         // 验证必要字段
         validateProduct(product);
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productCache.invalidate(saved.getId());
+        productSearchIndex.updateAfterCommit(saved);
+        productFacetIndex.refreshAfterCommit(List.of(saved.getId()));
+        productSuggestIndex.updateAfterCommit(saved);
+        categoryRegistry.moved(null, CategoryRegistry.Slot.of(saved));
+        return saved;
     }
 
     /**
      * 更新商品（只能更新自己的商品）
+     * 锁定商品行后再读取原状态，与并发的库存增减串行，分类目录按提交时的前后状态调整
      */
+    @Transactional
     public Product updateProduct(Long id, Product productDetails) {
-        Product existingProduct = getProductById(id);
+        Product existingProduct = lockProduct(id);
         User currentUser = getCurrentUser();
 
         // 验证商品所有权
         if (!existingProduct.getSellerId().equals(currentUser.getId())) {
             throw new RuntimeException("只能修改自己的商品");
         }
+        CategoryRegistry.Slot before = CategoryRegistry.Slot.of(existingProduct);
 
         // 更新允许修改的字段
         if (productDetails.getName() != null) {
@@ -101,69 +133,145 @@ public class ProductService {
 
         existingProduct.setUpdateTime(LocalDateTime.now());
 
-        return productRepository.save(existingProduct);
+        Product saved = productRepository.save(existingProduct);
+        productCache.invalidateAfterCommit(List.of(id));
+        productSearchIndex.updateAfterCommit(saved);
+        productFacetIndex.refreshAfterCommit(List.of(saved.getId()));
+        productSuggestIndex.updateAfterCommit(saved);
+        categoryRegistry.movedAfterCommit(before, CategoryRegistry.Slot.of(saved));
+        return saved;
     }
 
     /**
      * 删除商品（软删除）
      */
+    @Transactional
     public void deleteProduct(Long id) {
-        Product product = getProductById(id);
+        Product product = lockProduct(id);
         User currentUser = getCurrentUser();
 
         // 验证商品所有权
         if (!product.getSellerId().equals(currentUser.getId())) {
             throw new RuntimeException("只能删除自己的商品");
         }
+        CategoryRegistry.Slot before = CategoryRegistry.Slot.of(product);
 
         // 软删除：修改状态为下架
         product.setStatus(ProductStatus.OFF_SALE);
         product.setUpdateTime(LocalDateTime.now());
         productRepository.save(product);
+        productCache.invalidateAfterCommit(List.of(id));
+        productSearchIndex.updateAfterCommit(product);
+        productFacetIndex.refreshAfterCommit(List.of(product.getId()));
+        productSuggestIndex.updateAfterCommit(product);
+        categoryRegistry.movedAfterCommit(before, CategoryRegistry.Slot.of(product));
     }
 
     /**
      * 获取当前商家的商品列表（带分页）
      */
-    public List<Product> getProductsByCurrentSeller(int page, int size) {
+    public List<ProductSummary> getProductsByCurrentSeller(int page, int size) {
         User currentUser = getCurrentUser();
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Product> productPage = productRepository.findBySellerIdOrderByCreateTimeDesc(currentUser.getId(), pageable);
-        return productPage.getContent();
+        return productRepository.findSummariesBySellerId(currentUser.getId(), PageRequest.of(page, size));
+    }
+
+    /**
+     * 获取当前商家的商品列表（游标分页）
+     */
+    public CursorPage<ProductSummary> getProductsByCurrentSeller(String cursor, int size) {
+        User currentUser = getCurrentUser();
+        PageCursor position = startOf(cursor);
+        List<ProductSummary> products = productRepository.findSliceBySellerId(
+                currentUser.getId(), position.createTime(), position.id(), PageRequest.of(0, size + 1));
+        return CursorPage.of(products, size, p -> new PageCursor(p.getCreateTime(), p.getId()));
+    }
+
+    /**
+     * 获取在售商品列表（游标分页，可按分类或关键词筛选）
+     */
+    public CursorPage<ProductSummary> getAvailableProducts(String category, String keyword, String cursor, int size) {
+        PageCursor position = startOf(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<ProductSummary> products;
+        if (category != null && !category.isEmpty()) {
+            products = productRepository.findSliceByCategoryAndStatus(
+                    category, ProductStatus.ON_SALE, position.createTime(), position.id(), limit);
+        } else if (keyword != null && !keyword.isEmpty()) {
+            products = productRepository.findSliceByKeywordAndStatus(
+                    keyword, ProductStatus.ON_SALE, position.createTime(), position.id(), limit);
+        } else {
+            products = productRepository.findSliceByStatus(
+                    ProductStatus.ON_SALE, position.createTime(), position.id(), limit);
+        }
+        return CursorPage.of(products, size, p -> new PageCursor(p.getCreateTime(), p.getId()));
     }
 
     /**
      * 根据分类获取商品
      */
-    public List<Product> getProductsByCategory(String category, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Product> productPage = productRepository.findByCategoryAndStatusOrderByCreateTimeDesc(category, ProductStatus.ON_SALE, pageable);
-        return productPage.getContent();
+    public List<ProductSummary> getProductsByCategory(String category, int page, int size) {
+        return productRepository.findSummariesByCategoryAndStatus(category, ProductStatus.ON_SALE, PageRequest.of(page, size));
     }
 
     /**
-     * 搜索商品
+     * 搜索商品：优先使用全文索引按相关度排序，索引不可用时按创建时间 LIKE 查询
      */
-    public List<Product> searchProducts(String keyword, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Product> productPage = productRepository.findByNameContainingOrDescriptionContainingAndStatus(keyword, ProductStatus.ON_SALE, pageable);
-        return productPage.getContent();
+    public List<ProductSummary> searchProducts(String keyword, int page, int size) {
+        List<Long> ids = productSearchIndex.search(keyword, page * size, size);
+        if (ids != null) {
+            return loadInOrder(ids);
+        }
+        return productRepository.findSummariesByKeywordAndStatus(keyword, ProductStatus.ON_SALE, PageRequest.of(page, size));
+    }
+
+    /**
+     * 分面筛选：分类、商家、价格区间、是否有货、状态和关键词可任意组合，返回一页商品和各分面计数。
+     * 非在售状态只有商家可以查询，且只能查看自己的商品。
+     */
+    public ProductFacetResult browseProducts(ProductFacetRequest request) {
+        if (request.getStatus() != ProductStatus.ON_SALE) {
+            User currentUser = getCurrentUser();
+            if (currentUser.getRole() != UserRole.SELLER) {
+                throw new RuntimeException("只有商家可以查看非在售商品");
+            }
+            request.setSellerId(currentUser.getId());
+        }
+        int page = Math.max(request.getPage(), 0);
+        int size = Math.min(Math.max(request.getSize(), 1), 100);
+
+        List<Long> ranked = null;
+        String keyword = request.getKeyword();
+        if (keyword != null && !keyword.isBlank()) {
+            // 全文索引只含在售商品，按相关度排序；其他情况按 LIKE 取ID
+            if (request.getStatus() == ProductStatus.ON_SALE) {
+                ranked = productSearchIndex.search(keyword, 0, Integer.MAX_VALUE);
+            }
+            if (ranked == null) {
+                ranked = productRepository.findIdsByKeyword(keyword);
+            }
+        }
+
+        ProductFacetResult result = productFacetIndex.query(request, ranked, page * size, size);
+        if (result == null) {
+            throw new RuntimeException("商品筛选索引正在构建，请稍后重试");
+        }
+        result.setItems(loadInOrder(result.getIds()));
+        return result;
     }
 
     /**
-     * 获取所有分类
+     * 获取所有分类（有在售商品的分类及商品数，读内存快照）
      */
-    public List<String> getAllCategories() {
-        // 这里需要实现获取所有分类的逻辑
-        // 暂时返回常用分类
-        return List.of("手机", "电脑", "家电", "服装", "食品", "美妆", "运动", "图书", "其他");
+    public List<CategoryCount> getAllCategories() {
+        return categoryRegistry.getCategories();
     }
 
     /**
      * 设置商品图片
      */
+    @Transactional
     public Product setProductImage(Long productId, String imageUrl) {
-        Product product = getProductById(productId);
+        Product product = lockProduct(productId);
         User currentUser = getCurrentUser();
 
         // 验证商品所有权
@@ -173,14 +281,17 @@ public class ProductService {
 
         product.setImageUrl(imageUrl);
         product.setUpdateTime(LocalDateTime.now());
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productCache.invalidateAfterCommit(List.of(productId));
+        return saved;
     }
 
     /**
      * 移除商品图片
      */
+    @Transactional
     public Product removeProductImage(Long productId) {
-        Product product = getProductById(productId);
+        Product product = lockProduct(productId);
         User currentUser = getCurrentUser();
 
         // 验证商品所有权
@@ -190,7 +301,33 @@ public class ProductService {
 
         product.setImageUrl(null);
         product.setUpdateTime(LocalDateTime.now());
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productCache.invalidateAfterCommit(List.of(productId));
+        return saved;
+    }
+
+    /**
+     * 修改商品前从数据库加载（不修改缓存中共享的对象）
+     */
+    private Product lockProduct(Long id) {
+        return productRepository.findByIdForUpdate(id).orElseThrow(() -> new RuntimeException("商品不存在"));
+    }
+
+    /**
+     * 按给定ID顺序加载列表项（一次查询）
+     */
+    private List<ProductSummary> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductSummary> products = productRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductSummary::getId, Function.identity()));
+        return ids.stream().map(products::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private PageCursor startOf(String cursor) {
+        PageCursor position = PageCursor.decode(cursor);
+        return position != null ? position : PageCursor.START;
     }
 
     /**
@@ -0,0 +1,359 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.ProductSuggestion;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.ProductStatus;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.util.SuggestionTrie;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 搜索框输入联想：在售商品的名称和分类按前缀匹配，按热度（销量 + 商品数）返回前几名，不查询数据库。
+ * 词按小写存入带前 k 名的压缩前缀树（SuggestionTrie）；商品增改删时由 ProductService 同步更新，
+ * 销量变化由 ProductLeaderboardService 写回 products.sales 后按增量更新。启动时从数据库全量构建。
+ * 词数、节点数和估算内存占用以 Micrometer 指标暴露，查询耗时记录 p99。
+ */
+@Service
+public class ProductSuggestIndex {
+
+    public static final String TYPE_PRODUCT = "PRODUCT";
+    public static final String TYPE_CATEGORY = "CATEGORY";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 每个前缀保存的候选数，也是单次联想返回数量的上限
+    @Value("${app.product.suggest.top-k:10}")
+    private int topK;
+
+    // 内存估算需要遍历整棵树，两次估算之间至少间隔的时间
+    @Value("${app.product.suggest.memory-refresh-ms:30000}")
+    private long memoryRefreshMs;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private SuggestionTrie trie;
+    // 小写词 -> 联想词（显示文本、引用它的商品数、累计销量）
+    private final Map<String, Term> terms = new HashMap<>();
+    // 已收录的在售商品，修改或下架时用来撤销旧的名称、分类和销量
+    private final Map<Long, Entry> products = new HashMap<>();
+
+    private volatile boolean ready;
+    // 构建期间被修改过的商品，构建结束后重新从数据库加载
+    private Set<Long> touchedWhileBuilding;
+
+    private Timer queryTimer;
+    private volatile long estimatedBytes;
+    private volatile long estimatedAt;
+
+    @PostConstruct
+    public void init() {
+        trie = new SuggestionTrie(topK);
+        queryTimer = Timer.builder("product.suggest.query")
+                .description("输入联想查询耗时")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("product.suggest.terms", this, ProductSuggestIndex::getTermCount)
+                .description("联想词数")
+                .register(meterRegistry);
+        Gauge.builder("product.suggest.nodes", this, ProductSuggestIndex::getNodeCount)
+                .description("前缀树节点数")
+                .register(meterRegistry);
+        Gauge.builder("product.suggest.memory", this, ProductSuggestIndex::getEstimatedBytes)
+                .description("联想索引估算占用的堆内存")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 启动时构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long start = System.currentTimeMillis();
+        rebuild();
+        System.out.println("商品联想索引已构建: " + getTermCount() + " 个词，" + getNodeCount() + " 个节点，约 "
+                + getEstimatedBytes() / 1024 + " KB，耗时 " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * 从数据库全量构建
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            trie = new SuggestionTrie(topK);
+            terms.clear();
+            products.clear();
+            estimatedAt = 0;
+            ready = false;
+            touchedWhileBuilding = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Product> stream = productRepository.streamByStatus(ProductStatus.ON_SALE)) {
+                stream.forEach(product -> {
+                    lock.writeLock().lock();
+                    try {
+                        if (!touchedWhileBuilding.contains(product.getId())) {
+                            put(product);
+                        }
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                });
+            }
+        });
+        Set<Long> touched;
+        lock.writeLock().lock();
+        try {
+            touched = touchedWhileBuilding;
+            touchedWhileBuilding = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!touched.isEmpty()) {
+            productRepository.findAllById(touched).forEach(this::update);
+        }
+        ready = true;
+    }
+
+    /**
+     * 当前线程有事务时在提交后调用 update（回滚的改名、下架不进入索引），否则立即调用
+     */
+    public void updateAfterCommit(Product product) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update(product);
+                }
+            });
+        } else {
+            update(product);
+        }
+    }
+
+    /**
+     * 商品新增或修改后更新（非在售商品移除）
+     */
+    public void update(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (touchedWhileBuilding != null) {
+                touchedWhileBuilding.add(product.getId());
+            }
+            put(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 商品销量变化（增量）
+     */
+    public void addSales(Map<Long, Long> deltas) {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+                Entry entry = products.get(delta.getKey());
+                if (entry == null || delta.getValue() == 0) {
+                    continue;
+                }
+                long sales = Math.max(0, entry.sales + delta.getValue());
+                long change = sales - entry.sales;
+                entry.sales = sales;
+                adjust(entry.nameKey, change);
+                adjust(entry.categoryKey, change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 以 q 开头（不区分大小写）的商品名称和分类，按热度从高到低；索引未就绪时返回空列表
+     */
+    public List<ProductSuggestion> suggest(String q, int limit) {
+        String prefix = normalize(q);
+        if (!ready || prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            List<String> keys = trie.top(prefix, limit);
+            List<ProductSuggestion> suggestions = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                Term term = terms.get(key);
+                suggestions.add(new ProductSuggestion(term.text,
+                        term.categories > 0 ? TYPE_CATEGORY : TYPE_PRODUCT, term.score()));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+            queryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return trie.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getNodeCount() {
+        lock.readLock().lock();
+        try {
+            return trie.nodeCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 估算的堆内存占用（前缀树 + 词表 + 商品登记），按 memory-refresh-ms 缓存
+     */
+    public long getEstimatedBytes() {
+        long now = System.currentTimeMillis();
+        if (now - estimatedAt >= memoryRefreshMs) {
+            lock.readLock().lock();
+            try {
+                // 词表每项：HashMap 节点 + Term 对象；商品登记每项：HashMap 节点 + Long 键 + Entry 对象
+                estimatedBytes = trie.estimatedBytes() + terms.size() * 72L + products.size() * 96L;
+                estimatedAt = now;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return estimatedBytes;
+    }
+
+    private void put(Product product) {
+        Entry old = products.remove(product.getId());
+        if (old != null) {
+            release(old.nameKey, old.sales, false);
+            release(old.categoryKey, old.sales, true);
+        }
+        if (product.getStatus() != ProductStatus.ON_SALE) {
+            return;
+        }
+        long sales = old != null ? old.sales : (product.getSales() != null ? Math.max(0, product.getSales()) : 0);
+        Entry entry = new Entry(retain(product.getName(), sales, false), retain(product.getCategory(), sales, true), sales);
+        products.put(product.getId(), entry);
+    }
+
+    /**
+     * 登记一个商品对词的引用，返回词的小写键（文本为空时返回 null）
+     */
+    private String retain(String text, long sales, boolean category) {
+        String key = normalize(text);
+        if (key.isEmpty()) {
+            return null;
+        }
+        Term term = terms.computeIfAbsent(key, k -> new Term(text.trim()));
+        if (category) {
+            term.categories++;
+        } else {
+            term.names++;
+        }
+        term.sales += sales;
+        trie.put(key, term.score());
+        return key;
+    }
+
+    private void release(String key, long sales, boolean category) {
+        if (key == null) {
+            return;
+        }
+        Term term = terms.get(key);
+        if (term == null) {
+            return;
+        }
+        if (category) {
+            term.categories--;
+        } else {
+            term.names--;
+        }
+        term.sales -= sales;
+        if (term.names + term.categories == 0) {
+            terms.remove(key);
+            trie.remove(key);
+        } else {
+            trie.put(key, term.score());
+        }
+    }
+
+    private void adjust(String key, long change) {
+        if (key == null || change == 0) {
+            return;
+        }
+        Term term = terms.get(key);
+        if (term != null) {
+            term.sales += change;
+            trie.put(key, term.score());
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Term {
+        final String text;
+        int names;
+        int categories;
+        long sales;
+
+        Term(String text) {
+            this.text = text;
+        }
+
+        // 热度：累计销量 + 引用它的商品数（没有销量时商品多的分类和重名商品在前）
+        long score() {
+            return sales + names + categories;
+        }
+    }
+
+    private static final class Entry {
+        final String nameKey;
+        final String categoryKey;
+        long sales;
+
+        Entry(String nameKey, String categoryKey, long sales) {
+            this.nameKey = nameKey;
+            this.categoryKey = categoryKey;
+            this.sales = sales;
+        }
+    }
+}
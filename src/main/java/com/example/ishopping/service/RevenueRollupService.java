@@ -0,0 +1,305 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.RevenuePoint;
+import com.example.ishopping.entity.RevenueRollup;
+import com.example.ishopping.entity.RollupGranularity;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.event.OrderEvent;
+import com.example.ishopping.repository.OrderItemRepository;
+import com.example.ishopping.repository.RevenueRollupRepository;
+import com.example.ishopping.util.UserContext;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 按小时/按天预聚合的营收汇总（每个商家一条总量序列 + 每个商品分类一条序列）
+ * 订单创建和状态变化提交后只进入内存队列；后台定期把队列合并成各时间桶的增量，
+ * 在一个事务里以 INSERT ... ON DUPLICATE KEY UPDATE 批量累加到 revenue_rollups。
+ * 订单按下单时间分桶，取消/退款时从原时间桶扣除，删除订单不影响汇总；
+ * 查询 90 天的日线只读取 90 行左右，不扫描订单表。
+ */
+@Service
+public class RevenueRollupService {
+
+    private static final String UPSERT_SQL = "INSERT INTO revenue_rollups "
+            + "(seller_id, granularity, category, bucket_start, order_count, total_amount, actual_amount) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "order_count = order_count + VALUES(order_count), "
+            + "total_amount = total_amount + VALUES(total_amount), "
+            + "actual_amount = actual_amount + VALUES(actual_amount)";
+
+    // 回填：按ID顺序分批读取计入营收的订单（不含已取消、已退款）
+    private static final String BACKFILL_ORDERS_SQL = "SELECT id, seller_id, create_time, total_amount, actual_amount "
+            + "FROM %s WHERE id > ? AND status NOT IN ('CANCELLED', 'REFUNDED') ORDER BY id LIMIT ?";
+
+    // 回填：一批订单按商品分类汇总的订单项小计，与 OrderItemRepository.sumSubtotalByCategoryForOrderIdIn 相同
+    private static final String BACKFILL_SUBTOTALS_SQL = "SELECT i.order_id, p.category, SUM(i.price * i.quantity) "
+            + "FROM %s i LEFT JOIN products p ON p.id = i.product_id WHERE i.order_id IN (%s) GROUP BY i.order_id, p.category";
+
+    // 商品未设置分类时归入的分类名
+    private static final String UNCATEGORIZED = "未分类";
+
+    // 一次查询最多返回的时间桶数（按小时约 1 年）
+    private static final int MAX_POINTS = 24 * 366;
+
+    @Autowired
+    private RevenueRollupRepository revenueRollupRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // 与 Hibernate 读写时间字段时使用的时区一致
+    @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}")
+    private String jdbcTimeZone;
+
+    @Value("${app.order.rollup.batch-size:1000}")
+    private int batchSize;
+
+    private final Queue<OrderEvent> pending = new ConcurrentLinkedQueue<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        if (event.getCountDelta() != 0 && event.getOrderCreateTime() != null) {
+            pending.add(event);
+        }
+    }
+
+    /**
+     * 营收时间序列（按时间桶补齐为连续序列，没有订单的时间桶为 0）
+     * 商家只能查看自己店铺（忽略 sellerId）；管理员不传 sellerId 时为全平台；category 为空时为全部分类
+     */
+    public List<RevenuePoint> getTimeseries(LocalDateTime from, LocalDateTime to, RollupGranularity granularity,
+                                            Long sellerId, String category) {
+        UserRole role = UserContext.getCurrentUserRole();
+        if (UserContext.getCurrentUserId() == null || role == null) {
+            throw new RuntimeException("用户未登录");
+        }
+        if (role == UserRole.SELLER) {
+            sellerId = UserContext.getCurrentUserId();
+        } else if (role != UserRole.ADMIN) {
+            throw new RuntimeException("无权查看营收统计");
+        }
+
+        if (to == null) {
+            to = LocalDateTime.now();
+        }
+        if (from == null) {
+            from = granularity == RollupGranularity.HOUR ? to.minusHours(24) : to.minusDays(30);
+        }
+        LocalDateTime start = granularity.bucketStart(from);
+        LocalDateTime end = granularity.bucketStart(to);
+        if (end.isBefore(to)) {
+            end = granularity.next(end);
+        }
+        if (!start.isBefore(end)) {
+            throw new RuntimeException("开始时间必须早于结束时间");
+        }
+
+        String categoryKey = category == null || category.isBlank() ? RevenueRollup.ALL_CATEGORIES : category;
+        // 读取前先刷写，能看到刚提交的订单
+        flush();
+        List<RevenuePoint> rows = sellerId != null
+                ? revenueRollupRepository.findSeries(sellerId, granularity, categoryKey, start, end)
+                : revenueRollupRepository.findGlobalSeries(granularity, categoryKey, start, end);
+
+        List<RevenuePoint> series = new ArrayList<>();
+        Iterator<RevenuePoint> iterator = rows.iterator();
+        RevenuePoint row = iterator.hasNext() ? iterator.next() : null;
+        for (LocalDateTime bucket = start; bucket.isBefore(end); bucket = granularity.next(bucket)) {
+            if (series.size() >= MAX_POINTS) {
+                throw new RuntimeException("时间范围过大，请缩小范围或改用按天统计");
+            }
+            if (row != null && row.getBucketStart().equals(bucket)) {
+                series.add(row);
+                row = iterator.hasNext() ? iterator.next() : null;
+            } else {
+                series.add(new RevenuePoint(bucket, 0L, BigDecimal.ZERO, BigDecimal.ZERO));
+            }
+        }
+        return series;
+    }
+
+    /**
+     * 把队列中的事件合并成时间桶增量并累加到汇总表，写入失败的事件放回队列等待下次刷写
+     */
+    @Scheduled(fixedDelayString = "${app.order.rollup.flush-ms:1000}")
+    @PreDestroy
+    public synchronized void flush() {
+        while (!pending.isEmpty()) {
+            List<OrderEvent> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            OrderEvent next;
+            while (batch.size() < batchSize && (next = pending.poll()) != null) {
+                batch.add(next);
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> upsert(aggregate(batch)));
+            } catch (RuntimeException e) {
+                System.err.println("营收汇总写入失败，稍后重试: " + e.getMessage());
+                pending.addAll(batch);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 首次上线时按已有订单（含归档）回填汇总表，之后由事件增量维护；汇总表已有数据时不执行，返回回填的订单数。
+     * 整个回填在一个事务里完成，中途失败不会留下半份汇总，下次启动重来；
+     * 多个实例同时启动时先锁住 id_generator 中的 orders 行，串行后再判断汇总表是否为空。
+     */
+    public long backfill() {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForList("SELECT next_val FROM id_generator WHERE gen_name = 'orders' FOR UPDATE");
+            if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM revenue_rollups", Long.class) > 0) {
+                return 0L;
+            }
+            return backfill("orders", "order_items") + backfill("orders_archive", "order_items_archive");
+        });
+    }
+
+    private long backfill(String orderTable, String itemTable) {
+        Calendar calendar = calendar();
+        long lastId = 0;
+        long count = 0;
+        while (true) {
+            List<Object[]> orders = jdbcTemplate.query(String.format(BACKFILL_ORDERS_SQL, orderTable),
+                    (rs, i) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getTimestamp(3, calendar).toLocalDateTime(),
+                            rs.getBigDecimal(4), rs.getBigDecimal(5)},
+                    lastId, batchSize);
+            if (orders.isEmpty()) {
+                return count;
+            }
+            List<Long> orderIds = orders.stream().map(order -> (Long) order[0]).toList();
+            String placeholders = String.join(", ", Collections.nCopies(orderIds.size(), "?"));
+            Map<Long, List<Object[]>> subtotals = byOrder(jdbcTemplate.query(
+                    String.format(BACKFILL_SUBTOTALS_SQL, itemTable, placeholders),
+                    (rs, i) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getBigDecimal(3)},
+                    orderIds.toArray()));
+
+            Map<BucketKey, Delta> deltas = new LinkedHashMap<>();
+            for (Object[] order : orders) {
+                addOrder(deltas, (Long) order[1], (LocalDateTime) order[2], 1, amount((BigDecimal) order[3]),
+                        amount((BigDecimal) order[4]), subtotals.getOrDefault((Long) order[0], List.of()));
+            }
+            deltas.values().removeIf(Delta::isZero);
+            upsert(deltas);
+            lastId = orderIds.get(orderIds.size() - 1);
+            count += orders.size();
+        }
+    }
+
+    /**
+     * 一批事件合并为各时间桶的增量：商家总量直接取自事件，分类拆分一次查询这批订单的订单项
+     */
+    private Map<BucketKey, Delta> aggregate(List<OrderEvent> events) {
+        Set<Long> orderIds = new HashSet<>();
+        events.forEach(event -> orderIds.add(event.getOrderId()));
+        Map<Long, List<Object[]>> subtotals = byOrder(orderItemRepository.sumSubtotalByCategoryForOrderIdIn(orderIds));
+
+        Map<BucketKey, Delta> deltas = new LinkedHashMap<>();
+        for (OrderEvent event : events) {
+            // 订单项在刷写前已被删除时（取消后立即删除）只能更新商家总量
+            addOrder(deltas, event.getSellerId(), event.getOrderCreateTime(), event.getCountDelta(),
+                    amount(event.getTotalAmount()), amount(event.getActualAmount()),
+                    subtotals.getOrDefault(event.getOrderId(), List.of()));
+        }
+        deltas.values().removeIf(Delta::isZero);
+        return deltas;
+    }
+
+    /**
+     * 一个订单计入（sign 为 1）或扣除（sign 为 -1）：商家总量一份，每个商品分类各一份，
+     * 分类的实付金额按订单项小计占订单总额的比例分摊
+     */
+    private void addOrder(Map<BucketKey, Delta> deltas, Long sellerId, LocalDateTime createTime, int sign,
+                          BigDecimal total, BigDecimal actual, List<Object[]> subtotals) {
+        add(deltas, sellerId, createTime, RevenueRollup.ALL_CATEGORIES, sign, total, actual);
+        for (Object[] row : subtotals) {
+            String category = row[1] == null ? UNCATEGORIZED : (String) row[1];
+            BigDecimal subtotal = amount((BigDecimal) row[2]);
+            BigDecimal share = total.signum() == 0 ? BigDecimal.ZERO
+                    : actual.multiply(subtotal).divide(total, 2, RoundingMode.HALF_UP);
+            add(deltas, sellerId, createTime, category, sign, subtotal, share);
+        }
+    }
+
+    private void add(Map<BucketKey, Delta> deltas, Long sellerId, LocalDateTime createTime, String category, int sign,
+                     BigDecimal total, BigDecimal actual) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            BucketKey key = new BucketKey(sellerId, granularity, category, granularity.bucketStart(createTime));
+            deltas.computeIfAbsent(key, k -> new Delta()).add(sign, total, actual);
+        }
+    }
+
+    // 订单ID, 分类, 小计 按订单分组
+    private static Map<Long, List<Object[]>> byOrder(List<Object[]> rows) {
+        Map<Long, List<Object[]>> grouped = new HashMap<>();
+        for (Object[] row : rows) {
+            grouped.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add(row);
+        }
+        return grouped;
+    }
+
+    private void upsert(Map<BucketKey, Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Calendar calendar = calendar();
+        List<Map.Entry<BucketKey, Delta>> entries = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, entries, entries.size(), (statement, entry) -> {
+            BucketKey key = entry.getKey();
+            Delta delta = entry.getValue();
+            statement.setLong(1, key.sellerId());
+            statement.setString(2, key.granularity().name());
+            statement.setString(3, key.category());
+            statement.setTimestamp(4, Timestamp.valueOf(key.bucketStart()), calendar);
+            statement.setLong(5, delta.orderCount);
+            statement.setBigDecimal(6, delta.totalAmount);
+            statement.setBigDecimal(7, delta.actualAmount);
+        });
+    }
+
+    private Calendar calendar() {
+        return jdbcTimeZone.isEmpty() ? Calendar.getInstance() : Calendar.getInstance(TimeZone.getTimeZone(jdbcTimeZone));
+    }
+
+    private static BigDecimal amount(BigDecimal value) {
+        return value == null ? BigDecimal.ZERO : value;
+    }
+
+    private record BucketKey(Long sellerId, RollupGranularity granularity, String category, LocalDateTime bucketStart) {}
+
+    private static final class Delta {
+        long orderCount;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        BigDecimal actualAmount = BigDecimal.ZERO;
+
+        void add(int sign, BigDecimal total, BigDecimal actual) {
+            orderCount += sign;
+            totalAmount = sign > 0 ? totalAmount.add(total) : totalAmount.subtract(total);
+            actualAmount = sign > 0 ? actualAmount.add(actual) : actualAmount.subtract(actual);
+        }
+
+        boolean isZero() {
+            return orderCount == 0 && totalAmount.signum() == 0 && actualAmount.signum() == 0;
+        }
+    }
+}
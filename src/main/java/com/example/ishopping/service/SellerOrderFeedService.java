@@ -0,0 +1,189 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.event.OrderEvent;
+import com.example.ishopping.util.UserContext;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 商家新订单实时推送（Server-Sent Events）
+ * 订单事件提交后按商家分发给该商家的全部连接，事件里附带商家的内存统计，商家后台不必再轮询订单列表和统计接口。
+ * 连接以 SseEmitter 挂在异步 Servlet 上下文中，不占用请求线程；每个连接有一个有界缓冲区，
+ * 由虚拟线程负责写出，写得慢的连接缓冲区满时丢弃最旧的事件，不影响发布方和其他连接。
+ */
+@Service
+public class SellerOrderFeedService {
+
+    @Autowired
+    private OrderStatsService orderStatsService;
+
+    @Value("${app.order.feed.buffer-size:100}")
+    private int bufferSize;
+
+    @Value("${app.order.feed.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    /**
+     * 当前商家订阅订单推送
+     */
+    public SseEmitter subscribe() {
+        Long sellerId = UserContext.getCurrentUserId();
+        if (sellerId == null) {
+            throw new RuntimeException("用户未登录");
+        }
+        if (UserContext.getCurrentUserRole() != UserRole.SELLER) {
+            throw new RuntimeException("只有商家可以订阅订单推送");
+        }
+
+        Subscriber subscriber = new Subscriber(sellerId, new SseEmitter(timeoutMillis));
+        subscribers.computeIfAbsent(sellerId, k -> new CopyOnWriteArraySet<>()).add(subscriber);
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(e -> unsubscribe(subscriber));
+
+        // 连接建立后先推送一次当前统计
+        subscriber.offer(SseEmitter.event().name("stats").data(orderStatsService.getSellerStats(sellerId)));
+        return subscriber.emitter;
+    }
+
+    /**
+     * 订单事件提交后推送给对应商家（事件在发布线程中只入队，不做网络写出）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        Set<Subscriber> targets = subscribers.get(event.getSellerId());
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("orderId", event.getOrderId());
+        payload.put("orderNumber", event.getOrderNumber());
+        payload.put("userId", event.getUserId());
+        payload.put("totalAmount", event.getTotalAmount());
+        payload.put("oldStatus", event.getOldStatus());
+        payload.put("newStatus", event.getNewStatus());
+        payload.put("occurredAt", event.getOccurredAt());
+        payload.put("stats", orderStatsService.getSellerStats(event.getSellerId()));
+        String name = event.isCreated() ? "created" : event.isDeleted() ? "deleted" : "status";
+        for (Subscriber subscriber : targets) {
+            subscriber.offer(SseEmitter.event().name(name).data(payload, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    /**
+     * 定期发送心跳注释，保持连接并及时发现已断开的连接
+     */
+    @Scheduled(fixedDelayString = "${app.order.feed.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(s -> s.offer(SseEmitter.event().comment("ping"))));
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * 因连接写出过慢被丢弃的事件总数
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(set -> set.forEach(s -> s.emitter.complete()));
+        writers.shutdownNow();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.sellerId, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * 一个连接：有界缓冲区 + 至多一个正在写出的虚拟线程
+     */
+    private final class Subscriber {
+
+        final Long sellerId;
+        final SseEmitter emitter;
+        private final ArrayDeque<SseEmitter.SseEventBuilder> buffer = new ArrayDeque<>();
+        private boolean writing;
+        private boolean closed;
+
+        Subscriber(Long sellerId, SseEmitter emitter) {
+            this.sellerId = sellerId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (buffer.size() >= bufferSize) {
+                    buffer.pollFirst();
+                    droppedEvents.incrementAndGet();
+                }
+                buffer.addLast(event);
+                if (writing) {
+                    return;
+                }
+                writing = true;
+            }
+            writers.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder event;
+                synchronized (this) {
+                    event = buffer.pollFirst();
+                    if (event == null) {
+                        writing = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // 客户端已断开或连接已结束
+                    synchronized (this) {
+                        closed = true;
+                        buffer.clear();
+                        writing = false;
+                    }
+                    unsubscribe(this);
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -1,17 +1,21 @@
 package com.example.ishopping.service;
 
+import com.example.ishopping.dto.CartCheckoutRequest;
 import com.example.ishopping.dto.ShoppingCartRequest;
+import com.example.ishopping.entity.Order;
 import com.example.ishopping.entity.ShoppingCart;
 import com.example.ishopping.entity.Product;
 import com.example.ishopping.entity.User;
 import com.example.ishopping.repository.ShoppingCartRepository;
-import com.example.ishopping.repository.ProductRepository;
 import com.example.ishopping.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class ShoppingCartService {
@@ -20,10 +24,13 @@ public class ShoppingCartService {
     private ShoppingCartRepository shoppingCartRepository;
 
     @Autowired
-    private ProductRepository productRepository;
+    private UserRepository userRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
 
     public List<ShoppingCart> getCartByUserId(Long userId) {
         return shoppingCartRepository.findByUserId(userId);
@@ -34,8 +41,7 @@ public class ShoppingCartService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
 
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new RuntimeException("商品不存在"));
+        Product product = productService.getProductById(request.getProductId());
 
         if (product.getStock() < request.getQuantity()) {
             throw new RuntimeException("商品库存不足");
@@ -76,8 +82,7 @@ public class ShoppingCartService {
             return null;
         }
 
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("商品不存在"));
+        Product product = productService.getProductById(productId);
 
         if (product.getStock() < quantity) {
             throw new RuntimeException("商品库存不足");
@@ -86,4 +91,22 @@ public class ShoppingCartService {
         cart.setQuantity(quantity);
         return shoppingCartRepository.save(cart);
     }
+
+    /**
+     * 购物车结算：一次读取购物车，按商家拆单，创建订单并清除已结算的购物车项，全部在同一事务内完成
+     */
+    @Transactional
+    public List<Order> checkout(CartCheckoutRequest request, Long userId) {
+        List<ShoppingCart> cartItems = shoppingCartRepository.findByUserIdWithProduct(userId);
+        if (request.getProductIds() != null && !request.getProductIds().isEmpty()) {
+            Set<Long> selected = new HashSet<>(request.getProductIds());
+            cartItems = cartItems.stream()
+                    .filter(c -> selected.contains(c.getProduct().getId()))
+                    .collect(Collectors.toList());
+        }
+
+        List<Order> orders = orderService.createOrdersFromCart(cartItems, request);
+        shoppingCartRepository.deleteAllInBatch(cartItems);
+        return orders;
+    }
 }
\ No newline at end of file
@@ -25,6 +25,9 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private OrderAssembler orderAssembler;
+
     public User register(RegisterRequest request) {
         // 检查用户名是否已存在
         if (userRepository.existsByUsername(request.getUsername())) {
@@ -191,6 +194,7 @@ public class UserService {
 
         user.setUpdateTime(LocalDateTime.now());
         User updatedUser = userRepository.save(user);
+        orderAssembler.evictBuyer(userId);
         return convertToDTO(updatedUser);
     }
 
@@ -202,6 +206,7 @@ public class UserService {
             throw new RuntimeException("用户不存在");
         }
         userRepository.deleteById(userId);
+        orderAssembler.evictBuyer(userId);
     }
 
     /**
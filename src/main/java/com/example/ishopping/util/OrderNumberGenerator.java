@@ -0,0 +1,81 @@
+package com.example.ishopping.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 订单号生成器（Snowflake 结构）
+ * 41 位毫秒时间戳（自 2024-01-01 起）+ 10 位节点号 + 12 位毫秒内序列，状态保存在一个 AtomicLong 中，通过 CAS 无锁分配。
+ * 时钟回拨时沿用上次的逻辑时间继续递增序列，序列用尽则借用下一毫秒，保证同一节点的号码严格递增、永不重复。
+ * 订单号为 "ORD9" + 19 位定长十进制，字符串顺序与生成时间顺序一致。
+ * 旧订单号为 "ORD" + 13 位毫秒时间戳（+ 随机数），以 ORD1/ORD2 开头；新号码固定以 ORD9 开头，排在全部旧号码之后，
+ * 按前缀搜索时两种格式也不会混在一起。
+ */
+@Component
+public class OrderNumberGenerator {
+
+    public static final String PREFIX = "ORD9";
+
+    static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int NUMBER_WIDTH = 19;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+
+    // 高位为逻辑时间戳，低 12 位为该毫秒内已分配的序列
+    private final AtomicLong state = new AtomicLong();
+
+    @Autowired
+    public OrderNumberGenerator(@Value("${app.order.node-id:0}") long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    OrderNumberGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点号必须在 0 到 " + MAX_NODE_ID + " 之间: " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    /**
+     * 生成下一个数值ID
+     */
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long now = clock.getAsLong() - EPOCH;
+            // 进入新的毫秒则序列归零；同一毫秒或时钟回拨时在原逻辑时间上递增（溢出自动进位到下一毫秒）
+            long next = now > (current >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : current + 1;
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * 生成订单号
+     */
+    public String nextOrderNumber() {
+        return format(nextId());
+    }
+
+    static String format(long id) {
+        String digits = Long.toString(id);
+        StringBuilder sb = new StringBuilder(PREFIX.length() + NUMBER_WIDTH).append(PREFIX);
+        for (int i = digits.length(); i < NUMBER_WIDTH; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.ishopping.util;
+
+import java.util.Arrays;
+
+/**
+ * 倒排表：一个词出现在哪些文档、各出现几次
+ * 主体按文档ID升序以 (ID 差值, 词频) 的变长整数（varint）压缩在一个 byte 数组中；
+ * 增量修改先记在两个小的有序数组里（新增的文档、从主体中删除的文档），累积到一定数量后合并重新压缩。
+ * 调用方保证：只删除确实在表中的文档，文档重新加入前先删除。非线程安全，由调用方加锁。
+ */
+public class PostingList {
+
+    private static final int[] EMPTY = new int[0];
+
+    private byte[] data;
+    private int baseCount;
+
+    private int[] addDocs = EMPTY;
+    private int[] addFreqs = EMPTY;
+    private int addCount;
+
+    private int[] removed = EMPTY;
+    private int removedCount;
+
+    public PostingList() {
+        this(new byte[0], 0);
+    }
+
+    private PostingList(byte[] data, int baseCount) {
+        this.data = data;
+        this.baseCount = baseCount;
+    }
+
+    /**
+     * 从持久化的压缩数据恢复
+     */
+    public static PostingList fromEncoded(byte[] data, int count) {
+        return new PostingList(data, count);
+    }
+
+    public void add(int doc, int freq) {
+        int position = Arrays.binarySearch(addDocs, 0, addCount, doc);
+        if (position >= 0) {
+            addFreqs[position] = freq;
+            return;
+        }
+        position = -position - 1;
+        if (addCount == addDocs.length) {
+            int capacity = Math.max(4, addCount * 2);
+            addDocs = Arrays.copyOf(addDocs, capacity);
+            addFreqs = Arrays.copyOf(addFreqs, capacity);
+        }
+        System.arraycopy(addDocs, position, addDocs, position + 1, addCount - position);
+        System.arraycopy(addFreqs, position, addFreqs, position + 1, addCount - position);
+        addDocs[position] = doc;
+        addFreqs[position] = freq;
+        addCount++;
+        compactIfNeeded();
+    }
+
+    public void remove(int doc) {
+        int position = Arrays.binarySearch(addDocs, 0, addCount, doc);
+        if (position >= 0) {
+            System.arraycopy(addDocs, position + 1, addDocs, position, addCount - position - 1);
+            System.arraycopy(addFreqs, position + 1, addFreqs, position, addCount - position - 1);
+            addCount--;
+            return;
+        }
+        position = Arrays.binarySearch(removed, 0, removedCount, doc);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        if (removedCount == removed.length) {
+            removed = Arrays.copyOf(removed, Math.max(4, removedCount * 2));
+        }
+        System.arraycopy(removed, position, removed, position + 1, removedCount - position);
+        removed[position] = doc;
+        removedCount++;
+        compactIfNeeded();
+    }
+
+    /**
+     * 包含该词的文档数
+     */
+    public int size() {
+        return baseCount - removedCount + addCount;
+    }
+
+    /**
+     * 按文档ID升序遍历
+     */
+    public void forEach(Visitor visitor) {
+        int offset = 0;
+        int doc = 0;
+        int nextAdd = 0;
+        int nextRemoved = 0;
+        for (int i = 0; i < baseCount; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int freq = 0;
+            shift = 0;
+            do {
+                b = data[offset++];
+                freq |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            doc += delta;
+
+            while (nextAdd < addCount && addDocs[nextAdd] < doc) {
+                visitor.visit(addDocs[nextAdd], addFreqs[nextAdd]);
+                nextAdd++;
+            }
+            while (nextRemoved < removedCount && removed[nextRemoved] < doc) {
+                nextRemoved++;
+            }
+            if (nextRemoved < removedCount && removed[nextRemoved] == doc) {
+                continue;
+            }
+            visitor.visit(doc, freq);
+        }
+        while (nextAdd < addCount) {
+            visitor.visit(addDocs[nextAdd], addFreqs[nextAdd]);
+            nextAdd++;
+        }
+    }
+
+    /**
+     * 合并增量后的压缩数据（持久化使用，不修改当前状态，可与查询并发）
+     */
+    public byte[] encoded() {
+        if (addCount == 0 && removedCount == 0) {
+            return data;
+        }
+        Encoder encoder = new Encoder(Math.max(16, size() * 3));
+        forEach(encoder::append);
+        return encoder.toByteArray();
+    }
+
+    private void compactIfNeeded() {
+        if (addCount + removedCount > Math.max(32, baseCount / 8)) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        if (addCount == 0 && removedCount == 0) {
+            return;
+        }
+        int count = size();
+        data = encoded();
+        baseCount = count;
+        addDocs = EMPTY;
+        addFreqs = EMPTY;
+        addCount = 0;
+        removed = EMPTY;
+        removedCount = 0;
+    }
+
+    private static final class Encoder {
+        private byte[] buffer;
+        private int length;
+        private int previous;
+
+        Encoder(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void append(int doc, int freq) {
+            writeVarint(doc - previous);
+            writeVarint(freq);
+            previous = doc;
+        }
+
+        private void writeVarint(int value) {
+            if (length + 5 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2 + 5);
+            }
+            while ((value & ~0x7F) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(int doc, int freq);
+    }
+}
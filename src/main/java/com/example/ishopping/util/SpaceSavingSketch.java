@@ -0,0 +1,173 @@
+package com.example.ishopping.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Space-Saving 热门项统计（heavy hitters）
+ * 固定 capacity 个计数器，以最小堆组织：已跟踪的项直接累加；未跟踪的项在满员时替换计数最小的项，
+ * 继承其计数作为误差上界。真实计数满足 count - error <= 真实值 <= count，
+ * 任何真实计数超过 总量 / capacity 的项一定在表中。
+ * remove 用于扣回取消的数量：只作用于仍在表中的项，已被替换的项无法扣回。
+ * 非线程安全，由调用方加锁。
+ */
+public class SpaceSavingSketch {
+
+    private final int capacity;
+    // 最小堆（按 count），index 记录每个 id 在堆中的位置
+    private final long[] ids;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<Long, Integer> index;
+    private int size;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须大于0: " + capacity);
+        }
+        this.capacity = capacity;
+        this.ids = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.index = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * 记录 id 出现 amount 次
+     */
+    public void add(long id, long amount) {
+        if (amount <= 0) {
+            return;
+        }
+        Integer position = index.get(id);
+        if (position != null) {
+            counts[position] += amount;
+            siftDown(position);
+        } else if (size < capacity) {
+            set(size, id, amount, 0);
+            size++;
+            siftUp(size - 1);
+        } else {
+            // 替换计数最小的项
+            long min = counts[0];
+            index.remove(ids[0]);
+            set(0, id, min + amount, min);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * 扣回 id 的 amount 次（计数不低于 0）
+     */
+    public void remove(long id, long amount) {
+        Integer position = index.get(id);
+        if (position == null || amount <= 0) {
+            return;
+        }
+        counts[position] = Math.max(0, counts[position] - amount);
+        errors[position] = Math.min(errors[position], counts[position]);
+        siftUp(position);
+    }
+
+    public void clear() {
+        index.clear();
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 遍历所有计数器（无序）
+     */
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < size; i++) {
+            visitor.visit(ids[i], counts[i], errors[i]);
+        }
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeLong(ids[i]);
+            out.writeLong(counts[i]);
+            out.writeLong(errors[i]);
+        }
+    }
+
+    /**
+     * 从快照恢复（覆盖当前内容，超出容量的计数器丢弃）
+     */
+    public void readFrom(DataInput in) throws IOException {
+        clear();
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            long id = in.readLong();
+            long count = in.readLong();
+            long error = in.readLong();
+            if (size < capacity && !index.containsKey(id)) {
+                set(size, id, count, error);
+                size++;
+                siftUp(size - 1);
+            }
+        }
+    }
+
+    private void set(int position, long id, long count, long error) {
+        ids[position] = id;
+        counts[position] = count;
+        errors[position] = error;
+        index.put(id, position);
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[parent] <= counts[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a];
+        long count = counts[a];
+        long error = errors[a];
+        set(a, ids[b], counts[b], errors[b]);
+        set(b, id, count, error);
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(long id, long count, long error);
+    }
+}
@@ -0,0 +1,429 @@
+package com.example.ishopping.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 带分数的前缀树（用于输入联想）：返回以某前缀开头、分数最高的前 k 个词。
+ * 单分支路径压缩成一条边（基数树），节点数不超过词数的两倍，边标签直接引用词本身的字符串，不另存字符。
+ * 子树内词数超过 k 的节点保存前 k 名，查询只需沿前缀走到对应节点，不必遍历子树。词数不超过 k 的小子树不保存排名，查询时直接枚举，
+ * 这样保存排名的节点约为 2n/k 个，排名数组总共约 2n 个 int。
+ * 插入、删除和分数变化只更新从根到该词路径上的节点。非线程安全，由调用方加锁。
+ */
+public class SuggestionTrie {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final int k;
+    private final Node root = new Node("", 0, 0);
+
+    // 词表：下标为词ID，删除后ID回收
+    private String[] keys = new String[16];
+    private long[] scores = new long[16];
+    private int[] freeIds = new int[0];
+    private int freeCount;
+    private int nextId;
+    private int size;
+    private int nodeCount = 1;
+
+    private final Comparator<Integer> byRank = (a, b) -> {
+        int compare = Long.compare(scores[b], scores[a]);
+        return compare != 0 ? compare : keys[a].compareTo(keys[b]);
+    };
+
+    public SuggestionTrie(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k 必须大于 0");
+        }
+        this.k = k;
+    }
+
+    /**
+     * 新增词或修改词的分数
+     */
+    public void put(String key, long score) {
+        List<Node> path = new ArrayList<>();
+        Node terminal = find(key, path);
+        if (terminal != null && terminal.term >= 0) {
+            int term = terminal.term;
+            long old = scores[term];
+            if (old == score) {
+                return;
+            }
+            scores[term] = score;
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node node = path.get(i);
+                if (node.top != null) {
+                    if (indexOf(node.top, term) >= 0 && score < old) {
+                        node.top = computeTop(node);
+                    } else {
+                        offer(node, term);
+                    }
+                }
+            }
+            return;
+        }
+
+        int term = allocate(key, score);
+        path.clear();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int index = childIndex(node, key.charAt(i));
+            if (index < 0) {
+                Node leaf = new Node(key, i, key.length() - i);
+                leaf.term = term;
+                insertChild(node, -index - 1, leaf);
+                node = leaf;
+                path.add(node);
+                i = key.length();
+                break;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child, key, i);
+            if (common < child.length) {
+                // 拆边：新节点承接公共部分，原节点挂在其下
+                Node middle = new Node(child.source, child.start, common);
+                child.start += common;
+                child.length -= common;
+                middle.children = new Node[]{child};
+                middle.count = child.count;
+                middle.top = child.top == null ? null : child.top.clone();
+                node.children[index] = middle;
+                nodeCount++;
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+        node.term = term;
+
+        for (int j = path.size() - 1; j >= 0; j--) {
+            Node pathNode = path.get(j);
+            pathNode.count++;
+            if (pathNode.top != null) {
+                offer(pathNode, term);
+            } else if (pathNode.count > k) {
+                pathNode.top = computeTop(pathNode);
+            }
+        }
+    }
+
+    /**
+     * 删除词（不存在时忽略）
+     */
+    public void remove(String key) {
+        List<Node> path = new ArrayList<>();
+        Node terminal = find(key, path);
+        if (terminal == null || terminal.term < 0) {
+            return;
+        }
+        int term = terminal.term;
+        terminal.term = -1;
+
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            node.count--;
+            if (node.count <= k) {
+                node.top = null;
+            } else if (node.top != null && indexOf(node.top, term) >= 0) {
+                node.top = computeTop(node);
+            }
+        }
+        prune(path);
+        release(term);
+    }
+
+    /**
+     * 以 prefix 开头的词，按分数从高到低（同分按字典序），最多 limit 个（不超过 k）
+     */
+    public List<String> top(String prefix, int limit) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int index = childIndex(node, prefix.charAt(i));
+            if (index < 0) {
+                return List.of();
+            }
+            node = node.children[index];
+            int common = commonPrefix(node, prefix, i);
+            if (common < node.length && i + common < prefix.length()) {
+                return List.of();
+            }
+            i += common;
+        }
+        int[] ranked = node.top != null ? node.top : smallTop(node);
+        int count = Math.min(Math.min(limit, k), ranked.length);
+        List<String> result = new ArrayList<>(count);
+        for (int j = 0; j < count; j++) {
+            result.add(keys[ranked[j]]);
+        }
+        return result;
+    }
+
+    public long score(String key) {
+        Node terminal = find(key, new ArrayList<>());
+        return terminal != null && terminal.term >= 0 ? scores[terminal.term] : 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * 估算占用的堆内存（字节）：节点对象、子节点数组、排名数组和词表；遍历整棵树，不宜频繁调用
+     */
+    public long estimatedBytes() {
+        long bytes = 16L * keys.length + 8L * scores.length + 4L * freeIds.length;
+        for (int i = 0; i < nextId; i++) {
+            if (keys[i] != null) {
+                bytes += 40 + 2L * keys[i].length();
+            }
+        }
+        List<Node> stack = new ArrayList<>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.remove(stack.size() - 1);
+            bytes += 48;
+            if (node.children.length > 0) {
+                bytes += 16 + 4L * node.children.length;
+            }
+            if (node.top != null) {
+                bytes += 16 + 4L * node.top.length;
+            }
+            stack.addAll(Arrays.asList(node.children));
+        }
+        return bytes;
+    }
+
+    /**
+     * 找到 key 对应的节点（边在 key 中间结束或不存在时返回 null），path 记录从根开始经过的节点
+     */
+    private Node find(String key, List<Node> path) {
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int index = childIndex(node, key.charAt(i));
+            if (index < 0) {
+                return null;
+            }
+            node = node.children[index];
+            if (commonPrefix(node, key, i) < node.length) {
+                return null;
+            }
+            path.add(node);
+            i += node.length;
+        }
+        return node;
+    }
+
+    /**
+     * 删除后清理：去掉空叶子，合并只剩一个子节点且不是词尾的中间节点
+     */
+    private void prune(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            Node parent = path.get(i - 1);
+            int index = childIndex(parent, node.first());
+            if (node.term < 0 && node.children.length == 0) {
+                removeChild(parent, index);
+                nodeCount--;
+            } else if (node.term < 0 && node.children.length == 1) {
+                Node child = node.children[0];
+                // 子节点的标签取自经过本节点的某个词，向前延伸即包含本节点的标签
+                child.start -= node.length;
+                child.length += node.length;
+                parent.children[index] = child;
+                nodeCount--;
+                return;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void offer(Node node, int term) {
+        int[] top = node.top;
+        int position = indexOf(top, term);
+        if (position < 0) {
+            if (byRank.compare(term, top[top.length - 1]) >= 0) {
+                return;
+            }
+            position = top.length - 1;
+            top[position] = term;
+        }
+        // 只有 top[position] 的分数变化，插入排序归位
+        while (position > 0 && byRank.compare(top[position], top[position - 1]) < 0) {
+            int swap = top[position];
+            top[position] = top[position - 1];
+            top[position - 1] = swap;
+            position--;
+        }
+        while (position < top.length - 1 && byRank.compare(top[position], top[position + 1]) > 0) {
+            int swap = top[position];
+            top[position] = top[position + 1];
+            top[position + 1] = swap;
+            position++;
+        }
+    }
+
+    /**
+     * 由子节点的排名（小子树直接枚举）合并出本节点的前 k 名
+     */
+    private int[] computeTop(Node node) {
+        List<Integer> candidates = new ArrayList<>();
+        if (node.term >= 0) {
+            candidates.add(node.term);
+        }
+        for (Node child : node.children) {
+            if (child.top != null) {
+                for (int term : child.top) {
+                    candidates.add(term);
+                }
+            } else {
+                collect(child, candidates);
+            }
+        }
+        return best(candidates);
+    }
+
+    private int[] smallTop(Node node) {
+        List<Integer> candidates = new ArrayList<>(node.count);
+        collect(node, candidates);
+        return best(candidates);
+    }
+
+    private int[] best(List<Integer> candidates) {
+        candidates.sort(byRank);
+        int count = Math.min(k, candidates.size());
+        int[] top = new int[count];
+        for (int i = 0; i < count; i++) {
+            top[i] = candidates.get(i);
+        }
+        return top;
+    }
+
+    private static void collect(Node node, List<Integer> terms) {
+        if (node.term >= 0) {
+            terms.add(node.term);
+        }
+        for (Node child : node.children) {
+            collect(child, terms);
+        }
+    }
+
+    private int allocate(String key, long score) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            if (nextId == keys.length) {
+                keys = Arrays.copyOf(keys, nextId * 2);
+                scores = Arrays.copyOf(scores, nextId * 2);
+            }
+            id = nextId++;
+        }
+        keys[id] = key;
+        scores[id] = score;
+        size++;
+        return id;
+    }
+
+    private void release(int id) {
+        keys[id] = null;
+        scores[id] = 0;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, Math.max(4, freeCount * 2));
+        }
+        freeIds[freeCount++] = id;
+        size--;
+    }
+
+    private static int childIndex(Node node, char first) {
+        int low = 0;
+        int high = node.children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char c = node.children[mid].first();
+            if (c < first) {
+                low = mid + 1;
+            } else if (c > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    private void insertChild(Node node, int index, Node child) {
+        Node[] children = new Node[node.children.length + 1];
+        System.arraycopy(node.children, 0, children, 0, index);
+        children[index] = child;
+        System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+        node.children = children;
+        nodeCount++;
+    }
+
+    private static void removeChild(Node node, int index) {
+        if (node.children.length == 1) {
+            node.children = NO_CHILDREN;
+            return;
+        }
+        Node[] children = new Node[node.children.length - 1];
+        System.arraycopy(node.children, 0, children, 0, index);
+        System.arraycopy(node.children, index + 1, children, index, children.length - index);
+        node.children = children;
+    }
+
+    private static int commonPrefix(Node node, String key, int offset) {
+        int length = Math.min(node.length, key.length() - offset);
+        int i = 0;
+        while (i < length && node.source.charAt(node.start + i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Node {
+        // 边标签是 source[start, start + length)：source 为经过此边的某个完整词，不单独复制字符
+        String source;
+        int start;
+        int length;
+        Node[] children = NO_CHILDREN;
+        // 在本节点结束的词ID，-1 表示没有
+        int term = -1;
+        // 子树中的词数
+        int count;
+        // 子树词数超过 k 时的前 k 名（按排名顺序），否则为 null
+        int[] top;
+
+        Node(String source, int start, int length) {
+            this.source = source;
+            this.start = start;
+            this.length = length;
+        }
+
+        char first() {
+            return source.charAt(start);
+        }
+    }
+}
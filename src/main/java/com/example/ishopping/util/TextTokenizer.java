@@ -0,0 +1,75 @@
+package com.example.ishopping.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 商品搜索分词
+ * 中日韩文字按相邻两字切分（二元组），单独一个字时保留单字；字母和数字按连续串切成词并转小写；其他字符作为分隔。
+ * 建索引和查询使用同一分词，查询词的二元组全部命中即等价于原来的 LIKE 子串匹配。
+ */
+public final class TextTokenizer {
+
+    private TextTokenizer() {}
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        StringBuilder word = new StringBuilder();
+        int previousCjk = -1;
+        boolean cjkRunHasBigram = false;
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (isCjk(codePoint)) {
+                flushWord(word, tokens);
+                if (previousCjk >= 0) {
+                    tokens.add(new StringBuilder().appendCodePoint(previousCjk).appendCodePoint(codePoint).toString());
+                    cjkRunHasBigram = true;
+                }
+                previousCjk = codePoint;
+                continue;
+            }
+            flushSingle(previousCjk, cjkRunHasBigram, tokens);
+            previousCjk = -1;
+            cjkRunHasBigram = false;
+            if (Character.isLetterOrDigit(codePoint)) {
+                word.appendCodePoint(Character.toLowerCase(codePoint));
+            } else {
+                flushWord(word, tokens);
+            }
+        }
+        flushSingle(previousCjk, cjkRunHasBigram, tokens);
+        flushWord(word, tokens);
+        return tokens;
+    }
+
+    /**
+     * 是否为单个中日韩字符（只能做单字匹配，倒排索引中没有这样的词）
+     */
+    public static boolean isSingleCjk(String token) {
+        return token.codePointCount(0, token.length()) == 1 && isCjk(token.codePointAt(0));
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static void flushSingle(int cjk, boolean hasBigram, List<String> tokens) {
+        if (cjk >= 0 && !hasBigram) {
+            tokens.add(new String(Character.toChars(cjk)));
+        }
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+}
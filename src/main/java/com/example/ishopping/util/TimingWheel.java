@@ -0,0 +1,154 @@
+package com.example.ishopping.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * 分层时间轮（hashed hierarchical timing wheel）
+ * 每层 64 个槽，第 0 层一格为一个 tick，第 L 层一格为 64^L 个 tick；登记到期时间为 O(1)，
+ * 推进时只处理到期的槽，高层槽在低层转满一圈时整体降级到低层。
+ * 槽内以两个 long 数组保存 (id, 到期 tick)，几百万条登记也不为每条创建对象。
+ * 非线程安全，由调用方加锁。
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final int levels;
+    private final Bucket[][] wheels;
+    // 超出最高层范围的登记，最高层转满一圈时重新分配
+    private final Bucket overflow = new Bucket();
+    // 登记时已到期的条目，下次推进时触发
+    private final Bucket overdue = new Bucket();
+
+    // 已处理到的 tick（绝对值：毫秒时间 / tickMillis）
+    private long currentTick;
+    private long size;
+
+    public TimingWheel(long tickMillis, int levels, long startMillis) {
+        if (tickMillis <= 0 || levels <= 0 || levels * SLOT_BITS >= 62) {
+            throw new IllegalArgumentException("时间轮参数无效: tickMillis=" + tickMillis + ", levels=" + levels);
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.wheels = new Bucket[levels][SLOTS];
+        for (Bucket[] wheel : wheels) {
+            for (int i = 0; i < SLOTS; i++) {
+                wheel[i] = new Bucket();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * 登记 id 在 deadlineMillis 到期（向上取整到 tick）
+     */
+    public void add(long id, long deadlineMillis) {
+        place(id, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        size++;
+    }
+
+    /**
+     * 推进到 nowMillis，依次回调所有已到期的 id
+     */
+    public void advanceTo(long nowMillis, LongConsumer expired) {
+        drain(overdue, expired);
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            long tick = ++currentTick;
+            // 从高到低把转到的高层槽降级，降级后已到期的直接进入 overdue
+            if ((tick & ((1L << (SLOT_BITS * levels)) - 1)) == 0) {
+                cascade(overflow);
+            }
+            for (int level = levels - 1; level >= 1; level--) {
+                if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(wheels[level][(int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK]);
+                }
+            }
+            drain(wheels[0][(int) tick & SLOT_MASK], expired);
+            drain(overdue, expired);
+        }
+    }
+
+    /**
+     * 尚未触发的登记数
+     */
+    public long size() {
+        return size;
+    }
+
+    private void place(long id, long deadlineTick) {
+        if (deadlineTick <= currentTick) {
+            overdue.add(id, deadlineTick);
+            return;
+        }
+        // 选择最低的一层，使到期 tick 与当前 tick 在上一层处于同一格
+        for (int level = 0; level < levels; level++) {
+            int shift = SLOT_BITS * (level + 1);
+            if ((deadlineTick >>> shift) == (currentTick >>> shift)) {
+                wheels[level][(int) (deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK].add(id, deadlineTick);
+                return;
+            }
+        }
+        overflow.add(id, deadlineTick);
+    }
+
+    private void cascade(Bucket bucket) {
+        if (bucket.count == 0) {
+            return;
+        }
+        long[] ids = bucket.ids;
+        long[] deadlines = bucket.deadlines;
+        int count = bucket.count;
+        bucket.reset();
+        for (int i = 0; i < count; i++) {
+            place(ids[i], deadlines[i]);
+        }
+    }
+
+    private void drain(Bucket bucket, LongConsumer expired) {
+        if (bucket.count == 0) {
+            return;
+        }
+        long[] ids = bucket.ids;
+        int count = bucket.count;
+        bucket.reset();
+        size -= count;
+        for (int i = 0; i < count; i++) {
+            expired.accept(ids[i]);
+        }
+    }
+
+    /**
+     * 一个槽：可增长的 (id, 到期 tick) 数组
+     */
+    private static final class Bucket {
+
+        private static final long[] EMPTY = new long[0];
+
+        long[] ids = EMPTY;
+        long[] deadlines = EMPTY;
+        int count;
+
+        void add(long id, long deadlineTick) {
+            if (count == ids.length) {
+                int capacity = Math.max(8, count * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                deadlines = Arrays.copyOf(deadlines, capacity);
+            }
+            ids[count] = id;
+            deadlines[count] = deadlineTick;
+            count++;
+        }
+
+        // 交出数组后换成空数组，槽被清空时释放内存
+        void reset() {
+            ids = EMPTY;
+            deadlines = EMPTY;
+            count = 0;
+        }
+    }
+}
@@ -107,4 +107,114 @@ CREATE INDEX idx_orders_number ON orders(order_number);
 CREATE INDEX idx_order_items_order ON order_items(order_id);
 CREATE INDEX idx_shopping_cart_user ON shopping_cart(user_id);
 
-ALTER TABLE order_items ADD COLUMN create_time DATETIME DEFAULT CURRENT_TIMESTAMP;
\ No newline at end of file
+ALTER TABLE order_items ADD COLUMN create_time DATETIME DEFAULT CURRENT_TIMESTAMP;
+
+-- 订单/订单项号段主键：从现有最大ID之后开始分配（已存在则跳过；应用启动时 IdGeneratorInitializer 还会再校准一次）
+CREATE TABLE IF NOT EXISTS id_generator (
+                                            gen_name VARCHAR(255) NOT NULL PRIMARY KEY,
+                                            next_val BIGINT
+);
+INSERT IGNORE INTO id_generator (gen_name, next_val) SELECT 'orders', COALESCE(MAX(id), 0) + 1 FROM orders;
+INSERT IGNORE INTO id_generator (gen_name, next_val) SELECT 'order_items', COALESCE(MAX(id), 0) + 1 FROM order_items;
+-- 幂等请求结果（Idempotency-Key 重试回放）
+CREATE TABLE IF NOT EXISTS idempotency_records (
+                                                   id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                                                   idempotency_key VARCHAR(255) NOT NULL UNIQUE,
+                                                   status_code INT NOT NULL,
+                                                   content_type VARCHAR(100),
+                                                   body TEXT,
+                                                   create_time DATETIME DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_idempotency_records_create_time ON idempotency_records(create_time);
+
+-- 游标分页：按 (create_time, id) 定位，列表过滤列在前
+CREATE INDEX idx_orders_time ON orders(create_time, id);
+CREATE INDEX idx_orders_user_time ON orders(user_id, create_time, id);
+CREATE INDEX idx_orders_seller_time ON orders(seller_id, create_time, id);
+CREATE INDEX idx_products_status_time ON products(status, create_time, id);
+CREATE INDEX idx_products_category_time ON products(category, status, create_time, id);
+CREATE INDEX idx_products_seller_time ON products(seller_id, create_time, id);
+
+-- 订单号搜索：前缀走 order_number，尾号走倒序列 order_number_rev；商家搜索带 seller_id 前缀
+ALTER TABLE orders ADD COLUMN order_number_rev VARCHAR(50);
+UPDATE orders SET order_number_rev = REVERSE(order_number) WHERE order_number_rev IS NULL;
+CREATE INDEX idx_orders_number_rev ON orders(order_number_rev);
+CREATE INDEX idx_orders_seller_number ON orders(seller_id, order_number);
+CREATE INDEX idx_orders_seller_number_rev ON orders(seller_id, order_number_rev);
+
+-- 冷订单归档：已完成/已取消且超过保留期的订单搬到归档表（保留原ID，不建外键）
+CREATE TABLE IF NOT EXISTS orders_archive (
+                                              id BIGINT PRIMARY KEY,
+                                              order_number VARCHAR(50) UNIQUE NOT NULL,
+                                              order_number_rev VARCHAR(50),
+                                              user_id BIGINT NOT NULL,
+                                              seller_id BIGINT NOT NULL,
+                                              total_amount DECIMAL(10,2) NOT NULL,
+                                              discount_amount DECIMAL(10,2) DEFAULT 0.00,
+                                              shipping_fee DECIMAL(10,2) DEFAULT 0.00,
+                                              actual_amount DECIMAL(10,2) NOT NULL,
+                                              status VARCHAR(20) NOT NULL,
+                                              shipping_address TEXT,
+                                              receiver_name VARCHAR(100),
+                                              receiver_phone VARCHAR(20),
+                                              payment_method VARCHAR(50),
+                                              payment_time TIMESTAMP NULL,
+                                              delivery_time TIMESTAMP NULL,
+                                              receive_time TIMESTAMP NULL,
+                                              create_time TIMESTAMP NOT NULL,
+                                              update_time TIMESTAMP NOT NULL,
+                                              archive_time TIMESTAMP NOT NULL
+);
+CREATE TABLE IF NOT EXISTS order_items_archive (
+                                                   id BIGINT PRIMARY KEY,
+                                                   order_id BIGINT NOT NULL,
+                                                   product_id BIGINT NOT NULL,
+                                                   quantity INT NOT NULL,
+                                                   price DECIMAL(10,2) NOT NULL,
+                                                   create_time DATETIME NOT NULL
+);
+CREATE INDEX idx_orders_archive_time ON orders_archive(create_time, id);
+CREATE INDEX idx_orders_archive_user_time ON orders_archive(user_id, create_time, id);
+CREATE INDEX idx_orders_archive_seller_time ON orders_archive(seller_id, create_time, id);
+CREATE INDEX idx_order_items_archive_order ON order_items_archive(order_id);
+-- 归档任务按 (status, update_time) 挑选待归档订单
+CREATE INDEX idx_orders_status_update_time ON orders(status, update_time);
+
+-- 订单状态时间线：每次状态变化追加一行（只追加，不更新）
+CREATE TABLE IF NOT EXISTS order_status_events (
+                                                   id BIGINT PRIMARY KEY,
+                                                   order_id BIGINT NOT NULL,
+                                                   old_status VARCHAR(20),
+                                                   new_status VARCHAR(20),
+                                                   operator_id BIGINT,
+                                                   create_time DATETIME NOT NULL
+);
+CREATE INDEX idx_order_status_events_order ON order_status_events(order_id, create_time, id);
+
+-- 营收汇总：每个商家每小时/每天一行（category 为空串），另按商品分类各一行
+CREATE TABLE IF NOT EXISTS revenue_rollups (
+                                               id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                                               seller_id BIGINT NOT NULL,
+                                               granularity VARCHAR(10) NOT NULL,
+                                               category VARCHAR(50) NOT NULL,
+                                               bucket_start DATETIME NOT NULL,
+                                               order_count BIGINT NOT NULL,
+                                               total_amount DECIMAL(14,2) NOT NULL,
+                                               actual_amount DECIMAL(14,2) NOT NULL,
+                                               UNIQUE KEY uk_revenue_rollups_bucket (seller_id, granularity, category, bucket_start)
+);
+-- 首次上线时按已有订单回填（之后由应用增量维护）
+INSERT INTO revenue_rollups (seller_id, granularity, category, bucket_start, order_count, total_amount, actual_amount)
+SELECT seller_id, 'HOUR', '', DATE_FORMAT(create_time, '%Y-%m-%d %H:00:00'), COUNT(*), SUM(total_amount), SUM(actual_amount)
+FROM (SELECT seller_id, create_time, total_amount, actual_amount, status FROM orders
+      UNION ALL SELECT seller_id, create_time, total_amount, actual_amount, status FROM orders_archive) o
+WHERE status NOT IN ('CANCELLED', 'REFUNDED')
+GROUP BY seller_id, DATE_FORMAT(create_time, '%Y-%m-%d %H:00:00')
+ON DUPLICATE KEY UPDATE order_count = order_count;
+INSERT INTO revenue_rollups (seller_id, granularity, category, bucket_start, order_count, total_amount, actual_amount)
+SELECT seller_id, 'DAY', '', DATE(create_time), COUNT(*), SUM(total_amount), SUM(actual_amount)
+FROM (SELECT seller_id, create_time, total_amount, actual_amount, status FROM orders
+      UNION ALL SELECT seller_id, create_time, total_amount, actual_amount, status FROM orders_archive) o
+WHERE status NOT IN ('CANCELLED', 'REFUNDED')
+GROUP BY seller_id, DATE(create_time)
+ON DUPLICATE KEY UPDATE order_count = order_count;
@@ -0,0 +1,86 @@
+package com.example.ishopping.config;
+
+import com.example.ishopping.IShoppingApplication;
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.service.OrderService;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 在已有订单的数据库上重新启动：id_generator 的行丢失（相当于 Hibernate 刚建表）时，新订单不能复用已有ID
+ */
+class IdGeneratorInitializerTest {
+
+    private static final long SELLER_ID = 9801L;
+    private static final long BUYER_ID = 9802L;
+
+    private final String url = "jdbc:h2:mem:id-seed-" + UUID.randomUUID()
+            + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void restartOnExistingOrdersContinuesAfterMaxId() {
+        long maxOrderId;
+        long maxItemId;
+        Long productId;
+        try (ConfigurableApplicationContext first = start()) {
+            Product product = new Product("号段商品", "号段测试", new BigDecimal("8.00"), 100, "其他", SELLER_ID);
+            productId = first.getBean(ProductRepository.class).save(product).getId();
+            UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "seed_buyer");
+            for (int i = 0; i < 3; i++) {
+                first.getBean(OrderService.class).createOrder(request(productId));
+            }
+            JdbcTemplate jdbc = first.getBean(JdbcTemplate.class);
+            maxOrderId = jdbc.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+            maxItemId = jdbc.queryForObject("SELECT MAX(id) FROM order_items", Long.class);
+            jdbc.update("DELETE FROM id_generator");
+        }
+
+        try (ConfigurableApplicationContext second = start()) {
+            Order order = second.getBean(OrderService.class).createOrder(request(productId));
+            assertTrue(order.getId() > maxOrderId, "新订单ID " + order.getId() + " 应大于已有最大ID " + maxOrderId);
+            Long itemId = second.getBean(JdbcTemplate.class)
+                    .queryForObject("SELECT id FROM order_items WHERE order_id = ?", Long.class, order.getId());
+            assertTrue(itemId > maxItemId);
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(IShoppingApplication.class)
+                .profiles("test")
+                .run("--spring.datasource.url=" + url,
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--server.port=0");
+    }
+
+    private CreateOrderRequest request(Long productId) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(1);
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("杭州市西湖区文三路");
+        request.setReceiverName("周八");
+        request.setReceiverPhone("13500135008");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.ishopping.config;
+
+import com.example.ishopping.IShoppingApplication;
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.dto.OrderResponse;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.service.OrderQueryService;
+import com.example.ishopping.service.OrderService;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 在已有订单的数据库上重新启动：order_number_rev 为 NULL、尾号索引缺失（相当于 ddl-auto 刚加上这一列）时，
+ * 启动后补齐倒序订单号和索引，已有订单可按尾号搜到
+ */
+class OrderNumberRevInitializerTest {
+
+    private static final long SELLER_ID = 9811L;
+    private static final long BUYER_ID = 9812L;
+
+    private final String url = "jdbc:h2:mem:number-rev-" + UUID.randomUUID()
+            + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void restartBackfillsReversedNumbersAndIndexes() {
+        String orderNumber;
+        try (ConfigurableApplicationContext first = start()) {
+            Product product = new Product("尾号商品", "尾号测试", new BigDecimal("8.00"), 100, "其他", SELLER_ID);
+            Long productId = first.getBean(ProductRepository.class).save(product).getId();
+            UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "rev_buyer");
+            OrderService orderService = first.getBean(OrderService.class);
+            orderNumber = orderService.createOrder(request(productId)).getOrderNumber();
+            orderService.createOrder(request(productId));
+            JdbcTemplate jdbc = first.getBean(JdbcTemplate.class);
+            jdbc.update("UPDATE orders SET order_number_rev = NULL");
+            jdbc.update("DROP INDEX idx_orders_number_rev");
+            jdbc.update("DROP INDEX idx_orders_seller_number_rev");
+        }
+
+        try (ConfigurableApplicationContext second = start()) {
+            JdbcTemplate jdbc = second.getBean(JdbcTemplate.class);
+            assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM orders WHERE order_number_rev IS NULL", Long.class));
+            assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM information_schema.indexes " +
+                    "WHERE LOWER(index_name) IN ('idx_orders_number_rev', 'idx_orders_seller_number_rev')", Long.class));
+
+            UserContext.setCurrentUser(1L, UserRole.ADMIN, "admin");
+            List<OrderResponse> found = second.getBean(OrderQueryService.class)
+                    .searchOrders(orderNumber.substring(orderNumber.length() - 8), 0, 20);
+            assertEquals(List.of(orderNumber), found.stream().map(OrderResponse::getOrderNumber).toList());
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(IShoppingApplication.class)
+                .profiles("test")
+                .run("--spring.datasource.url=" + url,
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--server.port=0",
+                        "--app.order.number-rev.backfill-batch-size=1");
+    }
+
+    private CreateOrderRequest request(Long productId) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(1);
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("杭州市西湖区文三路");
+        request.setReceiverName("周八");
+        request.setReceiverPhone("13500135008");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
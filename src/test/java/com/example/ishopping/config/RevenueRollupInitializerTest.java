@@ -0,0 +1,106 @@
+package com.example.ishopping.config;
+
+import com.example.ishopping.IShoppingApplication;
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.service.OrderService;
+import com.example.ishopping.service.RevenueRollupService;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 在已有订单的数据库上重新启动：revenue_rollups 为空（相当于 ddl-auto 刚建表）时，启动后按已有订单回填，
+ * 结果与订单事件增量维护的汇总一致；汇总表已有数据时不再回填
+ */
+class RevenueRollupInitializerTest {
+
+    private static final long SELLER_ID = 9821L;
+    private static final long BUYER_ID = 9822L;
+
+    // 只比较有数据的行：下单后又取消的时间桶在增量汇总中留下全 0 的行
+    private static final String ROWS_SQL = "SELECT seller_id, granularity, category, bucket_start, order_count, "
+            + "total_amount, actual_amount FROM revenue_rollups WHERE order_count <> 0 OR total_amount <> 0 "
+            + "ORDER BY seller_id, granularity, category, bucket_start";
+
+    private final String url = "jdbc:h2:mem:rollup-backfill-" + UUID.randomUUID()
+            + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void restartOnEmptyRollupsBackfillsFromExistingOrders() {
+        List<Map<String, Object>> incremental;
+        try (ConfigurableApplicationContext first = start()) {
+            ProductRepository products = first.getBean(ProductRepository.class);
+            Long book = products.save(new Product("回填图书", "回填测试", new BigDecimal("30.00"), 100, "图书", SELLER_ID)).getId();
+            Long toy = products.save(new Product("回填玩具", "回填测试", new BigDecimal("20.00"), 100, "玩具", SELLER_ID)).getId();
+            UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "backfill_buyer");
+            OrderService orderService = first.getBean(OrderService.class);
+            orderService.createOrder(request(book, 2, toy, 1));
+            orderService.createOrder(request(toy, 3, null, 0));
+            Long cancelled = orderService.createOrder(request(book, 1, null, 0)).getId();
+            orderService.cancelOrder(cancelled);
+            first.getBean(RevenueRollupService.class).flush();
+
+            JdbcTemplate jdbc = first.getBean(JdbcTemplate.class);
+            incremental = jdbc.queryForList(ROWS_SQL);
+            assertTrue(!incremental.isEmpty());
+            jdbc.update("DELETE FROM revenue_rollups");
+        }
+
+        try (ConfigurableApplicationContext second = start()) {
+            assertEquals(incremental, second.getBean(JdbcTemplate.class).queryForList(ROWS_SQL));
+            // 汇总表已有数据：不重复回填
+            assertEquals(0, second.getBean(RevenueRollupService.class).backfill());
+            assertEquals(incremental, second.getBean(JdbcTemplate.class).queryForList(ROWS_SQL));
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(IShoppingApplication.class)
+                .profiles("test")
+                .run("--spring.datasource.url=" + url,
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--server.port=0",
+                        "--app.order.rollup.batch-size=1");
+    }
+
+    private CreateOrderRequest request(Long productId, int quantity, Long otherProductId, int otherQuantity) {
+        List<CreateOrderRequest.OrderItemRequest> items = new ArrayList<>();
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        items.add(item);
+        if (otherProductId != null) {
+            CreateOrderRequest.OrderItemRequest other = new CreateOrderRequest.OrderItemRequest();
+            other.setProductId(otherProductId);
+            other.setQuantity(otherQuantity);
+            items.add(other);
+        }
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("成都市武侯区人民南路");
+        request.setReceiverName("周三");
+        request.setReceiverPhone("13500135020");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(items);
+        return request;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.ishopping.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 查询依赖的索引声明在实体上，由 Hibernate 建表时一并建立
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SchemaIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void keysetPaginationIndexesExist() {
+        assertIndex("orders", "idx_orders_time", "create_time", "id");
+        assertIndex("orders", "idx_orders_user_time", "user_id", "create_time", "id");
+        assertIndex("orders", "idx_orders_seller_time", "seller_id", "create_time", "id");
+        assertIndex("products", "idx_products_status_time", "status", "create_time", "id");
+        assertIndex("products", "idx_products_category_time", "category", "status", "create_time", "id");
+        assertIndex("products", "idx_products_seller_time", "seller_id", "create_time", "id");
+    }
+
+    @Test
+    void orderNumberSearchIndexesExist() {
+        assertIndex("orders", "idx_orders_number_rev", "order_number_rev");
+        assertIndex("orders", "idx_orders_seller_number", "seller_id", "order_number");
+        assertIndex("orders", "idx_orders_seller_number_rev", "seller_id", "order_number_rev");
+    }
+
+    @Test
+    void archiveIndexesExist() {
+        assertIndex("orders", "idx_orders_status_update_time", "status", "update_time");
+        assertIndex("orders_archive", "idx_orders_archive_time", "create_time", "id");
+        assertIndex("orders_archive", "idx_orders_archive_user_time", "user_id", "create_time", "id");
+        assertIndex("orders_archive", "idx_orders_archive_seller_time", "seller_id", "create_time", "id");
+        assertIndex("order_items_archive", "idx_order_items_archive_order", "order_id");
+    }
+
+    @Test
+    void orderTimelineIndexExists() {
+        assertIndex("order_status_events", "idx_order_status_events_order", "order_id", "create_time", "id");
+    }
+
+    private void assertIndex(String table, String index, String... columns) {
+        List<String> actual = jdbcTemplate.queryForList(
+                "SELECT LOWER(column_name) FROM information_schema.index_columns " +
+                        "WHERE LOWER(table_name) = ? AND LOWER(index_name) = ? ORDER BY ordinal_position",
+                String.class, table, index);
+        assertEquals(List.of(columns), actual, table + "." + index);
+    }
+}
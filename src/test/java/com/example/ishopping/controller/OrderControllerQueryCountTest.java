@@ -0,0 +1,116 @@
+package com.example.ishopping.controller;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.User;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.repository.UserRepository;
+import com.example.ishopping.service.OrderService;
+import com.example.ishopping.support.SqlStatementCounter;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(SqlStatementCounter.class)
+class OrderControllerQueryCountTest {
+
+    private static final long SELLER_ID = 8001L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlStatementCounter counter;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void orderPageNeedsFixedNumberOfStatements() throws Exception {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            products.add(productRepository.save(
+                    new Product("分页商品" + i, "分页测试", new BigDecimal("8.00"), 1000, "其他", SELLER_ID)));
+        }
+        // 5 位顾客共 25 单，每单 2 个订单项
+        for (int i = 0; i < 5; i++) {
+            User buyer = newCustomer("page_buyer_" + i);
+            UserContext.setCurrentUser(buyer.getId(), UserRole.CUSTOMER, buyer.getUsername());
+            for (int j = 0; j < 5; j++) {
+                orderService.createOrder(request(products.get(j % 4).getId(), products.get((j + 1) % 4).getId()));
+            }
+        }
+        UserContext.clear();
+
+        MockHttpSession seller = new MockHttpSession();
+        seller.setAttribute("userId", SELLER_ID);
+        seller.setAttribute("role", UserRole.SELLER);
+        seller.setAttribute("username", "page_seller");
+
+        counter.reset();
+        mockMvc.perform(get("/api/orders").param("size", "20").session(seller))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(20))
+                .andExpect(jsonPath("$[0].user.username").exists())
+                .andExpect(jsonPath("$[0].items[0].productName").exists());
+        // 订单投影、订单项（含商品名称和图片）、下单用户
+        assertEquals(3, counter.count());
+
+        counter.reset();
+        mockMvc.perform(get("/api/orders").param("size", "20").session(seller))
+                .andExpect(status().isOk());
+        // 下单用户摘要已缓存
+        assertEquals(2, counter.count());
+    }
+
+    private User newCustomer(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("user123");
+        user.setEmail(username + "@example.com");
+        user.setRole(UserRole.CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private CreateOrderRequest request(Long... productIds) {
+        List<CreateOrderRequest.OrderItemRequest> items = new ArrayList<>();
+        for (Long productId : productIds) {
+            CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+            item.setProductId(productId);
+            item.setQuantity(1);
+            items.add(item);
+        }
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("深圳市南山区科技园");
+        request.setReceiverName("赵六");
+        request.setReceiverPhone("13500135004");
+        request.setPaymentMethod("WECHAT");
+        request.setOrderItems(items);
+        return request;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.ishopping.controller;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.service.OrderService;
+import com.example.ishopping.service.SellerOrderFeedService;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+@ActiveProfiles("test")
+class SellerOrderStreamTest {
+
+    private static final long SELLER_ID = 8901L;
+    private static final long OTHER_SELLER_ID = 8902L;
+    private static final long BUYER_ID = 8903L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SellerOrderFeedService sellerOrderFeedService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void pushesCommittedOrderEventsOnlyToTheOwningSeller() throws Exception {
+        Product product = productRepository.save(new Product("推送商品", "推送测试", BigDecimal.TEN, 10, "其他", SELLER_ID));
+        int subscribersBefore = sellerOrderFeedService.getSubscriberCount();
+
+        MvcResult own = mockMvc.perform(get("/api/orders/seller/stream").session(session(SELLER_ID)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult other = mockMvc.perform(get("/api/orders/seller/stream").session(session(OTHER_SELLER_ID)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertTrue(sellerOrderFeedService.getSubscriberCount() == subscribersBefore + 2);
+        awaitContent(own.getResponse(), "event:stats");
+
+        UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "stream_buyer");
+        Order order = orderService.createOrder(orderRequest(product.getId()));
+        orderService.cancelOrder(order.getId());
+
+        String content = awaitContent(own.getResponse(), "\"newStatus\":\"CANCELLED\"");
+        assertTrue(content.contains("event:created"));
+        assertTrue(content.contains("\"orderNumber\":\"" + order.getOrderNumber() + "\""));
+        assertTrue(content.contains("event:status"));
+        assertTrue(content.contains("\"cancelledOrders\":1"));
+        assertFalse(other.getResponse().getContentAsString().contains(order.getOrderNumber()));
+    }
+
+    private String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = response.getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = response.getContentAsString();
+        }
+        assertTrue(content.contains(expected), content);
+        return content;
+    }
+
+    private MockHttpSession session(long sellerId) {
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("userId", sellerId);
+        session.setAttribute("role", UserRole.SELLER);
+        session.setAttribute("username", "stream_seller_" + sellerId);
+        return session;
+    }
+
+    private CreateOrderRequest orderRequest(Long productId) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(1);
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("重庆市渝中区解放碑");
+        request.setReceiverName("王四");
+        request.setReceiverPhone("13500135012");
+        request.setPaymentMethod("WECHAT");
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
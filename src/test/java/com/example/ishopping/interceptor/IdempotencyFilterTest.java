@@ -0,0 +1,151 @@
+package com.example.ishopping.interceptor;
+
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.ShoppingCart;
+import com.example.ishopping.entity.User;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.repository.ShoppingCartRepository;
+import com.example.ishopping.repository.UserRepository;
+import com.example.ishopping.support.SqlStatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(SqlStatementCounter.class)
+class IdempotencyFilterTest {
+
+    private static final int RETRIES = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlStatementCounter statementCounter;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ShoppingCartRepository shoppingCartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void retryStormWithSameKeyAddsToCartOnce() throws Exception {
+        MockHttpSession session = login("idem_storm");
+        Product product = productRepository.save(new Product("耳机", "商家A", new BigDecimal("99.00"), 100, "数码", 2L));
+
+        statementCounter.reset();
+        List<MockHttpServletResponse> responses = storm(session, product.getId(), "retry-key-1");
+        int keyedStatements = statementCounter.count();
+
+        List<ShoppingCart> cart = shoppingCartRepository.findByUserId((Long) session.getAttribute("userId"));
+        assertEquals(1, cart.size());
+        assertEquals(2, cart.get(0).getQuantity());
+
+        String firstBody = responses.get(0).getContentAsString();
+        long replayed = responses.stream()
+                .filter(r -> "true".equals(r.getHeader(IdempotencyFilter.REPLAYED_HEADER)))
+                .count();
+        assertEquals(RETRIES - 1, replayed);
+        for (MockHttpServletResponse response : responses) {
+            assertEquals(200, response.getStatus());
+            assertEquals(firstBody, response.getContentAsString());
+        }
+
+        // 对照：同样数量的不带幂等键的重试会逐个执行
+        MockHttpSession plainSession = login("idem_plain");
+        statementCounter.reset();
+        for (int i = 0; i < RETRIES; i++) {
+            mockMvc.perform(addRequest(plainSession, product.getId()));
+        }
+        int plainStatements = statementCounter.count();
+
+        System.out.println("重试风暴 SQL 语句数：带幂等键 " + keyedStatements + "，不带幂等键 " + plainStatements);
+        assertTrue(keyedStatements * 4 < plainStatements);
+    }
+
+    @Test
+    void sameKeyFromDifferentUsersIsNotShared() throws Exception {
+        Product product = productRepository.save(new Product("鼠标", "商家A", new BigDecimal("49.00"), 100, "数码", 2L));
+        MockHttpSession alice = login("idem_alice");
+        MockHttpSession bob = login("idem_bob");
+
+        mockMvc.perform(addRequest(alice, product.getId()).header(IdempotencyFilter.HEADER, "shared-key"));
+        MockHttpServletResponse response = mockMvc
+                .perform(addRequest(bob, product.getId()).header(IdempotencyFilter.HEADER, "shared-key"))
+                .andReturn().getResponse();
+
+        assertEquals(null, response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(1, shoppingCartRepository.findByUserId((Long) bob.getAttribute("userId")).size());
+    }
+
+    private List<MockHttpServletResponse> storm(MockHttpSession session, Long productId, String key) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(RETRIES);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<MockHttpServletResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < RETRIES; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(addRequest(session, productId).header(IdempotencyFilter.HEADER, key))
+                            .andReturn().getResponse();
+                }));
+            }
+            start.countDown();
+            List<MockHttpServletResponse> responses = new ArrayList<>();
+            for (Future<MockHttpServletResponse> future : futures) {
+                responses.add(future.get());
+            }
+            return responses;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private MockHttpServletRequestBuilder addRequest(MockHttpSession session, Long productId) {
+        return post("/api/cart/add")
+                .session(session)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"productId\":" + productId + ",\"quantity\":2}");
+    }
+
+    private MockHttpSession login(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("user123");
+        user.setRole(UserRole.CUSTOMER);
+        user = userRepository.save(user);
+
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("userId", user.getId());
+        session.setAttribute("role", UserRole.CUSTOMER);
+        session.setAttribute("username", username);
+        return session;
+    }
+}
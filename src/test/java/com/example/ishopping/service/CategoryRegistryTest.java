@@ -0,0 +1,139 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CategoryCount;
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CategoryRegistryTest {
+
+    private static final long SELLER_ID = 9601L;
+    private static final long BUYER_ID = 9602L;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CategoryRegistry categoryRegistry;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void countsFollowWritesAndStockOuts() {
+        UserContext.setCurrentUser(SELLER_ID, UserRole.SELLER, "catalog_seller");
+        Product kettle = productService.createProduct(product("目录电水壶", 2, "目录厨电"));
+        Product pot = productService.createProduct(product("目录电饭煲", 0, "目录厨电"));
+        Product lamp = productService.createProduct(product("目录台灯", 5, "目录灯具"));
+
+        assertCount("目录厨电", 2, 1);
+        assertCount("目录灯具", 1, 1);
+        List<CategoryCount> snapshot = productService.getAllCategories();
+        assertSame(snapshot, productService.getAllCategories());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(new CategoryCount("x", 1, 1)));
+
+        // 改分类、补库存
+        Product changes = new Product();
+        changes.setCategory("目录灯具");
+        changes.setStock(3);
+        productService.updateProduct(pot.getId(), changes);
+        assertCount("目录厨电", 1, 1);
+        assertCount("目录灯具", 2, 2);
+
+        // 下单买光库存后有货数减少，在售数不变
+        UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "catalog_buyer");
+        orderService.createOrder(orderRequest(kettle.getId(), 2));
+        assertCount("目录厨电", 1, 0);
+
+        // 最后一个在售商品下架后分类消失
+        UserContext.setCurrentUser(SELLER_ID, UserRole.SELLER, "catalog_seller");
+        productService.deleteProduct(kettle.getId());
+        assertNull(find("目录厨电"));
+        productService.deleteProduct(lamp.getId());
+        assertCount("目录灯具", 1, 1);
+
+        // 重新统计结果与增量维护一致
+        categoryRegistry.rebuild();
+        assertNull(find("目录厨电"));
+        assertCount("目录灯具", 1, 1);
+    }
+
+    /**
+     * 售罄/补货按扣减、归还后的库存计入，与分面索引是否收录该商品无关
+     */
+    @Test
+    void stockTransitionsCountWithoutFacetDoc() {
+        // 绕过 ProductService 直接落库，分面索引中没有这个商品，分类目录重新统计后才收录
+        Product mug = productRepository.save(new Product("目录马克杯", "目录测试", new BigDecimal("39.00"), 1, "目录杯具", SELLER_ID));
+        categoryRegistry.rebuild();
+        assertCount("目录杯具", 1, 1);
+
+        UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "catalog_buyer");
+        Long orderId = orderService.createOrder(orderRequest(mug.getId(), 1)).getId();
+        assertCount("目录杯具", 1, 0);
+        // 库存不足的下单回滚，不影响计数
+        assertThrows(RuntimeException.class, () -> orderService.createOrder(orderRequest(mug.getId(), 1)));
+        assertCount("目录杯具", 1, 0);
+
+        orderService.cancelOrder(orderId);
+        assertCount("目录杯具", 1, 1);
+        categoryRegistry.rebuild();
+        assertCount("目录杯具", 1, 1);
+    }
+
+    private void assertCount(String name, long onSale, long inStock) {
+        CategoryCount count = find(name);
+        assertEquals(onSale, count.getOnSale(), name + " 在售数");
+        assertEquals(inStock, count.getInStock(), name + " 有货数");
+    }
+
+    private CategoryCount find(String name) {
+        return productService.getAllCategories().stream()
+                .filter(c -> c.getName().equals(name))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private Product product(String name, int stock, String category) {
+        return new Product(name, name + "（目录测试）", new BigDecimal("129.00"), stock, category, null);
+    }
+
+    private CreateOrderRequest orderRequest(Long productId, int quantity) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("武汉市洪山区珞喻路");
+        request.setReceiverName("郑五");
+        request.setReceiverPhone("13500135040");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CursorPage;
+import com.example.ishopping.dto.OrderResponse;
+import com.example.ishopping.dto.ProductSummary;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.util.PageCursor;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CursorPaginationTest {
+
+    private static final long SELLER_ID = 8201L;
+    private static final long BENCH_SELLER_ID = 8202L;
+    private static final long FIRST_ID = 90_000_000L;
+    private static final int ROWS = 100_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int RUNS = 20;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderQueryService orderQueryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void cursorWalksSellerProductsWithoutGapsOrRepeats() {
+        LocalDateTime sameTime = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Product product = new Product("游标商品" + i, "游标测试", BigDecimal.ONE, 10, "其他", SELLER_ID);
+            // 两两同一时间，由 id 决定先后
+            product.setCreateTime(sameTime.minusMinutes(i / 2));
+            expected.add(productRepository.save(product).getId());
+        }
+        UserContext.setCurrentUser(SELLER_ID, UserRole.SELLER, "cursor_seller");
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            CursorPage<ProductSummary> slice = productService.getProductsByCurrentSeller(cursor, 2);
+            slice.getItems().forEach(p -> walked.add(p.getId()));
+            cursor = slice.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(List.of(expected.get(1), expected.get(0), expected.get(3), expected.get(2), expected.get(4)),
+                walked);
+    }
+
+    /**
+     * 第 1 页与第 5000 页：OFFSET 分页与游标分页耗时对比（管理员全部订单，10 万单；gradle benchmark 运行）
+     */
+    @Tag("benchmark")
+    @Test
+    void deepPageCostsTheSameAsFirstPageWithCursor() {
+        LocalDateTime base = LocalDateTime.of(2025, 6, 1, 0, 0);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_orders_time ON orders(create_time DESC, id DESC)");
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Timestamp time = Timestamp.valueOf(base.minusSeconds(i));
+            rows.add(new Object[]{FIRST_ID + i, "BENCH" + i, 8203L, BENCH_SELLER_ID, time, time});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (id, order_number, user_id, seller_id, total_amount, " +
+                "discount_amount, shipping_fee, actual_amount, status, create_time, update_time) " +
+                "VALUES (?, ?, ?, ?, 10.00, 0, 0, 10.00, 'COMPLETED', ?, ?)", rows);
+
+        try {
+            UserContext.setCurrentUser(1L, UserRole.ADMIN, "admin");
+            int lastPage = ROWS / PAGE_SIZE - 1;
+            // 以倒数第二页的最后一单作为游标（时间取读回的值，与写入时的时区换算一致）
+            List<OrderResponse> previous = orderQueryService.getAllOrders(lastPage - 1, PAGE_SIZE);
+            OrderResponse anchor = previous.get(PAGE_SIZE - 1);
+            String deepCursor = new PageCursor(anchor.getCreateTime(), anchor.getId()).encode();
+
+            List<OrderResponse> offsetDeep = orderQueryService.getAllOrders(lastPage, PAGE_SIZE);
+            CursorPage<OrderResponse> cursorDeep = orderQueryService.getAllOrders(deepCursor, PAGE_SIZE);
+            assertEquals(ids(offsetDeep), ids(cursorDeep.getItems()));
+
+            time("OFFSET 第 1 页", () -> orderQueryService.getAllOrders(0, PAGE_SIZE));
+            time("OFFSET 第 " + (lastPage + 1) + " 页", () -> orderQueryService.getAllOrders(lastPage, PAGE_SIZE));
+            time("游标 第 1 页", () -> orderQueryService.getAllOrders("", PAGE_SIZE).getItems());
+            time("游标 第 " + (lastPage + 1) + " 页", () -> orderQueryService.getAllOrders(deepCursor, PAGE_SIZE).getItems());
+        } finally {
+            jdbcTemplate.update("DELETE FROM orders WHERE seller_id = ?", BENCH_SELLER_ID);
+        }
+    }
+
+    private void time(String name, Supplier<List<OrderResponse>> page) {
+        page.get();
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            page.get();
+        }
+        System.out.println(name + "：平均耗时 " + (System.nanoTime() - start) / 1000 / RUNS + " µs");
+    }
+
+    private List<Long> ids(List<OrderResponse> orders) {
+        return orders.stream().map(OrderResponse::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InventoryServiceConcurrencyTest {
+
+    private static final int BUYERS = 200;
+    private static final int STOCK = 50;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void parallelBuyersNeverOversell() throws Exception {
+        Product product = new Product("秒杀商品", "并发扣减测试", new BigDecimal("9.90"), STOCK, "其他", 1L);
+        Long productId = productRepository.save(product).getId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return transactionTemplate.execute(status -> {
+                    List<Long> shortages = inventoryService.deductStock(Map.of(productId, 1));
+                    if (!shortages.isEmpty()) {
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                    return true;
+                });
+            }));
+        }
+        start.countDown();
+
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            if (Boolean.TRUE.equals(result.get())) {
+                succeeded++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(STOCK, succeeded);
+        assertEquals(0, productRepository.findById(productId).orElseThrow().getStock());
+    }
+
+    @Test
+    void reportsEveryShortItem() {
+        Long plenty = productRepository.save(new Product("充足", "库存充足", BigDecimal.ONE, 10, "其他", 1L)).getId();
+        Long scarce = productRepository.save(new Product("紧缺", "库存紧缺", BigDecimal.ONE, 1, "其他", 1L)).getId();
+        Long empty = productRepository.save(new Product("售罄", "已售罄", BigDecimal.ONE, 0, "其他", 1L)).getId();
+
+        List<Long> shortages = transactionTemplate.execute(status -> {
+            List<Long> result = inventoryService.deductStock(Map.of(plenty, 2, scarce, 2, empty, 1));
+            status.setRollbackOnly();
+            return result;
+        });
+
+        assertEquals(List.of(scarce, empty), shortages);
+        assertEquals(10, productRepository.findById(plenty).orElseThrow().getStock());
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.dto.OrderResponse;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.OrderStatus;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.OrderItemRepository;
+import com.example.ishopping.repository.OrderRepository;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "app.order.archive.batch-size=2")
+@ActiveProfiles("test")
+class OrderArchiveServiceTest {
+
+    private static final long SELLER_ID = 8501L;
+    private static final long BUYER_ID = 8502L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderQueryService orderQueryService;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderStatsService orderStatsService;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void archivesColdOrdersAndReadsThemBackAsHistory() throws IOException {
+        Product product = productRepository.save(new Product("归档商品", "归档测试", BigDecimal.TEN, 100, "其他", SELLER_ID));
+        UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "archive_buyer");
+        List<Long> cold = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Order order = orderService.createOrder(request(product.getId()));
+            orderService.cancelOrder(order.getId());
+            cold.add(order.getId());
+        }
+        Long recentCancelled = orderService.createOrder(request(product.getId())).getId();
+        orderService.cancelOrder(recentCancelled);
+        Long pending = orderService.createOrder(request(product.getId())).getId();
+        for (Long id : cold) {
+            jdbcTemplate.update("UPDATE orders SET update_time = ? WHERE id = ?",
+                    LocalDateTime.now().minusDays(30), id);
+        }
+
+        assertEquals(3, orderArchiveService.archiveOrdersBefore(LocalDateTime.now().minusDays(7)));
+
+        for (Long id : cold) {
+            assertTrue(orderRepository.findById(id).isEmpty());
+            assertTrue(orderItemRepository.findByOrderId(id).isEmpty());
+            assertThrows(RuntimeException.class, () -> orderService.getOrderById(id));
+            Order archived = orderService.getOrderById(id, true);
+            assertEquals(OrderStatus.CANCELLED, archived.getStatus());
+            assertEquals(1, archived.getOrderItems().size());
+        }
+        assertEquals(List.of(recentCancelled, pending).stream().sorted().collect(Collectors.toList()),
+                orderQueryService.getOrdersByCurrentUser(0, 20).stream()
+                        .map(OrderResponse::getId).sorted().collect(Collectors.toList()));
+        List<OrderResponse> history = orderQueryService.getArchivedOrders(0, 20);
+        assertEquals(new HashSet<>(cold), history.stream().map(OrderResponse::getId).collect(Collectors.toSet()));
+        assertTrue(history.stream().allMatch(o -> o.getItems().size() == 1
+                && "归档商品".equals(o.getItems().get(0).getProductName())));
+
+        // 其他顾客看不到归档订单
+        UserContext.setCurrentUser(BUYER_ID + 100, UserRole.CUSTOMER, "other_buyer");
+        assertThrows(RuntimeException.class, () -> orderService.getOrderById(cold.get(0), true));
+        assertTrue(orderQueryService.getArchivedOrders(0, 20).isEmpty());
+
+        // 导出默认只含热表订单，history=true 时合并归档订单，按ID排序
+        UserContext.setCurrentUser(SELLER_ID, UserRole.SELLER, "archive_seller");
+        List<Long> all = new ArrayList<>(cold);
+        all.add(recentCancelled);
+        all.add(pending);
+        all.sort(null);
+        assertEquals(List.of(recentCancelled, pending), exportedIds(false));
+        assertEquals(all, exportedIds(true));
+
+        // 归档不改变统计口径，重建后仍计入
+        orderStatsService.rebuild();
+        Map<String, Object> stats = orderStatsService.getUserStats(BUYER_ID);
+        assertEquals(5L, ((Number) stats.get("totalOrders")).longValue());
+        assertEquals(4L, ((Number) stats.get("cancelledOrders")).longValue());
+    }
+
+    private List<Long> exportedIds(boolean history) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        orderExportService.exportOrders(OrderExportService.Format.CSV, null, null, null, null, false, history).writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i < lines.length; i++) {
+            ids.add(Long.parseLong(lines[i].substring(0, lines[i].indexOf(','))));
+        }
+        return ids;
+    }
+
+    private CreateOrderRequest request(Long productId) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(1);
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("南京市鼓楼区中山路");
+        request.setReceiverName("郑十");
+        request.setReceiverPhone("13500135008");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
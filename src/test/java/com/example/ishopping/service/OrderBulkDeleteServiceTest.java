@@ -0,0 +1,131 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.BulkDeleteReport;
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.OrderStatusEvent;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.OrderItemRepository;
+import com.example.ishopping.repository.OrderRepository;
+import com.example.ishopping.repository.OrderStatusEventRepository;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "app.order.bulk-delete.chunk-size=3",
+        "app.order.bulk-delete.parallelism=2"
+})
+@ActiveProfiles("test")
+class OrderBulkDeleteServiceTest {
+
+    private static final long SELLER_ID = 8401L;
+    private static final long BUYER_ID = 8402L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderBulkDeleteService orderBulkDeleteService;
+
+    @Autowired
+    private OrderStatsService orderStatsService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderTimelineService orderTimelineService;
+
+    @Autowired
+    private OrderStatusEventRepository orderStatusEventRepository;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void deletesCancelledOrdersInChunksAndReportsEachFailure() {
+        Product product = productRepository.save(new Product("批量删除商品", "批量删除测试", BigDecimal.TEN, 100, "其他", SELLER_ID));
+        UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "bulk_buyer");
+        List<Long> cancelled = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Order order = orderService.createOrder(request(product.getId()));
+            orderService.cancelOrder(order.getId());
+            cancelled.add(order.getId());
+        }
+        Long pending = orderService.createOrder(request(product.getId())).getId();
+
+        assertThrows(RuntimeException.class, () -> orderBulkDeleteService.deleteOrders(cancelled));
+
+        UserContext.setCurrentUser(1L, UserRole.ADMIN, "admin");
+        List<Long> ids = new ArrayList<>(cancelled);
+        ids.add(pending);
+        ids.add(-1L);
+        ids.add(cancelled.get(0));
+        BulkDeleteReport report = orderBulkDeleteService.deleteOrders(ids);
+
+        assertEquals(9, report.getRequested());
+        assertEquals(new HashSet<>(cancelled), new HashSet<>(report.getDeleted()));
+        Map<Long, String> failures = report.getFailed().stream()
+                .collect(Collectors.toMap(BulkDeleteReport.Failure::getOrderId, BulkDeleteReport.Failure::getReason));
+        assertEquals(Map.of(pending, "只能删除已取消或已完成的订单", -1L, "订单不存在"), failures);
+
+        for (Long id : cancelled) {
+            assertTrue(orderRepository.findById(id).isEmpty());
+            assertTrue(orderItemRepository.findByOrderId(id).isEmpty());
+        }
+        assertTrue(orderRepository.findById(pending).isPresent());
+
+        // 删除在线程池上执行，时间线仍记为发起删除的管理员
+        orderTimelineService.flush();
+        for (Long id : cancelled) {
+            List<OrderStatusEvent> timeline = orderStatusEventRepository.findByOrderIdOrderByCreateTimeAscIdAsc(id);
+            OrderStatusEvent deleted = timeline.get(timeline.size() - 1);
+            assertNull(deleted.getNewStatus());
+            assertEquals(1L, deleted.getOperatorId());
+        }
+
+        Map<String, Object> userStats = orderStatsService.getUserStats(BUYER_ID);
+        assertEquals(1L, ((Number) userStats.get("totalOrders")).longValue());
+        assertEquals(0L, ((Number) userStats.get("cancelledOrders")).longValue());
+    }
+
+    private CreateOrderRequest request(Long productId) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(1);
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("杭州市西湖区文三路");
+        request.setReceiverName("吴九");
+        request.setReceiverPhone("13500135007");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.OrderStatus;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.OrderRepository;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 时间轮只登记不推进，测试中直接调用批量取消
+@SpringBootTest(properties = "app.order.expiry.tick-ms=3600000")
+@ActiveProfiles("test")
+class OrderExpiryServiceTest {
+
+    private static final long SELLER_ID = 8601L;
+    private static final long BUYER_ID = 8602L;
+    private static final long RACE_SELLER_ID = 8603L;
+    private static final long RACE_BUYER_ID = 8604L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderExpiryService orderExpiryService;
+
+    @Autowired
+    private OrderStatsService orderStatsService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void cancelsStillPendingOrdersInOneBatchAndRestoresStock() {
+        Product first = productRepository.save(new Product("超时商品A", "超时测试", BigDecimal.TEN, 50, "其他", SELLER_ID));
+        Product second = productRepository.save(new Product("超时商品B", "超时测试", BigDecimal.ONE, 50, "其他", SELLER_ID));
+        long scheduledBefore = orderExpiryService.getScheduledCount();
+        UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "expiry_buyer");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(orderService.createOrder(request(first.getId(), 2, second.getId(), 3)).getId());
+        }
+        assertEquals(42, productRepository.findById(first.getId()).orElseThrow().getStock());
+        assertEquals(38, productRepository.findById(second.getId()).orElseThrow().getStock());
+        assertEquals(scheduledBefore + 4, orderExpiryService.getScheduledCount());
+        UserContext.setCurrentUser(SELLER_ID, UserRole.SELLER, "expiry_seller");
+        orderService.updateOrderStatus(ids.get(0), OrderStatus.PAID);
+        UserContext.clear();
+
+        assertEquals(3, orderExpiryService.cancelExpiredOrders(ids));
+
+        assertEquals(OrderStatus.PAID, orderRepository.findById(ids.get(0)).orElseThrow().getStatus());
+        for (Long id : ids.subList(1, 4)) {
+            assertEquals(OrderStatus.CANCELLED, orderRepository.findById(id).orElseThrow().getStatus());
+        }
+        assertEquals(48, productRepository.findById(first.getId()).orElseThrow().getStock());
+        assertEquals(47, productRepository.findById(second.getId()).orElseThrow().getStock());
+        Map<String, Object> stats = orderStatsService.getUserStats(BUYER_ID);
+        assertEquals(3L, ((Number) stats.get("cancelledOrders")).longValue());
+        assertEquals(0L, ((Number) stats.get("pendingOrders")).longValue());
+
+        // 再次到期不会重复归还库存
+        assertEquals(0, orderExpiryService.cancelExpiredOrders(ids));
+        assertEquals(48, productRepository.findById(first.getId()).orElseThrow().getStock());
+    }
+
+    /**
+     * 顾客取消、商家改为已支付与超时取消同时进行：超时取消先锁住订单并提交后，另外两条路径看到的是已取消，
+     * 不会再次归还库存，也不会把已取消的订单改回已支付
+     */
+    @Test
+    void manualChangesRacingExpiryWaitForItAndSeeCancelled() throws Exception {
+        Product product = productRepository.save(new Product("并发超时商品", "超时测试", BigDecimal.TEN, 10, "其他", RACE_SELLER_ID));
+        UserContext.setCurrentUser(RACE_BUYER_ID, UserRole.CUSTOMER, "expiry_race_buyer");
+        Long cancelled = orderService.createOrder(request(product.getId(), 2, null, 0)).getId();
+        Long paid = orderService.createOrder(request(product.getId(), 2, null, 0)).getId();
+        UserContext.clear();
+        assertEquals(6, productRepository.findById(product.getId()).orElseThrow().getStock());
+
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        CountDownLatch expired = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // 超时取消在外层事务中执行，提交前停住，订单行锁一直持有
+            Future<Integer> expiry = pool.submit(() -> transactionTemplate.execute(status -> {
+                int count = orderExpiryService.cancelExpiredOrders(List.of(cancelled, paid));
+                expired.countDown();
+                await(release);
+                return count;
+            }));
+            assertTrue(expired.await(10, TimeUnit.SECONDS));
+
+            Future<?> cancel = pool.submit(() -> {
+                UserContext.setCurrentUser(RACE_BUYER_ID, UserRole.CUSTOMER, "expiry_race_buyer");
+                try {
+                    return orderService.cancelOrder(cancelled);
+                } finally {
+                    UserContext.clear();
+                }
+            });
+            Future<?> pay = pool.submit(() -> {
+                UserContext.setCurrentUser(RACE_SELLER_ID, UserRole.SELLER, "expiry_race_seller");
+                try {
+                    return orderService.updateOrderStatus(paid, OrderStatus.PAID);
+                } finally {
+                    UserContext.clear();
+                }
+            });
+            Thread.sleep(300);
+            assertFalse(cancel.isDone());
+            assertFalse(pay.isDone());
+            release.countDown();
+
+            assertEquals(2, expiry.get(10, TimeUnit.SECONDS));
+            assertThrows(ExecutionException.class, () -> cancel.get(10, TimeUnit.SECONDS));
+            assertThrows(ExecutionException.class, () -> pay.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+
+        assertEquals(OrderStatus.CANCELLED, orderRepository.findById(cancelled).orElseThrow().getStatus());
+        assertEquals(OrderStatus.CANCELLED, orderRepository.findById(paid).orElseThrow().getStatus());
+        assertEquals(10, productRepository.findById(product.getId()).orElseThrow().getStock());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CreateOrderRequest request(Long firstId, int firstQuantity, Long secondId, int secondQuantity) {
+        CreateOrderRequest.OrderItemRequest firstItem = new CreateOrderRequest.OrderItemRequest();
+        firstItem.setProductId(firstId);
+        firstItem.setQuantity(firstQuantity);
+        List<CreateOrderRequest.OrderItemRequest> items = new ArrayList<>(List.of(firstItem));
+        if (secondId != null) {
+            CreateOrderRequest.OrderItemRequest secondItem = new CreateOrderRequest.OrderItemRequest();
+            secondItem.setProductId(secondId);
+            secondItem.setQuantity(secondQuantity);
+            items.add(secondItem);
+        }
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("武汉市洪山区珞喻路");
+        request.setReceiverName("钱一");
+        request.setReceiverPhone("13500135009");
+        request.setPaymentMethod("WECHAT");
+        request.setOrderItems(items);
+        return request;
+    }
+}
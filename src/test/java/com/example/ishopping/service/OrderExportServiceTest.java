@@ -0,0 +1,216 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.OrderStatus;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.User;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.repository.UserRepository;
+import com.example.ishopping.util.UserContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderExportServiceTest {
+
+    private static final long FIRST_ID = 95_000_000L;
+    private static final int ROWS = 50_000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void exportsFilteredOrdersAsCsvNdjsonAndGzip() throws IOException {
+        Long sellerId = newUser("export_seller", UserRole.SELLER);
+        Long otherSellerId = newUser("export_other_seller", UserRole.SELLER);
+        Long buyerId = newUser("export_buyer", UserRole.CUSTOMER);
+        Product product = productRepository.save(new Product("导出商品", "导出测试", BigDecimal.TEN, 100, "其他", sellerId));
+        Product other = productRepository.save(new Product("导出商品B", "导出测试", BigDecimal.TEN, 100, "其他", otherSellerId));
+        UserContext.setCurrentUser(buyerId, UserRole.CUSTOMER, "export_buyer");
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            orders.add(orderService.createOrder(request(product.getId(), "上海市, \"浦东\" 新区")));
+        }
+        orderService.createOrder(request(other.getId(), "上海市"));
+        orderService.cancelOrder(orders.get(2).getId());
+        assertThrows(RuntimeException.class, () -> orderExportService.exportOrders(
+                OrderExportService.Format.CSV, null, null, null, null, false, false));
+
+        // 商家导出时 sellerId 参数被忽略，只能导出自己的订单
+        UserContext.setCurrentUser(sellerId, UserRole.SELLER, "export_seller");
+        String[] csv = write(orderExportService.exportOrders(
+                OrderExportService.Format.CSV, null, null, null, otherSellerId, false, false)).split("\n");
+        assertEquals(4, csv.length);
+        assertTrue(csv[0].startsWith("id,order_number,user_id,seller_id,status"));
+        String createTime = orders.get(0).getCreateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        assertTrue(csv[1].startsWith(orders.get(0).getId() + "," + orders.get(0).getOrderNumber() + ","));
+        assertTrue(csv[1].contains(",\"上海市, \"\"浦东\"\" 新区\"," + createTime + ","), csv[1]);
+
+        String[] ndjson = write(orderExportService.exportOrders(OrderExportService.Format.NDJSON,
+                LocalDateTime.now().minusHours(1), LocalDateTime.now().plusHours(1), OrderStatus.PENDING, null, false, false))
+                .split("\n");
+        assertEquals(2, ndjson.length);
+        JsonNode first = objectMapper.readTree(ndjson[0]);
+        assertEquals(orders.get(0).getId().longValue(), first.get("id").asLong());
+        assertEquals("PENDING", first.get("status").asText());
+        assertEquals(createTime, first.get("create_time").asText());
+        assertTrue(first.get("payment_time").isNull());
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        orderExportService.exportOrders(OrderExportService.Format.CSV, null, null, null, null, true, false).writeTo(gzipped);
+        String unzipped = new String(new GZIPInputStream(new ByteArrayInputStream(gzipped.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertEquals(String.join("\n", csv) + "\n", unzipped);
+
+        assertTrue(write(orderExportService.exportOrders(OrderExportService.Format.CSV,
+                LocalDateTime.now().plusHours(1), null, null, null, false, false)).split("\n").length == 1);
+
+        assertTrue(meterRegistry.get("order.export").tag("format", "csv").timer().count() >= 3);
+        assertTrue(meterRegistry.get("order.export.rows").tag("format", "ndjson").counter().count() >= 2);
+    }
+
+    /**
+     * 吞吐量：5 万单导出 NDJSON（gzip），输出到计数流，按行/秒计（gradle benchmark 运行）
+     */
+    @Tag("benchmark")
+    @Test
+    void measuresExportThroughput() throws IOException {
+        Long sellerId = newUser("export_bench", UserRole.SELLER);
+        Long buyerId = newUser("export_bench_buyer", UserRole.CUSTOMER);
+        LocalDateTime base = LocalDateTime.of(2025, 6, 1, 0, 0);
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Timestamp time = Timestamp.valueOf(base.minusSeconds(i));
+            rows.add(new Object[]{FIRST_ID + i, "EXPORT" + i, buyerId, sellerId, time, time});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (id, order_number, user_id, seller_id, total_amount, " +
+                "discount_amount, shipping_fee, actual_amount, status, receiver_name, shipping_address, " +
+                "create_time, update_time) VALUES (?, ?, ?, ?, 10.00, 0, 0, 10.00, 'COMPLETED', '周一', " +
+                "'北京市海淀区中关村大街', ?, ?)", rows);
+
+        try {
+            UserContext.setCurrentUser(sellerId, UserRole.SELLER, "export_bench");
+            for (OrderExportService.Format format : OrderExportService.Format.values()) {
+                for (boolean gzip : new boolean[]{false, true}) {
+                    CountingOutputStream out = new CountingOutputStream();
+                    long start = System.nanoTime();
+                    orderExportService.exportOrders(format, null, null, null, null, gzip, false).writeTo(out);
+                    long micros = Math.max(1, (System.nanoTime() - start) / 1000);
+                    System.out.println("导出 " + format + (gzip ? "+gzip" : "") + "：" + ROWS + " 行，" + out.bytes / 1024
+                            + " KB，" + ROWS * 1_000_000L / micros + " 行/秒");
+                    if (!gzip) {
+                        assertEquals(ROWS + (format == OrderExportService.Format.CSV ? 1 : 0), out.lines);
+                    }
+                }
+            }
+        } finally {
+            jdbcTemplate.update("DELETE FROM orders WHERE seller_id = ?", sellerId);
+        }
+    }
+
+    private Long newUser(String username, UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("user123");
+        user.setRole(role);
+        return userRepository.save(user).getId();
+    }
+
+    private String write(StreamingResponseBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private CreateOrderRequest request(Long productId, String address) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(1);
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress(address);
+        request.setReceiverName("李三");
+        request.setReceiverPhone("13500135011");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+
+    /**
+     * 只统计字节数和换行数，不保存内容（行数只对未压缩输出有意义）
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        long bytes;
+        long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
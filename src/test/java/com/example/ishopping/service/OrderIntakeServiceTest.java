@@ -0,0 +1,95 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.dto.OrderIntakeStatus;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "app.order.intake.enabled=true")
+@ActiveProfiles("test")
+class OrderIntakeServiceTest {
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void login() {
+        UserContext.setCurrentUser(5L, UserRole.CUSTOMER, "zhangsan");
+    }
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void queuedOrdersAreCreatedUntilStockRunsOut() throws Exception {
+        Long productId = productRepository.save(
+                new Product("限量商品", "异步下单测试", new BigDecimal("20.00"), 10, "其他", 2L)).getId();
+
+        List<String> orderNumbers = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            OrderIntakeStatus status = orderIntakeService.submit(request(productId));
+            assertEquals("QUEUED", status.getStatus());
+            orderNumbers.add(status.getOrderNumber());
+        }
+        String missingProduct = orderIntakeService.submit(request(Long.MAX_VALUE)).getOrderNumber();
+
+        int created = 0;
+        int rejected = 0;
+        for (String orderNumber : orderNumbers) {
+            String status = awaitResult(orderNumber).getStatus();
+            if (status.equals("CREATED")) {
+                created++;
+            } else if (status.equals("REJECTED")) {
+                rejected++;
+            }
+        }
+
+        assertEquals(10, created);
+        assertEquals(10, rejected);
+        assertEquals("REJECTED", awaitResult(missingProduct).getStatus());
+        assertEquals(0, productRepository.findById(productId).orElseThrow().getStock());
+    }
+
+    private OrderIntakeStatus awaitResult(String orderNumber) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            OrderIntakeStatus status = orderIntakeService.getStatus(orderNumber);
+            if (!status.getStatus().equals("QUEUED")) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("订单未处理: " + orderNumber);
+    }
+
+    private CreateOrderRequest request(Long productId) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(1);
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("广州市天河区珠江新城");
+        request.setReceiverName("王五");
+        request.setReceiverPhone("13500135003");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
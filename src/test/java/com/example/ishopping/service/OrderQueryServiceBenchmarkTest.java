@@ -0,0 +1,143 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.dto.OrderItemResponse;
+import com.example.ishopping.dto.OrderResponse;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.OrderRepository;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.support.AllocationMeter;
+import com.example.ishopping.util.UserContext;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 订单列表读取路径对比：实体加载 + Hibernate.initialize（原路径）与投影查询（现路径）
+ * 输出每页平均堆分配字节数和耗时（gradle benchmark 运行，不在常规构建中）
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderQueryServiceBenchmarkTest {
+
+    private static final long SELLER_ID = 8101L;
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderQueryService orderQueryService;
+
+    @Autowired
+    private OrderAssembler orderAssembler;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void projectionPathMatchesEntityPath() {
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Product product = new Product("对比商品" + i, "读取路径对比", new BigDecimal("6.00"), 1000, "其他", SELLER_ID);
+            product.setDescription("商品详情".repeat(240));
+            productIds.add(productRepository.save(product).getId());
+        }
+        UserContext.setCurrentUser(8102L, UserRole.CUSTOMER, "bench_buyer");
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            orderService.createOrder(request(productIds.subList(0, 1 + i % 5)));
+        }
+        UserContext.setCurrentUser(SELLER_ID, UserRole.SELLER, "bench_seller");
+
+        List<OrderResponse> entityPage = entityPath();
+        List<OrderResponse> projectionPage = orderQueryService.getOrdersBySeller(0, PAGE_SIZE);
+        assertEquals(PAGE_SIZE, projectionPage.size());
+        assertEquals(ids(entityPage), ids(projectionPage));
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            assertEquals(itemNames(entityPage.get(i)), itemNames(projectionPage.get(i)));
+        }
+
+        measure("实体加载", this::entityPath);
+        measure("投影查询", () -> orderQueryService.getOrdersBySeller(0, PAGE_SIZE));
+    }
+
+    /**
+     * 原读取路径：分页加载订单实体，逐单初始化订单项和商品后再组装 DTO
+     */
+    private List<OrderResponse> entityPath() {
+        return transactionTemplate.execute(status -> {
+            List<Order> orders = orderRepository
+                    .findBySellerIdOrderByCreateTimeDesc(SELLER_ID, PageRequest.of(0, PAGE_SIZE))
+                    .getContent();
+            for (Order o : orders) {
+                Hibernate.initialize(o.getOrderItems());
+                o.getOrderItems().forEach(it -> Hibernate.initialize(it.getProduct()));
+            }
+            return orderAssembler.toDtos(orders);
+        });
+    }
+
+    private void measure(String name, Supplier<List<OrderResponse>> path) {
+        for (int i = 0; i < WARMUP; i++) {
+            path.get();
+        }
+        AllocationMeter.Sample sample = AllocationMeter.measure(ITERATIONS, i -> path.get());
+        System.out.println(name + "：每页 " + PAGE_SIZE + " 单，平均分配 " + sample.bytesPerIteration() / 1024
+                + " KB，平均耗时 " + sample.microsPerIteration() + " µs");
+    }
+
+    private List<Long> ids(List<OrderResponse> page) {
+        return page.stream().map(OrderResponse::getId).collect(Collectors.toList());
+    }
+
+    private List<String> itemNames(OrderResponse order) {
+        return order.getItems().stream().map(OrderItemResponse::getProductName).sorted().collect(Collectors.toList());
+    }
+
+    private CreateOrderRequest request(List<Long> productIds) {
+        List<CreateOrderRequest.OrderItemRequest> items = new ArrayList<>();
+        for (Long productId : productIds) {
+            CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+            item.setProductId(productId);
+            item.setQuantity(1);
+            items.add(item);
+        }
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("杭州市西湖区文三路");
+        request.setReceiverName("孙七");
+        request.setReceiverPhone("13500135005");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(items);
+        return request;
+    }
+}
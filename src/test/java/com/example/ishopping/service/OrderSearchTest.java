@@ -0,0 +1,95 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.dto.OrderResponse;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderSearchTest {
+
+    private static final long SELLER_A = 8301L;
+    private static final long SELLER_B = 8302L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderQueryService orderQueryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void searchMatchesPrefixOrSuffixWithinSellerScope() {
+        Product productA = productRepository.save(new Product("搜索商品A", "搜索测试", BigDecimal.TEN, 100, "其他", SELLER_A));
+        Product productB = productRepository.save(new Product("搜索商品B", "搜索测试", BigDecimal.TEN, 100, "其他", SELLER_B));
+        UserContext.setCurrentUser(8303L, UserRole.CUSTOMER, "search_buyer");
+        List<Order> sellerAOrders = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            sellerAOrders.add(orderService.createOrder(request(productA.getId())));
+        }
+        Order sellerBOrder = orderService.createOrder(request(productB.getId()));
+
+        assertThrows(RuntimeException.class, () -> orderQueryService.searchOrders("ORD", 0, 20));
+
+        UserContext.setCurrentUser(SELLER_A, UserRole.SELLER, "search_seller");
+        String target = sellerAOrders.get(1).getOrderNumber();
+        assertEquals(List.of(target), numbers(orderQueryService.searchOrders(target.substring(target.length() - 6), 0, 20)));
+        assertEquals(List.of(target), numbers(orderQueryService.searchOrders(target.toLowerCase(), 0, 20)));
+        List<String> byPrefix = numbers(orderQueryService.searchOrders("ORD", 0, 20));
+        assertTrue(byPrefix.containsAll(numbers(sellerAOrders)));
+        assertTrue(!byPrefix.contains(sellerBOrder.getOrderNumber()));
+        // 其他商家的订单号不在商家范围内
+        assertTrue(orderQueryService.searchOrders(sellerBOrder.getOrderNumber(), 0, 20).isEmpty());
+        // 通配符按字面匹配
+        assertTrue(orderQueryService.searchOrders("%", 0, 20).isEmpty());
+
+        UserContext.setCurrentUser(1L, UserRole.ADMIN, "admin");
+        String suffix = sellerBOrder.getOrderNumber().substring(sellerBOrder.getOrderNumber().length() - 8);
+        assertEquals(List.of(sellerBOrder.getOrderNumber()), numbers(orderQueryService.searchOrders(suffix, 0, 20)));
+    }
+
+    private List<String> numbers(List<?> orders) {
+        return orders.stream()
+                .map(o -> o instanceof Order order ? order.getOrderNumber() : ((OrderResponse) o).getOrderNumber())
+                .collect(Collectors.toList());
+    }
+
+    private CreateOrderRequest request(Long productId) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(1);
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("成都市武侯区天府大道");
+        request.setReceiverName("周八");
+        request.setReceiverPhone("13500135006");
+        request.setPaymentMethod("WECHAT");
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.OrderItemRepository;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.support.SqlStatementCounter;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(SqlStatementCounter.class)
+class OrderServiceStatementCountTest {
+
+    private static final long SELLER_ID = 2L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private SqlStatementCounter counter;
+
+    @BeforeEach
+    void login() {
+        UserContext.setCurrentUser(5L, UserRole.CUSTOMER, "zhangsan");
+    }
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void checkoutStatementCountDoesNotGrowWithLineCount() {
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Product product = new Product("商品" + i, "批量下单测试", new BigDecimal("10.00"), 100, "其他", SELLER_ID);
+            productIds.add(productRepository.save(product).getId());
+        }
+
+        counter.reset();
+        orderService.createOrder(request(productIds.subList(0, 1)));
+        int singleLine = counter.count();
+
+        counter.reset();
+        Order order = orderService.createOrder(request(productIds));
+        int tenLines = counter.count();
+
+        // 加载商品、批量扣库存、读取扣减后库存（分类目录判断售罄）、插入订单、批量插入订单项、提交后按已提交库存刷新分面索引
+        assertEquals(6, singleLine);
+        assertEquals(singleLine, tenLines);
+        assertEquals(10, orderItemRepository.findByOrderId(order.getId()).size());
+    }
+
+    private CreateOrderRequest request(List<Long> productIds) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("北京市朝阳区建国路100号");
+        request.setReceiverName("张三");
+        request.setReceiverPhone("13500135001");
+        request.setPaymentMethod("ALIPAY");
+        List<CreateOrderRequest.OrderItemRequest> items = new ArrayList<>();
+        for (Long productId : productIds) {
+            CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+            item.setProductId(productId);
+            item.setQuantity(2);
+            items.add(item);
+        }
+        request.setOrderItems(items);
+        return request;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.OrderStatus;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.support.SqlStatementCounter;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(SqlStatementCounter.class)
+class OrderStatsServiceTest {
+
+    private static final long SELLER_ID = 7001L;
+    private static final long CUSTOMER_ID = 7101L;
+    private static final long RACE_SELLER_ID = 7002L;
+    private static final long RACE_CUSTOMER_ID = 7102L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderStatsService orderStatsService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SqlStatementCounter counter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void countersFollowTransitionsAndMatchRebuild() {
+        Product product = productRepository.save(
+                new Product("统计商品", "统计测试", new BigDecimal("12.50"), 1, "其他", SELLER_ID));
+
+        loginCustomer();
+        Order first = orderService.createOrder(request(product.getId()));
+        // 第二单库存不足，回滚的订单不计入统计
+        assertThrows(RuntimeException.class, () -> orderService.createOrder(request(product.getId())));
+        orderService.cancelOrder(first.getId());
+        Order second = orderService.createOrder(request(product.getId()));
+
+        UserContext.setCurrentUser(SELLER_ID, UserRole.SELLER, "stats_seller");
+        orderService.updateOrderStatus(second.getId(), OrderStatus.PAID);
+
+        counter.reset();
+        Map<String, Object> sellerStats = orderService.getOrderStats();
+        assertEquals(0, counter.count());
+
+        assertEquals(2L, sellerStats.get("totalOrders"));
+        assertEquals(new BigDecimal("25.00"), sellerStats.get("totalAmount"));
+        assertEquals(0L, sellerStats.get("pendingOrders"));
+        assertEquals(1L, sellerStats.get("paidOrders"));
+        assertEquals(1L, sellerStats.get("cancelledOrders"));
+
+        loginCustomer();
+        assertEquals(sellerStats, orderService.getOrderStats());
+
+        UserContext.setCurrentUser(1L, UserRole.ADMIN, "admin");
+        Map<String, Object> globalStats = orderService.getOrderStats();
+        orderStatsService.rebuild();
+        assertEquals(globalStats, orderService.getOrderStats());
+        assertEquals(sellerStats, orderStatsService.getSellerStats(SELLER_ID));
+    }
+
+    @Test
+    void rebuildDuringCommitCountsOrderOnce() throws Exception {
+        Product product = productRepository.save(
+                new Product("统计并发商品", "统计测试", new BigDecimal("3.00"), 10, "其他", RACE_SELLER_ID));
+        CountDownLatch committed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // 订单已提交到数据库，但提交后的统计监听器还没执行
+        Thread writer = new Thread(() -> {
+            UserContext.setCurrentUser(RACE_CUSTOMER_ID, UserRole.CUSTOMER, "stats_race_customer");
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    orderService.createOrder(request(product.getId()));
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public int getOrder() {
+                            return Ordered.HIGHEST_PRECEDENCE;
+                        }
+
+                        @Override
+                        public void afterCommit() {
+                            committed.countDown();
+                            awaitQuietly(release);
+                        }
+                    });
+                });
+            } finally {
+                UserContext.clear();
+            }
+        });
+        writer.start();
+        assertTrue(committed.await(10, TimeUnit.SECONDS));
+
+        Thread rebuilder = new Thread(orderStatsService::rebuild);
+        rebuilder.start();
+        Thread.sleep(300);
+        release.countDown();
+        writer.join();
+        rebuilder.join();
+
+        assertEquals(1L, orderStatsService.getSellerStats(RACE_SELLER_ID).get("totalOrders"));
+        orderStatsService.checkDrift();
+        assertEquals(1L, orderStatsService.getSellerStats(RACE_SELLER_ID).get("totalOrders"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loginCustomer() {
+        UserContext.setCurrentUser(CUSTOMER_ID, UserRole.CUSTOMER, "stats_customer");
+    }
+
+    private CreateOrderRequest request(Long productId) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(1);
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("广州市天河区天河路385号");
+        request.setReceiverName("王五");
+        request.setReceiverPhone("13500135003");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.OrderStatus;
+import com.example.ishopping.entity.OrderStatusEvent;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.OrderRepository;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderTimelineServiceTest {
+
+    private static final long SELLER_ID = 8701L;
+    private static final long BUYER_ID = 8702L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderTimelineService orderTimelineService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void recordsEveryTransitionAndStampsLifecycleTimes() {
+        Product product = productRepository.save(new Product("时间线商品", "时间线测试", BigDecimal.TEN, 10, "其他", SELLER_ID));
+        UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "timeline_buyer");
+        Long orderId = orderService.createOrder(request(product.getId())).getId();
+
+        UserContext.setCurrentUser(SELLER_ID, UserRole.SELLER, "timeline_seller");
+        orderService.updateOrderStatus(orderId, OrderStatus.PAID);
+        orderService.updateOrderStatus(orderId, OrderStatus.DELIVERED);
+        assertThrows(RuntimeException.class, () -> orderService.updateOrderStatus(orderId, OrderStatus.PAID));
+
+        UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "timeline_buyer");
+        orderService.confirmOrder(orderId);
+
+        List<OrderStatusEvent> timeline = orderTimelineService.getTimeline(orderId);
+        assertEquals(Arrays.asList(null, OrderStatus.PENDING, OrderStatus.PAID, OrderStatus.DELIVERED),
+                timeline.stream().map(OrderStatusEvent::getOldStatus).collect(Collectors.toList()));
+        assertEquals(List.of(OrderStatus.PENDING, OrderStatus.PAID, OrderStatus.DELIVERED, OrderStatus.COMPLETED),
+                timeline.stream().map(OrderStatusEvent::getNewStatus).collect(Collectors.toList()));
+        assertEquals(List.of(BUYER_ID, SELLER_ID, SELLER_ID, BUYER_ID),
+                timeline.stream().map(OrderStatusEvent::getOperatorId).collect(Collectors.toList()));
+
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        assertNotNull(order.getPaymentTime());
+        assertNotNull(order.getDeliveryTime());
+        assertNotNull(order.getReceiveTime());
+
+        // 其他顾客不能查看时间线
+        UserContext.setCurrentUser(BUYER_ID + 100, UserRole.CUSTOMER, "other_buyer");
+        assertThrows(RuntimeException.class, () -> orderTimelineService.getTimeline(orderId));
+    }
+
+    private CreateOrderRequest request(Long productId) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(1);
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("西安市雁塔区长安南路");
+        request.setReceiverName("孙二");
+        request.setReceiverPhone("13500135010");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.util.UserContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductCacheTest {
+
+    private static final long SELLER_ID = 9201L;
+    private static final long BUYER_ID = 9202L;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void concurrentMissesLoadOnceAndWritesInvalidate() throws Exception {
+        Product saved = productRepository.save(new Product("缓存耳机", "商品缓存测试", new BigDecimal("99.00"), 50, "数码", SELLER_ID));
+        Long id = saved.getId();
+
+        long loadsBefore = meterRegistry.timer("product.cache.load").count();
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Product>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return productService.getProductById(id);
+            }));
+        }
+        start.countDown();
+        for (Future<Product> result : results) {
+            assertEquals(id, result.get().getId());
+        }
+        pool.shutdown();
+        // 并发未命中只查一次库（个别线程可能在写入缓存前后到达，最多再加载一次）
+        assertTrue(meterRegistry.timer("product.cache.load").count() - loadsBefore <= 2);
+        long loadsAfterWarmup = meterRegistry.timer("product.cache.load").count();
+        assertSame(productService.getProductById(id), productService.getProductById(id));
+        assertEquals(loadsAfterWarmup, meterRegistry.timer("product.cache.load").count());
+
+        // 商家修改后立即可见
+        UserContext.setCurrentUser(SELLER_ID, UserRole.SELLER, "cache_seller");
+        Product changes = new Product();
+        changes.setPrice(new BigDecimal("79.00"));
+        productService.updateProduct(id, changes);
+        assertEquals(0, new BigDecimal("79.00").compareTo(productService.getProductById(id).getPrice()));
+
+        // 下单扣减库存后缓存失效
+        UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "cache_buyer");
+        orderService.createOrder(orderRequest(id, 5));
+        assertEquals(45, productService.getProductById(id).getStock());
+        assertTrue(meterRegistry.get("product.cache.hit.ratio").gauge().value() > 0);
+    }
+
+    private CreateOrderRequest orderRequest(Long productId, int quantity) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("武汉市洪山区珞喻路");
+        request.setReceiverName("郑五");
+        request.setReceiverPhone("13500135040");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
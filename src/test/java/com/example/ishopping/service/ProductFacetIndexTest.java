@@ -0,0 +1,204 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.dto.ProductFacetRequest;
+import com.example.ishopping.dto.ProductFacetResult;
+import com.example.ishopping.dto.ProductFacetResult.FacetCount;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.ProductStatus;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductFacetIndexTest {
+
+    private static final long SELLER_ID = 9401L;
+    private static final long BUYER_ID = 9402L;
+    private static final long EDIT_SELLER_ID = 9403L;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void combinesFiltersAndCountsFacetsAcrossWrites() {
+        UserContext.setCurrentUser(SELLER_ID, UserRole.SELLER, "facet_seller");
+        Product cheapPhone = productService.createProduct(product("分面手机壳", "49.00", 3, "分面手机"));
+        Product phone = productService.createProduct(product("分面手机", "1999.00", 10, "分面手机"));
+        Product laptop = productService.createProduct(product("分面笔记本", "5999.00", 5, "分面电脑"));
+        Product mouse = productService.createProduct(product("分面鼠标", "99.00", 0, "分面电脑"));
+
+        ProductFacetRequest request = new ProductFacetRequest();
+        request.setSellerId(SELLER_ID);
+        ProductFacetResult all = productService.browseProducts(request);
+        assertEquals(4, all.getTotal());
+        // 新品在前
+        assertEquals(List.of(mouse.getId(), laptop.getId(), phone.getId(), cheapPhone.getId()), all.getIds());
+        assertEquals(Map.of("分面手机", 2L, "分面电脑", 2L), counts(all, ProductFacetIndex.CATEGORY));
+        assertEquals(Map.of("0-50", 1L, "50-100", 1L, "1000-2000", 1L, "5000+", 1L), counts(all, ProductFacetIndex.PRICE));
+        assertEquals(Map.of("true", 3L, "false", 1L), counts(all, ProductFacetIndex.IN_STOCK));
+
+        // 分类 + 价格区间 + 有货组合；分类分面的计数不受分类条件本身限制
+        request.setCategory("分面电脑");
+        request.setMinPrice(new BigDecimal("90"));
+        request.setInStock(true);
+        ProductFacetResult combined = productService.browseProducts(request);
+        assertEquals(List.of(laptop.getId()), combined.getIds());
+        assertEquals(laptop.getId(), combined.getItems().get(0).getId());
+        assertEquals(Map.of("分面手机", 1L, "分面电脑", 1L), counts(combined, ProductFacetIndex.CATEGORY));
+
+        // 关键词与分类同时生效
+        ProductFacetRequest keyword = new ProductFacetRequest();
+        keyword.setKeyword("分面手机");
+        keyword.setMaxPrice(new BigDecimal("100"));
+        assertEquals(List.of(cheapPhone.getId()), productService.browseProducts(keyword).getIds());
+
+        // 改价、下架后索引同步变化
+        Product changes = new Product();
+        changes.setPrice(new BigDecimal("59.00"));
+        productService.updateProduct(phone.getId(), changes);
+        productService.deleteProduct(mouse.getId());
+        ProductFacetRequest cheap = new ProductFacetRequest();
+        cheap.setSellerId(SELLER_ID);
+        cheap.setMaxPrice(new BigDecimal("100"));
+        assertEquals(List.of(phone.getId(), cheapPhone.getId()), productService.browseProducts(cheap).getIds());
+
+        // 买光库存后变为无货
+        UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "facet_buyer");
+        orderService.createOrder(orderRequest(cheapPhone.getId(), 3));
+        ProductFacetRequest soldOut = new ProductFacetRequest();
+        soldOut.setSellerId(SELLER_ID);
+        soldOut.setInStock(false);
+        assertEquals(List.of(cheapPhone.getId()), productService.browseProducts(soldOut).getIds());
+
+        // 顾客不能查看非在售商品
+        ProductFacetRequest offSale = new ProductFacetRequest();
+        offSale.setStatus(ProductStatus.OFF_SALE);
+        assertThrows(RuntimeException.class, () -> productService.browseProducts(offSale));
+    }
+
+    @Test
+    void rolledBackUpdateLeavesFacetsUnchanged() {
+        UserContext.setCurrentUser(EDIT_SELLER_ID, UserRole.SELLER, "facet_edit_seller");
+        Product tent = productService.createProduct(product("回滚帐篷", "299.00", 4, "分面户外"));
+
+        // 名称超长，提交时被数据库拒绝，分类修改一并回滚
+        Product changes = new Product();
+        changes.setName("回滚帐篷" + "长".repeat(100));
+        changes.setCategory("分面回滚");
+        assertThrows(RuntimeException.class, () -> productService.updateProduct(tent.getId(), changes));
+
+        ProductFacetRequest request = new ProductFacetRequest();
+        request.setCategory("分面户外");
+        assertEquals(List.of(tent.getId()), productService.browseProducts(request).getIds());
+        request.setCategory("分面回滚");
+        assertEquals(List.of(), productService.browseProducts(request).getIds());
+    }
+
+    @Test
+    void stockMatchesDatabaseWhenEditCommitsBeforeOrderRefresh() throws Exception {
+        UserContext.setCurrentUser(EDIT_SELLER_ID, UserRole.SELLER, "facet_edit_seller");
+        Product lamp = productService.createProduct(product("并发营地灯", "89.00", 2, "分面并发"));
+
+        CountDownLatch orderCommitted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // 下单事务提交后先停住，分面刷新尚未执行
+            Future<?> order = executor.submit(() -> {
+                UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "facet_buyer");
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                            @Override
+                            public void afterCommit() {
+                                orderCommitted.countDown();
+                                try {
+                                    release.await(10, TimeUnit.SECONDS);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                            }
+                        });
+                        orderService.createOrder(orderRequest(lamp.getId(), 1));
+                    });
+                } finally {
+                    UserContext.clear();
+                }
+            });
+            assertTrue(orderCommitted.await(10, TimeUnit.SECONDS));
+
+            // 此时修改商品，读到的库存已包含这次扣减
+            Product changes = new Product();
+            changes.setPrice(new BigDecimal("79.00"));
+            productService.updateProduct(lamp.getId(), changes);
+            release.countDown();
+            order.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        // 数据库中还剩 1 件，扣减不能被计入两次
+        ProductFacetRequest request = new ProductFacetRequest();
+        request.setCategory("分面并发");
+        request.setInStock(true);
+        assertEquals(List.of(lamp.getId()), productService.browseProducts(request).getIds());
+    }
+
+    private static Map<String, Long> counts(ProductFacetResult result, String facet) {
+        return result.getFacets().get(facet).stream()
+                .collect(Collectors.toMap(FacetCount::getValue, FacetCount::getCount));
+    }
+
+    private Product product(String name, String price, int stock, String category) {
+        return new Product(name, name + "（分面测试）", new BigDecimal(price), stock, category, null);
+    }
+
+    private CreateOrderRequest orderRequest(Long productId, int quantity) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("武汉市洪山区珞喻路");
+        request.setReceiverName("郑五");
+        request.setReceiverPhone("13500135040");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.dto.ProductRank;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductLeaderboardServiceTest {
+
+    private static final long SELLER_ID = 9101L;
+    private static final long BUYER_ID = 9102L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductLeaderboardService productLeaderboardService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void ranksByCategoryAndWritesSalesBehind() throws Exception {
+        Product kettle = productRepository.save(new Product("排行水壶", "排行榜测试", BigDecimal.TEN, 100, "排行厨具", SELLER_ID));
+        Product pan = productRepository.save(new Product("排行炒锅", "排行榜测试", BigDecimal.TEN, 100, "排行厨具", SELLER_ID));
+        Product lamp = productRepository.save(new Product("排行台灯", "排行榜测试", BigDecimal.TEN, 100, "排行灯具", SELLER_ID));
+
+        UserContext.setCurrentUser(BUYER_ID, UserRole.CUSTOMER, "leaderboard_buyer");
+        orderService.createOrder(orderRequest(kettle.getId(), 3));
+        orderService.createOrder(orderRequest(pan.getId(), 5));
+        orderService.createOrder(orderRequest(lamp.getId(), 2));
+        Long cancelledId = orderService.createOrder(orderRequest(kettle.getId(), 4)).getId();
+        orderService.cancelOrder(cancelledId);
+        productLeaderboardService.flush();
+
+        List<ProductRank> kitchen = productLeaderboardService.getTopProducts("排行厨具", ProductLeaderboardService.Window.WEEK, 10);
+        assertEquals(List.of(pan.getId(), kettle.getId()), kitchen.stream().map(ProductRank::getProductId).toList());
+        assertEquals(5, kitchen.get(0).getSales());
+        assertEquals(3, kitchen.get(1).getSales());
+        assertEquals(1, productLeaderboardService.getTopProducts("排行灯具", ProductLeaderboardService.Window.DAY, 10).size());
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT sales FROM products WHERE id = ?", Integer.class, kettle.getId()));
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT sales FROM products WHERE id = ?", Integer.class, pan.getId()));
+
+        // 快照写出后重新读入，排行不变
+        Path snapshot = tempDir.resolve("leaderboard.snapshot");
+        productLeaderboardService.writeSnapshot(snapshot);
+        productLeaderboardService.readSnapshot(snapshot);
+        List<ProductRank> restored = productLeaderboardService.getTopProducts("排行厨具", ProductLeaderboardService.Window.MONTH, 1);
+        assertEquals(pan.getId(), restored.get(0).getProductId());
+        assertEquals(5, restored.get(0).getSales());
+    }
+
+    private CreateOrderRequest orderRequest(Long productId, int quantity) {
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("南京市玄武区中山路");
+        request.setReceiverName("吴四");
+        request.setReceiverPhone("13500135030");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(List.of(item));
+        return request;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.ProductSummary;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductSearchIndexTest {
+
+    private static final long SELLER_ID = 9301L;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void ranksByRelevanceAndFollowsProductWrites() throws Exception {
+        UserContext.setCurrentUser(SELLER_ID, UserRole.SELLER, "search_seller");
+        Product inName = productService.createProduct(product("索引降噪耳机 Pro", "头戴式，续航四十小时"));
+        Product inDescription = productService.createProduct(product("索引便携音箱", "可连接降噪耳机使用"));
+        Product unrelated = productService.createProduct(product("索引保温杯", "不锈钢内胆"));
+
+        assertTrue(productSearchIndex.isReady());
+        List<ProductSummary> results = productService.searchProducts("降噪耳机", 0, 10);
+        assertEquals(List.of(inName.getId(), inDescription.getId()), results.stream().map(ProductSummary::getId).toList());
+        assertEquals(List.of(inName.getId()), productSearchIndex.search("PRO 降噪", 0, 10));
+        assertEquals(List.of(inDescription.getId()), productSearchIndex.search("降噪耳机", 1, 10));
+        // 单个汉字无法由二元组索引回答，回退到 LIKE
+        assertNull(productSearchIndex.search("杯", 0, 10));
+        assertEquals(List.of(unrelated.getId()), productService.searchProducts("索引保温", 0, 10).stream().map(ProductSummary::getId).toList());
+
+        // 修改名称和下架后索引同步变化
+        Product changes = new Product();
+        changes.setName("索引运动水壶");
+        productService.updateProduct(unrelated.getId(), changes);
+        assertEquals(List.of(), productSearchIndex.search("保温杯", 0, 10));
+        assertEquals(List.of(unrelated.getId()), productSearchIndex.search("运动水壶", 0, 10));
+        productService.deleteProduct(inName.getId());
+        assertEquals(List.of(inDescription.getId()), productSearchIndex.search("降噪耳机", 0, 10));
+
+        // 提交时校验失败（名称超长）而回滚的修改不进入索引
+        Product rejected = new Product();
+        rejected.setName("索引登山背包" + "长".repeat(100));
+        assertThrows(RuntimeException.class, () -> productService.updateProduct(unrelated.getId(), rejected));
+        assertEquals(List.of(), productSearchIndex.search("登山背包", 0, 10));
+        assertEquals(List.of(unrelated.getId()), productSearchIndex.search("运动水壶", 0, 10));
+
+        // 快照写出后以内存映射读回，查询结果不变
+        Path snapshot = tempDir.resolve("product-search.index");
+        productSearchIndex.writeSnapshot(snapshot);
+        int documents = productSearchIndex.getDocumentCount();
+        productSearchIndex.readSnapshot(snapshot);
+        assertEquals(documents, productSearchIndex.getDocumentCount());
+        assertEquals(List.of(inDescription.getId()), productSearchIndex.search("降噪耳机", 0, 10));
+        assertEquals(List.of(unrelated.getId()), productSearchIndex.search("运动水壶", 0, 10));
+    }
+
+    private Product product(String name, String description) {
+        return new Product(name, description, new BigDecimal("199.00"), 20, "索引数码", null);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.ProductSuggestion;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.util.UserContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductSuggestIndexTest {
+
+    private static final long SELLER_ID = 9501L;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSuggestIndex productSuggestIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void suggestsByPrefixAndFollowsWritesAndSales() {
+        UserContext.setCurrentUser(SELLER_ID, UserRole.SELLER, "suggest_seller");
+        Product case1 = productService.createProduct(product("联想手机壳 透明", "联想配件"));
+        Product case2 = productService.createProduct(product("联想手机壳 磨砂", "联想配件"));
+        Product charger = productService.createProduct(product("联想充电器", "联想配件"));
+
+        assertTrue(productSuggestIndex.isReady());
+        // 分类被三个商品引用，热度最高；同热度按字典序
+        assertEquals(List.of("联想配件", "联想充电器", "联想手机壳 磨砂", "联想手机壳 透明"), texts("联想"));
+        assertEquals(ProductSuggestIndex.TYPE_CATEGORY, productSuggestIndex.suggest("联想配", 10).get(0).getType());
+        assertEquals(List.of("联想手机壳 磨砂", "联想手机壳 透明"), texts("联想手机"));
+
+        // 销量变化后排序随之变化
+        productSuggestIndex.addSales(Map.of(case1.getId(), 5L));
+        assertEquals(List.of("联想手机壳 透明", "联想手机壳 磨砂"), texts("联想手机"));
+        productSuggestIndex.addSales(Map.of(case2.getId(), 10L));
+        assertEquals("联想手机壳 磨砂", texts("联想手机").get(0));
+
+        // 改名、下架后同步
+        Product changes = new Product();
+        changes.setName("联想数据线");
+        productService.updateProduct(charger.getId(), changes);
+        productService.deleteProduct(case1.getId());
+        assertEquals(List.of("联想手机壳 磨砂"), texts("联想手机"));
+        assertEquals(List.of("联想数据线"), texts("联想数"));
+        assertEquals(List.of(), texts("联想充"));
+
+        assertTrue(meterRegistry.get("product.suggest.memory").gauge().value() > 0);
+        assertTrue(meterRegistry.get("product.suggest.query").timer().count() > 0);
+    }
+
+    @Test
+    void rolledBackRenameLeavesSuggestionsUnchanged() {
+        UserContext.setCurrentUser(SELLER_ID, UserRole.SELLER, "suggest_seller");
+        Product chair = productService.createProduct(product("回滚露营椅", "回滚户外"));
+
+        // 名称超长，提交时被数据库拒绝
+        Product changes = new Product();
+        changes.setName("幻影露营椅" + "长".repeat(100));
+        assertThrows(RuntimeException.class, () -> productService.updateProduct(chair.getId(), changes));
+
+        assertEquals(List.of(), texts("幻影"));
+        assertEquals(List.of("回滚露营椅"), texts("回滚露营"));
+    }
+
+    private List<String> texts(String q) {
+        return productSuggestIndex.suggest(q, 10).stream().map(ProductSuggestion::getText).toList();
+    }
+
+    private Product product(String name, String category) {
+        return new Product(name, name + "（联想测试）", new BigDecimal("29.00"), 100, category, null);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.ProductSummary;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.ProductStatus;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.support.AllocationMeter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 商品列表读取路径对比（1 万个商品）：加载实体（原路径）与构造器投影（现路径）
+ * 输出每行平均堆分配字节数，以及一页列表序列化成 JSON 后的响应大小（gradle benchmark 运行，不在常规构建中）
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductSummaryBenchmarkTest {
+
+    private static final long SELLER_ID = 9701L;
+    private static final int CATALOG_SIZE = 10_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int RESPONSE_PAGE_SIZE = 20;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void summariesMatchEntitiesWithoutDescription() throws Exception {
+        List<Product> catalog = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            Product product = new Product("投影商品" + i, "商品详情".repeat(240),
+                    new BigDecimal("19.90"), i % 7, "投影基准", SELLER_ID);
+            product.setImageUrl("/images/summary/" + i + ".jpg");
+            catalog.add(product);
+        }
+        productRepository.saveAll(catalog);
+
+        List<Product> entityPage = entityPage(0);
+        List<ProductSummary> summaryPage = summaryPage(0);
+        assertEquals(PAGE_SIZE, summaryPage.size());
+        assertEquals(entityPage.stream().map(Product::getId).collect(Collectors.toList()),
+                summaryPage.stream().map(ProductSummary::getId).collect(Collectors.toList()));
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Product entity = entityPage.get(i);
+            ProductSummary summary = summaryPage.get(i);
+            assertEquals(entity.getName(), summary.getName());
+            assertEquals(0, entity.getPrice().compareTo(summary.getPrice()));
+            assertEquals(entity.getStock(), summary.getStock());
+            assertEquals(entity.getImageUrl(), summary.getImageUrl());
+            assertEquals(entity.getSellerId(), summary.getSellerId());
+        }
+
+        byte[] entityJson = objectMapper.writeValueAsBytes(entityPage.subList(0, RESPONSE_PAGE_SIZE));
+        byte[] summaryJson = objectMapper.writeValueAsBytes(summaryPage.subList(0, RESPONSE_PAGE_SIZE));
+        assertNull(objectMapper.readTree(summaryJson).get(0).get("description"));
+        assertTrue(summaryJson.length < entityJson.length);
+
+        measure("实体加载", this::entityPage);
+        measure("投影查询", this::summaryPage);
+        System.out.println("响应大小（每页 " + RESPONSE_PAGE_SIZE + " 个商品）：实体 " + entityJson.length
+                + " 字节，投影 " + summaryJson.length + " 字节");
+    }
+
+    /**
+     * 原读取路径：分页加载商品实体（含 TEXT 描述，附带 COUNT 查询）
+     */
+    private List<Product> entityPage(int page) {
+        return productRepository.findBySellerIdAndStatusOrderByCreateTimeDesc(
+                SELLER_ID, ProductStatus.ON_SALE, PageRequest.of(page, PAGE_SIZE)).getContent();
+    }
+
+    private List<ProductSummary> summaryPage(int page) {
+        return productRepository.findSummariesBySellerId(SELLER_ID, PageRequest.of(page, PAGE_SIZE));
+    }
+
+    /**
+     * 分页读完整个目录两遍，第一遍预热，统计第二遍每行的平均分配字节数
+     */
+    private void measure(String name, IntFunction<List<?>> path) {
+        int pages = CATALOG_SIZE / PAGE_SIZE;
+        for (int page = 0; page < pages; page++) {
+            path.apply(page);
+        }
+        int[] rows = {0};
+        AllocationMeter.Sample sample = AllocationMeter.measure(pages, page -> rows[0] += path.apply(page).size());
+        assertEquals(CATALOG_SIZE, rows[0]);
+        System.out.println(name + "：读取 " + rows[0] + " 行，每行平均分配 " + sample.bytes() / rows[0]
+                + " 字节，总耗时 " + sample.millis() + " ms");
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CreateOrderRequest;
+import com.example.ishopping.dto.RevenuePoint;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.RollupGranularity;
+import com.example.ishopping.entity.User;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.repository.UserRepository;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RevenueRollupServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void bucketsCreatedOrdersAndSubtractsCancellations() {
+        Long sellerId = newUser("rollup_seller", UserRole.SELLER);
+        Long otherSellerId = newUser("rollup_other_seller", UserRole.SELLER);
+        Long buyerId = newUser("rollup_buyer", UserRole.CUSTOMER);
+        Product book = productRepository.save(new Product("汇总图书", "营收汇总测试", new BigDecimal("30.00"), 100, "图书", sellerId));
+        Product toy = productRepository.save(new Product("汇总玩具", "营收汇总测试", new BigDecimal("20.00"), 100, "玩具", sellerId));
+
+        UserContext.setCurrentUser(buyerId, UserRole.CUSTOMER, "rollup_buyer");
+        orderService.createOrder(orderRequest(book.getId(), 2, toy.getId(), 1));
+        orderService.createOrder(orderRequest(book.getId(), 1, null, 0));
+        Long cancelledId = orderService.createOrder(orderRequest(toy.getId(), 3, null, 0)).getId();
+        orderService.cancelOrder(cancelledId);
+
+        UserContext.setCurrentUser(sellerId, UserRole.SELLER, "rollup_seller");
+        LocalDateTime now = LocalDateTime.now();
+        List<RevenuePoint> days = revenueRollupService.getTimeseries(now.minusDays(7), now, RollupGranularity.DAY, null, null);
+        // 覆盖 from 所在的那一天到今天
+        assertEquals(8, days.size());
+        RevenuePoint today = days.get(days.size() - 1);
+        assertEquals(RollupGranularity.DAY.bucketStart(now), today.getBucketStart());
+        assertEquals(2, today.getOrderCount());
+        assertEquals(0, new BigDecimal("110.00").compareTo(today.getTotalAmount()));
+        assertEquals(0, days.get(0).getOrderCount());
+
+        List<RevenuePoint> hours = revenueRollupService.getTimeseries(now.minusHours(3), now, RollupGranularity.HOUR, null, null);
+        assertEquals(2, hours.get(hours.size() - 1).getOrderCount());
+
+        List<RevenuePoint> toys = revenueRollupService.getTimeseries(now.minusDays(1), now, RollupGranularity.DAY, null, "玩具");
+        RevenuePoint toyToday = toys.get(toys.size() - 1);
+        assertEquals(1, toyToday.getOrderCount());
+        assertEquals(0, new BigDecimal("20.00").compareTo(toyToday.getTotalAmount()));
+
+        // 商家传入其他商家 ID 时仍只看到自己的数据；顾客无权查看
+        List<RevenuePoint> own = revenueRollupService.getTimeseries(now.minusDays(1), now, RollupGranularity.DAY, otherSellerId, null);
+        assertEquals(2, own.get(own.size() - 1).getOrderCount());
+        UserContext.setCurrentUser(buyerId, UserRole.CUSTOMER, "rollup_buyer");
+        assertThrows(RuntimeException.class,
+                () -> revenueRollupService.getTimeseries(null, null, RollupGranularity.DAY, null, null));
+    }
+
+    private Long newUser(String username, UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("user123");
+        user.setRole(role);
+        return userRepository.save(user).getId();
+    }
+
+    private CreateOrderRequest orderRequest(Long productId, int quantity, Long otherProductId, int otherQuantity) {
+        List<CreateOrderRequest.OrderItemRequest> items = new ArrayList<>();
+        CreateOrderRequest.OrderItemRequest item = new CreateOrderRequest.OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        items.add(item);
+        if (otherProductId != null) {
+            CreateOrderRequest.OrderItemRequest other = new CreateOrderRequest.OrderItemRequest();
+            other.setProductId(otherProductId);
+            other.setQuantity(otherQuantity);
+            items.add(other);
+        }
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setShippingAddress("成都市武侯区人民南路");
+        request.setReceiverName("周三");
+        request.setReceiverPhone("13500135020");
+        request.setPaymentMethod("ALIPAY");
+        request.setOrderItems(items);
+        return request;
+    }
+}
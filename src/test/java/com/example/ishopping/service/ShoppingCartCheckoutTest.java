@@ -0,0 +1,114 @@
+package com.example.ishopping.service;
+
+import com.example.ishopping.dto.CartCheckoutRequest;
+import com.example.ishopping.dto.ShoppingCartRequest;
+import com.example.ishopping.entity.Order;
+import com.example.ishopping.entity.Product;
+import com.example.ishopping.entity.User;
+import com.example.ishopping.entity.UserRole;
+import com.example.ishopping.repository.ProductRepository;
+import com.example.ishopping.repository.ShoppingCartRepository;
+import com.example.ishopping.repository.UserRepository;
+import com.example.ishopping.util.UserContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ShoppingCartCheckoutTest {
+
+    @Autowired
+    private ShoppingCartService shoppingCartService;
+
+    @Autowired
+    private ShoppingCartRepository shoppingCartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void logout() {
+        UserContext.clear();
+    }
+
+    @Test
+    void multiSellerCartIsSplitIntoOneOrderPerSeller() {
+        User customer = newCustomer("checkout_buyer");
+        Product phone = productRepository.save(new Product("手机", "商家A", new BigDecimal("100.00"), 10, "手机", 2L));
+        Product case1 = productRepository.save(new Product("手机壳", "商家A", new BigDecimal("5.00"), 10, "手机", 2L));
+        Product book = productRepository.save(new Product("图书", "商家B", new BigDecimal("30.00"), 10, "图书", 3L));
+        addToCart(customer, phone, 1);
+        addToCart(customer, case1, 2);
+        addToCart(customer, book, 3);
+
+        UserContext.setCurrentUser(customer.getId(), UserRole.CUSTOMER, customer.getUsername());
+        List<Order> orders = shoppingCartService.checkout(checkoutRequest(), customer.getId());
+
+        assertEquals(2, orders.size());
+        Set<Long> sellers = orders.stream().map(Order::getSellerId).collect(Collectors.toSet());
+        assertEquals(Set.of(2L, 3L), sellers);
+        Order sellerA = orders.stream().filter(o -> o.getSellerId() == 2L).findFirst().orElseThrow();
+        assertEquals(0, new BigDecimal("110.00").compareTo(sellerA.getTotalAmount()));
+        assertEquals(2, sellerA.getOrderItems().size());
+        assertTrue(shoppingCartRepository.findByUserId(customer.getId()).isEmpty());
+        assertEquals(7, productRepository.findById(book.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void shortageRollsBackEveryOrderAndKeepsCart() {
+        User customer = newCustomer("checkout_shortage");
+        Product plenty = productRepository.save(new Product("充足", "商家A", BigDecimal.TEN, 10, "其他", 2L));
+        Product scarce = productRepository.save(new Product("紧缺", "商家B", BigDecimal.TEN, 1, "其他", 3L));
+        addToCart(customer, plenty, 1);
+        addToCart(customer, scarce, 1);
+        productRepository.findById(scarce.getId()).ifPresent(p -> {
+            p.setStock(0);
+            productRepository.save(p);
+        });
+
+        UserContext.setCurrentUser(customer.getId(), UserRole.CUSTOMER, customer.getUsername());
+        assertThrows(RuntimeException.class, () -> shoppingCartService.checkout(checkoutRequest(), customer.getId()));
+
+        assertEquals(2, shoppingCartRepository.findByUserId(customer.getId()).size());
+        assertEquals(10, productRepository.findById(plenty.getId()).orElseThrow().getStock());
+    }
+
+    private User newCustomer(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("user123");
+        user.setRole(UserRole.CUSTOMER);
+        return userRepository.save(user);
+    }
+
+    private void addToCart(User user, Product product, int quantity) {
+        ShoppingCartRequest request = new ShoppingCartRequest();
+        request.setProductId(product.getId());
+        request.setQuantity(quantity);
+        shoppingCartService.addToCart(request, user.getId());
+    }
+
+    private CartCheckoutRequest checkoutRequest() {
+        CartCheckoutRequest request = new CartCheckoutRequest();
+        request.setShippingAddress("上海市浦东新区陆家嘴金融中心");
+        request.setReceiverName("李四");
+        request.setReceiverPhone("13500135002");
+        request.setPaymentMethod("WECHAT");
+        return request;
+    }
+}
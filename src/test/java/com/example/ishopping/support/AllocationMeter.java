@@ -0,0 +1,47 @@
+package com.example.ishopping.support;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+/**
+ * 基准测试用：在当前线程上执行若干次，统计堆分配字节数（ThreadMXBean）和耗时，预热由调用方自行完成
+ */
+public final class AllocationMeter {
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * 执行 body(0) 到 body(iterations - 1)，返回总分配字节数和总耗时
+     */
+    public static Sample measure(int iterations, IntConsumer body) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        long threadId = Thread.currentThread().threadId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            body.accept(i);
+        }
+        long nanos = System.nanoTime() - start;
+        return new Sample(iterations, threads.getThreadAllocatedBytes(threadId) - bytesBefore, nanos);
+    }
+
+    public record Sample(int iterations, long bytes, long nanos) {
+
+        public long bytesPerIteration() {
+            return bytes / iterations;
+        }
+
+        public long microsPerIteration() {
+            return nanos / 1000 / iterations;
+        }
+
+        public long millis() {
+            return nanos / 1_000_000;
+        }
+    }
+}
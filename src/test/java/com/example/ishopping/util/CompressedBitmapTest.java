@@ -0,0 +1,85 @@
+package com.example.ishopping.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedBitmapTest {
+
+    @Test
+    void setOperationsMatchTreeSetAcrossSparseAndDenseChunks() {
+        Random random = new Random(11);
+        CompressedBitmap left = new CompressedBitmap();
+        CompressedBitmap right = new CompressedBitmap();
+        TreeSet<Integer> leftSet = new TreeSet<>();
+        TreeSet<Integer> rightSet = new TreeSet<>();
+        for (int i = 0; i < 60_000; i++) {
+            // 第一个块稠密（转为位图容器），其余块稀疏
+            int value = i % 3 == 0 ? random.nextInt(1 << 16) : random.nextInt(1 << 22);
+            if (random.nextBoolean()) {
+                left.add(value);
+                leftSet.add(value);
+            } else {
+                right.add(value);
+                rightSet.add(value);
+            }
+        }
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(1 << 16);
+            left.remove(value);
+            leftSet.remove(value);
+        }
+        assertEquals(leftSet.size(), left.cardinality());
+
+        TreeSet<Integer> intersection = new TreeSet<>(leftSet);
+        intersection.retainAll(rightSet);
+        TreeSet<Integer> union = new TreeSet<>(leftSet);
+        union.addAll(rightSet);
+
+        assertEquals(new ArrayList<>(intersection.descendingSet()), descending(left.and(right)));
+        assertEquals(intersection.size(), left.andCardinality(right));
+        assertEquals(new ArrayList<>(union.descendingSet()), descending(left.or(right)));
+        for (int value : leftSet) {
+            assertTrue(left.contains(value));
+        }
+        assertFalse(left.contains(-1));
+    }
+
+    @Test
+    void denseChunkShrinksBackAndIterationStopsEarly() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.add(i);
+        }
+        for (int i = 0; i < 9_990; i++) {
+            bitmap.remove(i);
+        }
+        assertEquals(10, bitmap.cardinality());
+        List<Integer> firstThree = new ArrayList<>();
+        bitmap.forEachDescending(value -> {
+            firstThree.add(value);
+            return firstThree.size() < 3;
+        });
+        assertEquals(List.of(9_999, 9_998, 9_997), firstThree);
+        for (int i = 9_990; i < 10_000; i++) {
+            bitmap.remove(i);
+        }
+        assertTrue(bitmap.isEmpty());
+    }
+
+    private static List<Integer> descending(CompressedBitmap bitmap) {
+        List<Integer> values = new ArrayList<>();
+        bitmap.forEachDescending(value -> {
+            values.add(value);
+            return true;
+        });
+        return values;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.ishopping.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderNumberGeneratorTest {
+
+    @Test
+    void millionsOfIdsAcrossThreadsAreUnique() throws Exception {
+        int threads = 8;
+        int perThread = 500_000;
+        OrderNumberGenerator generator = new OrderNumberGenerator(7);
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                long[] ids = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+
+        long[] all = new long[threads * perThread];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] ids = future.get();
+            for (int i = 1; i < ids.length; i++) {
+                assertTrue(ids[i] > ids[i - 1], "同一线程内应严格递增");
+            }
+            System.arraycopy(ids, 0, all, offset, ids.length);
+            offset += ids.length;
+        }
+        pool.shutdown();
+
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertTrue(all[i] != all[i - 1], "出现重复ID: " + all[i]);
+        }
+    }
+
+    @Test
+    void clockRegressionKeepsNumbersIncreasing() {
+        AtomicLong now = new AtomicLong(OrderNumberGenerator.EPOCH + 10_000);
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, now::get);
+
+        long before = generator.nextId();
+        now.addAndGet(-5_000);
+        long during = generator.nextId();
+        now.addAndGet(10_000);
+        long after = generator.nextId();
+
+        assertTrue(during > before);
+        assertTrue(after > during);
+    }
+
+    @Test
+    void sequenceOverflowBorrowsNextMillisecond() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, () -> OrderNumberGenerator.EPOCH + 1);
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            long next = generator.nextId();
+            assertTrue(next > previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void orderNumbersAreFixedWidthAndSortByTime() {
+        AtomicLong now = new AtomicLong(OrderNumberGenerator.EPOCH + 1);
+        OrderNumberGenerator generator = new OrderNumberGenerator(3, now::get);
+
+        String first = generator.nextOrderNumber();
+        now.set(System.currentTimeMillis());
+        String second = generator.nextOrderNumber();
+
+        assertEquals(23, first.length());
+        assertEquals(23, second.length());
+        assertTrue(first.startsWith(OrderNumberGenerator.PREFIX));
+        assertTrue(first.compareTo(second) < 0);
+    }
+
+    @Test
+    void orderNumbersSortAfterLegacyNumbers() {
+        String first = new OrderNumberGenerator(0, () -> OrderNumberGenerator.EPOCH).nextOrderNumber();
+        // 旧格式："ORD" + 毫秒时间戳 + 0~999 随机数；示例数据为 "ORD" + 日期 + 序号
+        for (String legacy : new String[]{"ORD" + System.currentTimeMillis() + 999, "ORD202412010001"}) {
+            assertTrue(legacy.compareTo(first) < 0, legacy);
+            assertTrue(!legacy.startsWith(OrderNumberGenerator.PREFIX), legacy);
+        }
+    }
+
+    @Test
+    void rejectsOutOfRangeNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderNumberGenerator(1024));
+    }
+}
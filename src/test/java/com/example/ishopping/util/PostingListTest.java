@@ -0,0 +1,52 @@
+package com.example.ishopping.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostingListTest {
+
+    @Test
+    void matchesSortedMapAcrossAddsRemovesAndCompactions() {
+        PostingList list = new PostingList();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 50_000; i++) {
+            int doc = random.nextInt(20_000);
+            if (expected.containsKey(doc) && random.nextInt(3) == 0) {
+                list.remove(doc);
+                expected.remove(doc);
+            } else if (!expected.containsKey(doc)) {
+                int freq = 1 + random.nextInt(300);
+                list.add(doc, freq);
+                expected.put(doc, freq);
+            }
+        }
+        assertEquals(expected.size(), list.size());
+        assertEquals(new ArrayList<>(expected.entrySet()), entries(list));
+
+        // 压缩数据恢复后内容一致，且远小于每个文档 8 字节的原始数组
+        byte[] encoded = list.encoded();
+        assertTrue(encoded.length < expected.size() * 4);
+        assertEquals(new ArrayList<>(expected.entrySet()), entries(PostingList.fromEncoded(encoded, expected.size())));
+    }
+
+    @Test
+    void tokenizesChineseAsBigramsAndLatinAsWords() {
+        assertEquals(List.of("蓝牙", "牙耳", "耳机", "pro", "2"), TextTokenizer.tokenize("蓝牙耳机 Pro-2"));
+        assertEquals(List.of("iphone15", "手"), TextTokenizer.tokenize("iPhone15手"));
+    }
+
+    private static List<Map.Entry<Integer, Integer>> entries(PostingList list) {
+        List<Map.Entry<Integer, Integer>> entries = new ArrayList<>();
+        list.forEach((doc, freq) -> entries.add(Map.entry(doc, freq)));
+        return entries;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.ishopping.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void keepsHeavyHittersWithinErrorBounds() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(50);
+        Random random = new Random(7);
+        Map<Long, Long> truth = new HashMap<>();
+        long total = 0;
+        for (int i = 0; i < 200_000; i++) {
+            // 10 个热门商品占一半流量，其余分散在 10000 个商品上
+            long id = random.nextBoolean() ? random.nextInt(10) : 100 + random.nextInt(10_000);
+            long amount = 1 + random.nextInt(3);
+            sketch.add(id, amount);
+            truth.merge(id, amount, Long::sum);
+            total += amount;
+        }
+        assertEquals(50, sketch.size());
+
+        long threshold = total / 50;
+        Map<Long, long[]> tracked = new HashMap<>();
+        sketch.forEach((id, count, error) -> tracked.put(id, new long[]{count, error}));
+        truth.forEach((id, count) -> {
+            if (count > threshold) {
+                assertTrue(tracked.containsKey(id), "热门商品 " + id + " 应在统计中");
+            }
+        });
+        tracked.forEach((id, estimate) -> {
+            long actual = truth.get(id);
+            assertTrue(estimate[0] >= actual && estimate[0] - estimate[1] <= actual,
+                    "商品 " + id + " 的估计值越界: " + estimate[0] + "/" + estimate[1] + " 实际 " + actual);
+        });
+    }
+
+    @Test
+    void removeAndSnapshotRoundTrip() throws IOException {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(3);
+        sketch.add(1, 10);
+        sketch.add(2, 5);
+        sketch.add(3, 1);
+        sketch.remove(1, 4);
+        sketch.remove(9, 4);
+        // 替换计数最小的商品 3，继承其计数作为误差
+        sketch.add(4, 2);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketch.writeTo(new DataOutputStream(bytes));
+        SpaceSavingSketch restored = new SpaceSavingSketch(3);
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        Map<Long, long[]> counters = new HashMap<>();
+        restored.forEach((id, count, error) -> counters.put(id, new long[]{count, error}));
+        assertEquals(3, counters.size());
+        assertEquals(6, counters.get(1L)[0]);
+        assertEquals(5, counters.get(2L)[0]);
+        assertEquals(3, counters.get(4L)[0]);
+        assertEquals(1, counters.get(4L)[1]);
+    }
+}
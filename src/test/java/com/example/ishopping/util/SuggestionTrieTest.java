@@ -0,0 +1,84 @@
+package com.example.ishopping.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestionTrieTest {
+
+    private static final int K = 5;
+
+    @Test
+    void topMatchesBruteForceUnderInsertsUpdatesAndRemovals() {
+        Random random = new Random(3);
+        SuggestionTrie trie = new SuggestionTrie(K);
+        Map<String, Long> truth = new HashMap<>();
+        String alphabet = "abc手机壳";
+        for (int step = 0; step < 20_000; step++) {
+            String key = randomKey(random, alphabet);
+            int action = random.nextInt(10);
+            if (action < 6) {
+                long score = random.nextInt(50);
+                trie.put(key, score);
+                truth.put(key, score);
+            } else if (action < 8 && !truth.isEmpty()) {
+                // 修改已有词的分数（升或降）
+                String existing = truth.keySet().iterator().next();
+                long score = random.nextInt(50);
+                trie.put(existing, score);
+                truth.put(existing, score);
+            } else {
+                trie.remove(key);
+                truth.remove(key);
+            }
+            if (step % 50 == 0) {
+                for (int i = 0; i < 20; i++) {
+                    String candidate = randomKey(random, alphabet);
+                    String prefix = candidate.substring(0, Math.min(candidate.length(), 1 + random.nextInt(2)));
+                    assertEquals(expected(truth, prefix, K), trie.top(prefix, K), "前缀 " + prefix);
+                }
+                assertEquals(expected(truth, "", K), trie.top("", K));
+            }
+        }
+        assertEquals(truth.size(), trie.size());
+        assertTrue(trie.nodeCount() <= 2 * trie.size() + 1);
+        assertTrue(trie.estimatedBytes() > 0);
+    }
+
+    @Test
+    void prefixEndingInsideCompressedEdgeAndLimit() {
+        SuggestionTrie trie = new SuggestionTrie(K);
+        trie.put("iphone 15", 30);
+        trie.put("iphone 15 pro", 50);
+        trie.put("ipad", 10);
+        assertEquals(List.of("iphone 15 pro", "iphone 15"), trie.top("iph", 10));
+        assertEquals(List.of("iphone 15 pro"), trie.top("iphone", 1));
+        assertEquals(List.of(), trie.top("ipx", 10));
+        assertEquals(List.of(), trie.top("iphone 15 pro max", 10));
+        trie.remove("iphone 15 pro");
+        assertEquals(List.of("iphone 15", "ipad"), trie.top("i", 10));
+        assertEquals(30, trie.score("iphone 15"));
+    }
+
+    private static String randomKey(Random random, String alphabet) {
+        int length = 1 + random.nextInt(5);
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            key.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return key.toString();
+    }
+
+    private static List<String> expected(Map<String, Long> truth, String prefix, int limit) {
+        return truth.entrySet().stream()
+                .filter(e -> e.getKey().startsWith(prefix))
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+}
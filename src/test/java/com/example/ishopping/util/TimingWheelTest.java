@@ -0,0 +1,59 @@
+package com.example.ishopping.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void firesEachEntryAtItsDeadlineTickAcrossLevels() {
+        long start = 1_000_000L;
+        TimingWheel wheel = new TimingWheel(10, 3, start);
+        Random random = new Random(42);
+        Map<Long, Long> deadlines = new HashMap<>();
+        for (long id = 0; id < 20_000; id++) {
+            // 覆盖全部三层以及超出范围的溢出槽（64^3 个 tick 之后）
+            long deadline = start + (id % 10 == 0 ? 3_000_000L + random.nextInt(1_000_000) : random.nextInt(2_700_000));
+            deadlines.put(id, deadline);
+            wheel.add(id, deadline);
+        }
+        assertEquals(20_000, wheel.size());
+
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long now = start; now <= start + 4_100_000L; now += 10) {
+            long time = now;
+            wheel.advanceTo(time, id -> assertEquals(null, firedAt.put(id, time), "重复触发: " + id));
+        }
+
+        assertEquals(20_000, firedAt.size());
+        assertEquals(0, wheel.size());
+        deadlines.forEach((id, deadline) -> {
+            long fired = firedAt.get(id);
+            assertTrue(fired >= deadline && fired < deadline + 10, "id " + id + " 到期 " + deadline + " 触发于 " + fired);
+        });
+    }
+
+    @Test
+    void pastDeadlinesFireOnNextAdvanceAndLargeJumpsCatchUp() {
+        TimingWheel wheel = new TimingWheel(1000, 4, 5_000_000L);
+        wheel.add(1, 4_000_000L);
+        wheel.add(2, 5_000_500L);
+        wheel.add(3, 9_000_000L);
+
+        List<Long> fired = new ArrayList<>();
+        wheel.advanceTo(5_000_000L, fired::add);
+        assertEquals(List.of(1L), fired);
+
+        wheel.advanceTo(10_000_000L, fired::add);
+        assertEquals(List.of(1L, 2L, 3L), fired);
+        assertEquals(0, wheel.size());
+    }
+}